@@ -29,4 +29,7 @@ public class LoginRequest {
             example = "ROLE_ADMIN",
             allowableValues = {"ROLE_ADMIN", "ROLE_CUSTOMER", "ROLE_SELLER", "ROLE_STAFF"})
     private String expectedRole;
+
+    @Schema(description = "Guest cart token to merge into the user's cart (optional)")
+    private String guestCartToken;
 }
@@ -9,6 +9,7 @@ import dev.CaoNguyen_1883.ecommerce.auth.service.IAuthService;
 
 import dev.CaoNguyen_1883.ecommerce.auth.security.CustomUserDetails;
 import dev.CaoNguyen_1883.ecommerce.auth.service.IJwtService;
+import dev.CaoNguyen_1883.ecommerce.cart.service.IGuestCartService;
 import dev.CaoNguyen_1883.ecommerce.user.entity.AuthProvider;
 import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.DuplicateResourceException;
@@ -26,8 +27,11 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,6 +44,7 @@ public class AuthServiceImpl implements IAuthService {
     private final PasswordEncoder passwordEncoder;
     private final IJwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final IGuestCartService guestCartService;
 
     @Override
     @Transactional
@@ -128,6 +133,10 @@ public class AuthServiceImpl implements IAuthService {
 
         log.info("User logged in successfully: {}", user.getEmail());
 
+        if (request.getGuestCartToken() != null && !request.getGuestCartToken().isBlank()) {
+            mergeGuestCartAfterCommit(request.getGuestCartToken(), user.getId());
+        }
+
         return buildAuthResponse(user, accessToken, refreshToken);
     }
 
@@ -167,6 +176,20 @@ public class AuthServiceImpl implements IAuthService {
     // Helper Methods
     // ============================================
 
+    private void mergeGuestCartAfterCommit(String guestCartToken, UUID userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    guestCartService.mergeIntoUserCart(guestCartToken, userId);
+                } catch (Exception e) {
+                    // Login must not fail because of the guest cart
+                    log.warn("Failed to merge guest cart for user {}: {}", userId, e.getMessage());
+                }
+            }
+        });
+    }
+
     private AuthResponse buildAuthResponse(User user, String accessToken, String refreshToken) {
         Set<String> roleNames = user.getRoles().stream()
                 .map(Role::getName)
@@ -0,0 +1,82 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductImage;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One line of a cart held in the CartStore
+ * Carries the price and display snapshot taken when the item was added, so serving
+ * the cart needs no join over variants, products and images
+ */
+public record CartLine(
+        UUID itemId,
+        UUID variantId,
+        UUID productId,
+        String productName,
+        String productSlug,
+        String variantSku,
+        String variantName,
+        String primaryImage,
+        BigDecimal priceAtAdd,
+        int quantity,
+        LocalDateTime reservationExpiresAt
+) {
+
+    /**
+     * Line for a variant loaded with its product and images
+     */
+    public static CartLine of(UUID itemId, ProductVariant variant, BigDecimal price, int quantity,
+                              LocalDateTime reservationExpiresAt) {
+        return new CartLine(
+                itemId,
+                variant.getId(),
+                variant.getProduct().getId(),
+                variant.getProduct().getName(),
+                variant.getProduct().getSlug(),
+                variant.getSku(),
+                variant.getName(),
+                primaryImageUrl(variant),
+                price,
+                quantity,
+                reservationExpiresAt);
+    }
+
+    public BigDecimal subtotal() {
+        return priceAtAdd.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    public boolean hasLiveReservation() {
+        return reservationExpiresAt != null;
+    }
+
+    public CartLine withQuantity(int newQuantity) {
+        return new CartLine(itemId, variantId, productId, productName, productSlug, variantSku, variantName,
+                primaryImage, priceAtAdd, newQuantity, reservationExpiresAt);
+    }
+
+    public CartLine withPrice(BigDecimal newPrice) {
+        return new CartLine(itemId, variantId, productId, productName, productSlug, variantSku, variantName,
+                primaryImage, newPrice, quantity, reservationExpiresAt);
+    }
+
+    public CartLine withReservationExpiresAt(LocalDateTime expiresAt) {
+        return new CartLine(itemId, variantId, productId, productName, productSlug, variantSku, variantName,
+                primaryImage, priceAtAdd, quantity, expiresAt);
+    }
+
+    private static String primaryImageUrl(ProductVariant variant) {
+        if (variant.getImages() == null || variant.getImages().isEmpty()) {
+            return null;
+        }
+        return variant.getImages().stream()
+                .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
+                .findFirst()
+                .or(() -> variant.getImages().stream().findFirst())
+                .map(ProductImage::getImageUrl)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,26 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a cart taken from the CartStore
+ */
+public record CartSnapshot(UUID userId, UUID cartId, LocalDateTime updatedAt, List<CartLine> lines) {
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public int totalQuantity() {
+        return lines.stream().mapToInt(CartLine::quantity).sum();
+    }
+
+    public BigDecimal subtotal() {
+        return lines.stream()
+                .map(CartLine::subtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
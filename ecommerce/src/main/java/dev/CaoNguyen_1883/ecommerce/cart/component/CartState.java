@@ -0,0 +1,198 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Mutable state of one user's cart inside the CartStore
+ * Not thread-safe on its own: CartStore hands it out only while holding its monitor
+ */
+public class CartState {
+
+    private final UUID userId;
+    private UUID cartId;
+    private final Map<UUID, CartLine> lines = new LinkedHashMap<>();  // by item id, in insertion order
+
+    private long version;
+    private LocalDateTime updatedAt;
+
+    // Changes not yet written to MySQL
+    private final Set<UUID> removedItemIds = new HashSet<>();
+    private boolean cleared;  // every stored line goes, written as one soft delete of the cart
+
+    // Checkout currently holding the cart's lines; a second checkout is refused until it ends or expires
+    private UUID checkoutToken;
+    private LocalDateTime checkoutExpiresAt;
+
+    // Changes of the running mutation, reset by CartStore after each one
+    private final Set<UUID> touchedItemIds = new HashSet<>();
+    private final Set<UUID> droppedItemIds = new HashSet<>();
+
+    public CartState(UUID userId, UUID cartId) {
+        this.userId = userId;
+        this.cartId = cartId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getCartId() {
+        return cartId;
+    }
+
+    void setCartId(UUID cartId) {
+        this.cartId = cartId;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Optional<CartLine> findItem(UUID itemId) {
+        return Optional.ofNullable(lines.get(itemId));
+    }
+
+    public Optional<CartLine> findByVariant(UUID variantId) {
+        return lines.values().stream()
+                .filter(line -> line.variantId().equals(variantId))
+                .findFirst();
+    }
+
+    public List<CartLine> lines() {
+        return List.copyOf(lines.values());
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public int totalQuantity() {
+        return lines.values().stream().mapToInt(CartLine::quantity).sum();
+    }
+
+    /**
+     * Add or replace a line
+     */
+    public void put(CartLine line) {
+        lines.put(line.itemId(), line);
+        removedItemIds.remove(line.itemId());
+        droppedItemIds.remove(line.itemId());
+        touchedItemIds.add(line.itemId());
+    }
+
+    /**
+     * Remove a line
+     *
+     * @return The removed line, or null
+     */
+    public CartLine remove(UUID itemId) {
+        CartLine removed = lines.remove(itemId);
+        if (removed != null) {
+            removedItemIds.add(itemId);
+            droppedItemIds.add(itemId);
+            touchedItemIds.remove(itemId);
+        }
+        return removed;
+    }
+
+    /**
+     * Remove every line
+     *
+     * @return The removed lines
+     */
+    public List<CartLine> clear() {
+        List<CartLine> removed = lines();
+        removed.forEach(line -> remove(line.itemId()));
+        removedItemIds.clear();
+        cleared = true;
+        return removed;
+    }
+
+    /**
+     * Claim the cart for a checkout
+     *
+     * @return false if another live checkout holds it
+     */
+    boolean claimCheckout(UUID token, LocalDateTime now, LocalDateTime expiresAt) {
+        if (checkoutToken != null && !checkoutToken.equals(token) && checkoutExpiresAt.isAfter(now)) {
+            return false;
+        }
+        checkoutToken = token;
+        checkoutExpiresAt = expiresAt;
+        return true;
+    }
+
+    /**
+     * End a checkout claim (no-op unless the token holds it)
+     */
+    void releaseCheckout(UUID token) {
+        if (token.equals(checkoutToken)) {
+            checkoutToken = null;
+            checkoutExpiresAt = null;
+        }
+    }
+
+    public CartSnapshot snapshot() {
+        return new CartSnapshot(userId, cartId, updatedAt, lines());
+    }
+
+    // ===== STORE BOOKKEEPING =====
+
+    boolean hasMutation() {
+        return !touchedItemIds.isEmpty() || !droppedItemIds.isEmpty();
+    }
+
+    Set<UUID> touchedItemIds() {
+        return touchedItemIds;
+    }
+
+    Set<UUID> droppedItemIds() {
+        return droppedItemIds;
+    }
+
+    void resetMutation() {
+        touchedItemIds.clear();
+        droppedItemIds.clear();
+    }
+
+    /**
+     * Item ids deleted since the last flush, handed over to the write-behind
+     */
+    Set<UUID> drainRemovedItemIds() {
+        Set<UUID> drained = Set.copyOf(removedItemIds);
+        removedItemIds.clear();
+        return drained;
+    }
+
+    /**
+     * Whether the cart was cleared since the last flush; resets the flag
+     */
+    boolean drainCleared() {
+        boolean drained = cleared;
+        cleared = false;
+        return drained;
+    }
+
+    /**
+     * Put back deletes of a failed flush (unless the item came back meanwhile)
+     */
+    void restoreRemovedItemIds(Set<UUID> itemIds, boolean wasCleared) {
+        itemIds.stream()
+                .filter(id -> !lines.containsKey(id))
+                .forEach(removedItemIds::add);
+        cleared |= wasCleared;
+    }
+}
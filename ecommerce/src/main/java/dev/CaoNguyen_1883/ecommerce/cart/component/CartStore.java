@@ -0,0 +1,482 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.CaoNguyen_1883.ecommerce.cart.entity.Cart;
+import dev.CaoNguyen_1883.ecommerce.cart.entity.CartItem;
+import dev.CaoNguyen_1883.ecommerce.cart.repository.CartItemRepository;
+import dev.CaoNguyen_1883.ecommerce.cart.repository.CartRepository;
+import dev.CaoNguyen_1883.ecommerce.common.exception.DuplicateResourceException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
+import dev.CaoNguyen_1883.ecommerce.user.entity.User;
+import dev.CaoNguyen_1883.ecommerce.user.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Hot store of active carts
+ *
+ * Carts live in a Caffeine L1 and, when enabled, as Redis hashes (one field per line plus
+ * cartId/updatedAt/version) shared by all instances. Reads and writes are served from here;
+ * carts/cart_items in MySQL are only read when a cart is first seen and are kept up to date
+ * by CartWriteBehind. Carts with unflushed changes are pinned in a dirty map so L1 eviction
+ * never loses them.
+ */
+@Component
+@Slf4j
+public class CartStore {
+
+    private static final String FIELD_CART_ID = "cartId";
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+    private static final String FIELD_VERSION = "version";
+    private static final String FIELD_ITEM_COUNT = "itemCount";
+    private static final String ITEM_FIELD_PREFIX = "item:";
+
+    // Set fields, delete fields, bump version and refresh TTL in one round trip
+    // ARGV: ttlSeconds, pairCount, field1, value1, ..., fieldsToDelete...
+    private static final RedisScript<Long> WRITE_SCRIPT = new DefaultRedisScript<>("""
+            local pairs = tonumber(ARGV[2])
+            local i = 3
+            for _ = 1, pairs do
+                redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+                i = i + 2
+            end
+            while i <= #ARGV do
+                redis.call('HDEL', KEYS[1], ARGV[i])
+                i = i + 1
+            end
+            local version = redis.call('HINCRBY', KEYS[1], 'version', 1)
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return version
+            """, Long.class);
+
+    // Drop a checkout claim only if it is still ours
+    private static final RedisScript<Long> RELEASE_CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String keyPrefix;
+    private final boolean redisEnabled;
+    private final Duration redisTtl;
+    private final Duration checkoutClaimTtl;
+
+    private final Cache<UUID, CartState> carts;
+    private final Map<UUID, CartState> dirty = new ConcurrentHashMap<>();
+    private final Cache<UUID, Integer> itemCounts;  // header badge counts of carts not held in L1
+
+    public CartStore(
+            CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            UserRepository userRepository,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Qualifier("redisNamespace") String redisNamespace,
+            @Value("${app.cart.store.redis-enabled:true}") boolean redisEnabled,
+            @Value("${app.cart.store.redis-ttl-days:30}") long redisTtlDays,
+            @Value("${app.cart.store.max-carts:100000}") long maxCarts,
+            @Value("${app.cart.store.idle-minutes:60}") long idleMinutes,
+            @Value("${app.cart.store.checkout-claim-seconds:300}") long checkoutClaimSeconds) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyPrefix = redisNamespace + "cart:";
+        this.redisEnabled = redisEnabled;
+        this.redisTtl = Duration.ofDays(redisTtlDays);
+        this.checkoutClaimTtl = Duration.ofSeconds(checkoutClaimSeconds);
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+        this.itemCounts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+
+        log.info("Initialized cart store: redis={}, maxCarts={}", redisEnabled, maxCarts);
+    }
+
+    /**
+     * Current cart content (empty if the user has no cart)
+     */
+    public CartSnapshot snapshot(UUID userId) {
+        CartState state = load(userId);
+        synchronized (state) {
+            return state.snapshot();
+        }
+    }
+
+    /**
+     * Total quantity of the user's cart without loading its lines
+     * Local unflushed changes win, then the itemCount field in Redis, then the L1 copy;
+     * only a cart seen nowhere costs one SUM over cart_items
+     */
+    public int itemCount(UUID userId) {
+        CartState state = dirty.get(userId);
+        if (state == null) {
+            if (redisEnabled) {
+                Integer remote = readRedisItemCount(userId);
+                if (remote != null) {
+                    return remote;
+                }
+            }
+            state = carts.getIfPresent(userId);
+        }
+        if (state != null) {
+            synchronized (state) {
+                return state.totalQuantity();
+            }
+        }
+        return itemCounts.get(userId, id -> (int) cartItemRepository.sumQuantityByUserId(id));
+    }
+
+    /**
+     * Apply a change to the user's cart under its lock
+     * Creates the carts row on first use; changed lines are written through to Redis
+     * and queued for the write-behind even if the change throws half-way
+     */
+    public <T> T mutate(UUID userId, Function<CartState, T> change) {
+        while (true) {
+            CartState state = load(userId);
+            synchronized (state) {
+                if (!isCurrent(userId, state)) {
+                    continue;  // replaced by a fresher copy meanwhile, retry on that one
+                }
+                if (state.getCartId() == null) {
+                    state.setCartId(createCart(userId));
+                }
+                try {
+                    return change.apply(state);
+                } finally {
+                    if (state.hasMutation()) {
+                        commitMutation(state);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim the cart for one checkout, then apply a change under its lock
+     * While the claim is held (across instances when Redis is on) other checkouts of the cart are refused;
+     * it ends with releaseCheckout, or after checkout-claim-seconds if its owner died
+     *
+     * @throws DuplicateResourceException if another checkout holds the cart
+     */
+    public <T> T claimCheckout(UUID userId, UUID token, Function<CartState, T> change) {
+        if (redisEnabled && !claimInRedis(userId, token)) {
+            throw new DuplicateResourceException("A checkout of this cart is already in progress");
+        }
+        try {
+            return mutate(userId, state -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (!state.claimCheckout(token, now, now.plus(checkoutClaimTtl))) {
+                    throw new DuplicateResourceException("A checkout of this cart is already in progress");
+                }
+                return change.apply(state);
+            });
+        } catch (RuntimeException e) {
+            releaseCheckout(userId, token);
+            throw e;
+        }
+    }
+
+    /**
+     * End a checkout claim; a token that no longer holds the cart changes nothing
+     */
+    public void releaseCheckout(UUID userId, UUID token) {
+        CartState state = load(userId);
+        synchronized (state) {
+            state.releaseCheckout(token);
+        }
+        if (redisEnabled) {
+            try {
+                redisTemplate.execute(RELEASE_CLAIM_SCRIPT, List.of(claimKey(userId)), token.toString());
+            } catch (RuntimeException e) {
+                log.warn("Failed to release checkout claim of user {} in Redis: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Make sure the user has a carts row and return the cart
+     */
+    public CartSnapshot getOrCreate(UUID userId) {
+        return mutate(userId, CartState::snapshot);
+    }
+
+    // ===== WRITE-BEHIND HAND-OVER =====
+
+    /**
+     * Take up to max carts with changes not yet in MySQL
+     */
+    public List<CartUpdate> collectDirty(int max) {
+        List<CartUpdate> updates = new ArrayList<>();
+        for (CartState state : dirty.values()) {
+            if (updates.size() >= max) {
+                break;
+            }
+            synchronized (state) {
+                updates.add(new CartUpdate(state.getUserId(), state.getCartId(), state.getUpdatedAt(),
+                        state.getVersion(), state.lines(), state.drainRemovedItemIds(), state.drainCleared()));
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * The update is in MySQL; unpin the cart unless it changed again meanwhile
+     */
+    public void markFlushed(CartUpdate update) {
+        dirty.computeIfPresent(update.userId(), (userId, state) -> {
+            synchronized (state) {
+                return state.getVersion() == update.version() ? null : state;
+            }
+        });
+    }
+
+    /**
+     * The update could not be written; keep its deletes for the next attempt
+     */
+    public void flushFailed(CartUpdate update) {
+        CartState state = dirty.get(update.userId());
+        if (state != null) {
+            synchronized (state) {
+                state.restoreRemovedItemIds(update.removedItemIds(), update.cleared());
+            }
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private CartState load(UUID userId) {
+        // Never serve an older copy of a cart with unflushed changes
+        CartState pending = dirty.get(userId);
+        if (pending != null) {
+            CartState cached = carts.asMap().putIfAbsent(userId, pending);
+            return cached != null ? cached : pending;
+        }
+
+        CartState state = carts.get(userId, this::hydrate);
+        if (redisEnabled && isStaleInRedis(state)) {
+            synchronized (state) {
+                CartState fresh = readRedis(userId);
+                if (fresh != null && carts.asMap().replace(userId, state, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+        return state;
+    }
+
+    private boolean isCurrent(UUID userId, CartState state) {
+        CartState cached = carts.asMap().putIfAbsent(userId, state);
+        return cached == null || cached == state;
+    }
+
+    /**
+     * Another instance wrote a newer version of this cart
+     */
+    private boolean isStaleInRedis(CartState state) {
+        if (dirty.get(state.getUserId()) == state) {
+            return false;  // local changes win until flushed
+        }
+        try {
+            Object remote = redisTemplate.opsForHash().get(key(state.getUserId()), FIELD_VERSION);
+            if (remote == null) {
+                return false;
+            }
+            synchronized (state) {
+                return Long.parseLong(remote.toString()) > state.getVersion();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Redis version check failed for cart of user {}: {}", state.getUserId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private CartState hydrate(UUID userId) {
+        if (redisEnabled) {
+            CartState fromRedis = readRedis(userId);
+            if (fromRedis != null) {
+                // Redis may be ahead of MySQL if an instance died before flushing
+                dirty.put(userId, fromRedis);
+                return fromRedis;
+            }
+        }
+
+        CartState state = cartRepository.findByUserIdWithItems(userId)
+                .map(this::fromEntity)
+                .orElseGet(() -> new CartState(userId, null));
+        state.setUpdatedAt(LocalDateTime.now());
+
+        if (redisEnabled && state.getCartId() != null) {
+            state.lines().forEach(line -> state.touchedItemIds().add(line.itemId()));
+            writeRedis(state);
+            state.resetMutation();
+        }
+
+        log.debug("Hydrated cart from database: user={}, lines={}", userId, state.lines().size());
+        return state;
+    }
+
+    private CartState fromEntity(Cart cart) {
+        CartState state = new CartState(cart.getUser().getId(), cart.getId());
+        for (CartItem item : cart.getItems()) {
+            if (!Boolean.TRUE.equals(item.getIsActive())) {
+                continue;
+            }
+            state.put(CartLine.of(item.getId(), item.getVariant(), item.getPriceAtAdd(), item.getQuantity(),
+                    item.getReservationExpiresAt()));
+        }
+        state.resetMutation();
+        return state;
+    }
+
+    private UUID createCart(UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        try {
+            return cartRepository.save(Cart.builder().user(user).build()).getId();
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another instance
+            return cartRepository.findByUserId(userId)
+                    .map(Cart::getId)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private void commitMutation(CartState state) {
+        state.setUpdatedAt(LocalDateTime.now());
+        if (!redisEnabled || !writeRedis(state)) {
+            state.setVersion(state.getVersion() + 1);
+        }
+        state.resetMutation();
+        dirty.put(state.getUserId(), state);
+        itemCounts.put(state.getUserId(), state.totalQuantity());
+    }
+
+    /**
+     * Write the lines touched by the running mutation, delete dropped ones
+     *
+     * @return false if Redis could not be reached
+     */
+    private boolean writeRedis(CartState state) {
+        try {
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(redisTtl.toSeconds()));
+            args.add("0");  // pair count, filled in below
+
+            int pairs = 0;
+            args.add(FIELD_CART_ID);
+            args.add(state.getCartId().toString());
+            pairs++;
+            args.add(FIELD_UPDATED_AT);
+            args.add(state.getUpdatedAt().toString());
+            pairs++;
+            args.add(FIELD_ITEM_COUNT);
+            args.add(String.valueOf(state.totalQuantity()));
+            pairs++;
+            for (UUID itemId : state.touchedItemIds()) {
+                CartLine line = state.findItem(itemId).orElse(null);
+                if (line != null) {
+                    args.add(ITEM_FIELD_PREFIX + itemId);
+                    args.add(objectMapper.writeValueAsString(line));
+                    pairs++;
+                }
+            }
+            args.set(1, String.valueOf(pairs));
+            for (UUID itemId : state.droppedItemIds()) {
+                args.add(ITEM_FIELD_PREFIX + itemId);
+            }
+
+            Long version = redisTemplate.execute(WRITE_SCRIPT, List.of(key(state.getUserId())), args.toArray());
+            if (version == null) {
+                return false;
+            }
+            state.setVersion(version);
+            return true;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to write cart of user {} to Redis: {}", state.getUserId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private CartState readRedis(UUID userId) {
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(userId));
+            if (fields.isEmpty() || fields.get(FIELD_CART_ID) == null) {
+                return null;
+            }
+
+            CartState state = new CartState(userId, UUID.fromString(fields.get(FIELD_CART_ID).toString()));
+            for (Map.Entry<Object, Object> field : fields.entrySet()) {
+                String name = field.getKey().toString();
+                if (name.startsWith(ITEM_FIELD_PREFIX)) {
+                    state.put(objectMapper.readValue(field.getValue().toString(), CartLine.class));
+                }
+            }
+            state.resetMutation();
+            state.setVersion(Long.parseLong(Objects.toString(fields.get(FIELD_VERSION), "0")));
+            Object updatedAt = fields.get(FIELD_UPDATED_AT);
+            state.setUpdatedAt(updatedAt != null ? LocalDateTime.parse(updatedAt.toString()) : LocalDateTime.now());
+            return state;
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Fall back to MySQL
+            log.warn("Failed to read cart of user {} from Redis: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Integer readRedisItemCount(UUID userId) {
+        try {
+            Object count = redisTemplate.opsForHash().get(key(userId), FIELD_ITEM_COUNT);
+            return count != null ? Integer.valueOf(count.toString()) : null;
+        } catch (RuntimeException e) {
+            log.debug("Redis item count read failed for cart of user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean claimInRedis(UUID userId, UUID token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(claimKey(userId), token.toString(), checkoutClaimTtl));
+        } catch (RuntimeException e) {
+            // Redis unreachable: the local claim still guards this instance
+            log.warn("Checkout claim of user {} not taken in Redis: {}", userId, e.getMessage());
+            return true;
+        }
+    }
+
+    private String key(UUID userId) {
+        return keyPrefix + userId;
+    }
+
+    private String claimKey(UUID userId) {
+        return keyPrefix + "checkout:" + userId;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Pending change of one cart handed from the CartStore to the write-behind
+ */
+public record CartUpdate(
+        UUID userId,
+        UUID cartId,
+        LocalDateTime updatedAt,
+        long version,
+        List<CartLine> lines,
+        Set<UUID> removedItemIds,
+        boolean cleared
+) {
+}
@@ -0,0 +1,157 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes cart changes from the CartStore to carts/cart_items in batches
+ * One transaction per batch of carts: soft deletes, then upserts of every current line
+ */
+@Component
+@Slf4j
+public class CartWriteBehind {
+
+    // Soft delete like the rest of cart_items; a re-added variant is revived by the upsert below
+    private static final String DELETE_ITEMS_SQL = """
+            UPDATE cart_items SET is_active = 0, updated_at = :updatedAt, version = version + 1
+            WHERE id IN (:ids)
+            """;
+
+    // A cleared cart drops all its lines in one statement, current lines are upserted back after it
+    private static final String CLEAR_CARTS_SQL = """
+            UPDATE cart_items SET is_active = 0, updated_at = :updatedAt, version = version + 1
+            WHERE cart_id IN (:cartIds) AND is_active = 1
+            """;
+
+    // Upsert by id or (cart_id, variant_id); id = VALUES(id) lets a re-added line take over its old row
+    private static final String UPSERT_ITEM_SQL = """
+            INSERT INTO cart_items
+                (id, cart_id, variant_id, quantity, price_at_add, reservation_expires_at,
+                 created_at, created_by, updated_at, updated_by, version, is_active)
+            VALUES (?, ?, ?, ?, ?, ?, ?, 'SYSTEM', ?, 'SYSTEM', 0, 1)
+            ON DUPLICATE KEY UPDATE
+                id = VALUES(id),
+                quantity = VALUES(quantity),
+                price_at_add = VALUES(price_at_add),
+                reservation_expires_at = VALUES(reservation_expires_at),
+                updated_at = VALUES(updated_at),
+                version = version + 1,
+                is_active = 1
+            """;
+
+    private static final String TOUCH_CART_SQL =
+            "UPDATE carts SET updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private final CartStore cartStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.cart.store.flush-batch-size:200}")
+    private int batchSize;
+
+    public CartWriteBehind(
+            CartStore cartStore,
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.cartStore = cartStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Flush dirty carts (default every second)
+     */
+    @Scheduled(fixedDelayString = "${app.cart.store.flush-millis:1000}")
+    public void flush() {
+        // Bounded so a burst of writes cannot keep the flusher busy forever
+        for (int round = 0; round < 50; round++) {
+            List<CartUpdate> updates = cartStore.collectDirty(batchSize);
+            if (updates.isEmpty() || !write(updates) || updates.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing cart store before shutdown");
+        flush();
+    }
+
+    // ===== HELPER METHODS =====
+
+    private boolean write(List<CartUpdate> updates) {
+        List<byte[]> deletes = new ArrayList<>();
+        List<byte[]> clears = new ArrayList<>();
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> touches = new ArrayList<>(updates.size());
+
+        for (CartUpdate update : updates) {
+            byte[] cartId = UuidUtils.toBytes(update.cartId());
+            Timestamp updatedAt = Timestamp.valueOf(update.updatedAt() != null ? update.updatedAt() : LocalDateTime.now());
+
+            if (update.cleared()) {
+                clears.add(cartId);
+            }
+            for (UUID itemId : update.removedItemIds()) {
+                deletes.add(UuidUtils.toBytes(itemId));
+            }
+            for (CartLine line : update.lines()) {
+                upserts.add(new Object[]{
+                        UuidUtils.toBytes(line.itemId()),
+                        cartId,
+                        UuidUtils.toBytes(line.variantId()),
+                        line.quantity(),
+                        line.priceAtAdd(),
+                        line.reservationExpiresAt() != null ? Timestamp.valueOf(line.reservationExpiresAt()) : null,
+                        updatedAt,
+                        updatedAt
+                });
+            }
+            touches.add(new Object[]{updatedAt, cartId});
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                if (!clears.isEmpty()) {
+                    namedJdbcTemplate.update(CLEAR_CARTS_SQL, Map.of("cartIds", clears, "updatedAt", now));
+                }
+                if (!deletes.isEmpty()) {
+                    namedJdbcTemplate.update(DELETE_ITEMS_SQL, Map.of("ids", deletes, "updatedAt", now));
+                }
+                if (!upserts.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, upserts);
+                }
+                jdbcTemplate.batchUpdate(TOUCH_CART_SQL, touches);
+            });
+        } catch (Exception e) {
+            log.warn("Cart write-behind failed for {} carts, retrying on next flush: {}", updates.size(), e.getMessage());
+            updates.forEach(cartStore::flushFailed);
+            return false;
+        }
+
+        updates.forEach(cartStore::markFlushed);
+        log.debug("Flushed {} carts ({} lines, {} deletes, {} cleared)",
+                updates.size(), upserts.size(), deletes.size(), clears.size());
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.cart.service.ICartService;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxHandler;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxMessage;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderPlacedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Removes ordered lines from the buyer's cart once the order is committed
+ * Removing a line twice is a no-op, so redelivered events are harmless
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckoutCartCleaner implements OutboxHandler {
+
+    private final ICartService cartService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String eventType() {
+        return OrderPlacedEvent.TYPE;
+    }
+
+    @Override
+    public void handle(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            OrderPlacedEvent event;
+            try {
+                event = objectMapper.readValue(message.payload(), OrderPlacedEvent.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable order event " + message.id(), e);
+            }
+            cartService.clearCartAfterCheckout(event.userId(),
+                    event.items().stream().map(OrderPlacedEvent.Item::cartItemId).toList());
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Carts of anonymous visitors, kept out of MySQL
+ *
+ * A guest cart is one JSON value in Redis (or a local Caffeine entry when Redis is disabled)
+ * that expires after ttl-days without activity. Deadlines of live stock reservations are indexed
+ * in a sorted set, and what each one holds (variant and quantity) in a hash next to it, so any
+ * instance can release them even after the cart is gone. A guest is one browser, so writes across
+ * instances are last-write-wins; within an instance they are serialized per guest.
+ */
+@Component
+@Slf4j
+public class GuestCartStore {
+
+    private static final TypeReference<List<CartLine>> LINES_TYPE = new TypeReference<>() {
+    };
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String keyPrefix;
+    private final String deadlinesKey;
+    private final String heldKey;
+    private final boolean redisEnabled;
+    private final Duration ttl;
+
+    private final Cache<UUID, List<CartLine>> localCarts;       // used when Redis is disabled
+    private final Map<String, Long> localDeadlines = new ConcurrentHashMap<>();
+    private final Map<String, String> localHeld = new ConcurrentHashMap<>();
+    private final Cache<UUID, Object> locks = Caffeine.newBuilder().weakValues().build();
+
+    public GuestCartStore(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Qualifier("redisNamespace") String redisNamespace,
+            @Value("${app.cart.store.redis-enabled:true}") boolean redisEnabled,
+            @Value("${app.cart.guest.ttl-days:7}") long ttlDays,
+            @Value("${app.cart.guest.max-carts:50000}") long maxCarts) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyPrefix = redisNamespace + "guest-cart:";
+        this.deadlinesKey = redisNamespace + "guest-cart-reservations";
+        this.heldKey = redisNamespace + "guest-cart-reservations:held";
+        this.redisEnabled = redisEnabled;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.localCarts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(ttl)
+                .build();
+
+        log.info("Initialized guest cart store: redis={}, ttlDays={}", redisEnabled, ttlDays);
+    }
+
+    /**
+     * Current content of a guest cart (empty if unknown or expired)
+     */
+    public CartSnapshot snapshot(UUID guestId) {
+        synchronized (lockFor(guestId)) {
+            return load(guestId).snapshot();
+        }
+    }
+
+    /**
+     * Apply a change to a guest cart; the cart is written back (and its TTL refreshed) if it changed
+     */
+    public <T> T mutate(UUID guestId, Function<CartState, T> change) {
+        synchronized (lockFor(guestId)) {
+            CartState state = load(guestId);
+            try {
+                return change.apply(state);
+            } finally {
+                if (state.hasMutation()) {
+                    save(state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete a guest cart and hand back its lines (used when the guest logs in)
+     */
+    public List<CartLine> take(UUID guestId) {
+        synchronized (lockFor(guestId)) {
+            CartState state = load(guestId);
+            List<CartLine> lines = state.lines();
+            lines.forEach(line -> removeDeadline(guestId, line.itemId()));
+            if (redisEnabled) {
+                redisTemplate.delete(key(guestId));
+            } else {
+                localCarts.invalidate(guestId);
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Guest carts with reservation deadlines at or before now, as guest id -> reservations
+     */
+    public Map<UUID, List<HeldReservation>> dueReservations(LocalDateTime now, int max) {
+        long nowMillis = toMillis(now);
+        Collection<String> members;
+        if (redisEnabled) {
+            Set<String> due = redisTemplate.opsForZSet().rangeByScore(deadlinesKey, 0, nowMillis, 0, max);
+            members = due != null ? due : Set.of();
+        } else {
+            members = localDeadlines.entrySet().stream()
+                    .filter(entry -> entry.getValue() <= nowMillis)
+                    .limit(max)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+
+        List<String> held = members.isEmpty() ? List.of() : readHeld(members);
+        Map<UUID, List<HeldReservation>> byGuest = new HashMap<>();
+        int i = 0;
+        for (String member : members) {
+            String[] ids = member.split(":");
+            byGuest.computeIfAbsent(UUID.fromString(ids[0]), k -> new ArrayList<>())
+                    .add(HeldReservation.of(UUID.fromString(ids[1]), held.get(i++)));
+        }
+        return byGuest;
+    }
+
+    /**
+     * Drop a deadline whose reservation was released, so it is not picked up again
+     */
+    public void forgetDeadline(UUID guestId, UUID itemId) {
+        removeDeadline(guestId, itemId);
+    }
+
+    // ===== HELPER METHODS =====
+
+    private Object lockFor(UUID guestId) {
+        return locks.get(guestId, id -> new Object());
+    }
+
+    private CartState load(UUID guestId) {
+        CartState state = new CartState(guestId, guestId);
+        List<CartLine> lines = redisEnabled ? readRedis(guestId) : localCarts.getIfPresent(guestId);
+        if (lines != null) {
+            lines.forEach(state::put);
+        }
+        state.resetMutation();
+        state.setUpdatedAt(LocalDateTime.now());
+        return state;
+    }
+
+    private void save(CartState state) {
+        UUID guestId = state.getUserId();
+        for (UUID itemId : state.touchedItemIds()) {
+            CartLine line = state.findItem(itemId).orElse(null);
+            if (line != null && line.hasLiveReservation()) {
+                addDeadline(guestId, line);
+            } else {
+                removeDeadline(guestId, itemId);
+            }
+        }
+        state.droppedItemIds().forEach(itemId -> removeDeadline(guestId, itemId));
+
+        List<CartLine> lines = state.lines();
+        if (redisEnabled) {
+            try {
+                redisTemplate.opsForValue().set(key(guestId), objectMapper.writeValueAsString(lines), ttl);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize guest cart", e);
+            }
+        } else {
+            localCarts.put(guestId, lines);
+        }
+        state.resetMutation();
+    }
+
+    private List<CartLine> readRedis(UUID guestId) {
+        String json = redisTemplate.opsForValue().get(key(guestId));
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, LINES_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping unreadable guest cart {}: {}", guestId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void addDeadline(UUID guestId, CartLine line) {
+        String member = member(guestId, line.itemId());
+        String held = line.variantId() + ":" + line.quantity();
+        // What is held goes first, so a due deadline always finds it
+        if (redisEnabled) {
+            redisTemplate.opsForHash().put(heldKey, member, held);
+            redisTemplate.opsForZSet().add(deadlinesKey, member, toMillis(line.reservationExpiresAt()));
+        } else {
+            localHeld.put(member, held);
+            localDeadlines.put(member, toMillis(line.reservationExpiresAt()));
+        }
+    }
+
+    private void removeDeadline(UUID guestId, UUID itemId) {
+        String member = member(guestId, itemId);
+        if (redisEnabled) {
+            redisTemplate.opsForZSet().remove(deadlinesKey, member);
+            redisTemplate.opsForHash().delete(heldKey, member);
+        } else {
+            localDeadlines.remove(member);
+            localHeld.remove(member);
+        }
+    }
+
+    private List<String> readHeld(Collection<String> members) {
+        if (!redisEnabled) {
+            return members.stream().map(localHeld::get).toList();
+        }
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        return hash.multiGet(heldKey, List.copyOf(members));
+    }
+
+    private String member(UUID guestId, UUID itemId) {
+        return guestId + ":" + itemId;
+    }
+
+    private String key(UUID guestId) {
+        return keyPrefix + guestId;
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * A due reservation of a guest cart line; variantId is null for deadlines written without it
+     */
+    public record HeldReservation(UUID itemId, UUID variantId, int quantity) {
+
+        private static HeldReservation of(UUID itemId, String held) {
+            if (held == null) {
+                return new HeldReservation(itemId, null, 0);
+            }
+            String[] parts = held.split(":");
+            return new HeldReservation(itemId, UUID.fromString(parts[0]), Integer.parseInt(parts[1]));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import java.util.*;
+
+/**
+ * Hierarchical timing wheel of cart item reservation deadlines
+ *
+ * Level 0 has wheelSize slots of one tick each, every higher level has wheelSize slots
+ * covering a full turn of the level below. Deadlines further out than the top level are
+ * parked in its farthest slot and re-placed when that slot fires.
+ * Scheduling, extending and cancelling are O(1): a newer deadline simply supersedes the
+ * older entry, which is dropped when its slot fires.
+ */
+public class ReservationTimingWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] levelSpan;  // ticks covered by one slot of each level
+    private final List<List<List<Entry>>> levels;  // level -> slot -> entries
+
+    // Authoritative deadline per item, anything in the slots that disagrees is stale
+    private final Map<UUID, Long> deadlines = new HashMap<>();
+
+    private long currentTick;
+
+    public ReservationTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelSpan = new long[levelCount];
+        this.levels = new ArrayList<>(levelCount);
+
+        long span = 1;
+        for (int level = 0; level < levelCount; level++) {
+            levelSpan[level] = span;
+            List<List<Entry>> slots = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                slots.add(new ArrayList<>());
+            }
+            levels.add(slots);
+            span = Math.multiplyExact(span, wheelSize);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule (or move) the deadline of an item
+     */
+    public synchronized void schedule(UUID itemId, long deadlineMillis) {
+        deadlines.put(itemId, deadlineMillis);
+        place(new Entry(itemId, deadlineMillis), currentTick + 1);
+    }
+
+    /**
+     * Stop tracking an item
+     */
+    public synchronized void cancel(UUID itemId) {
+        deadlines.remove(itemId);
+    }
+
+    /**
+     * Number of items currently tracked
+     */
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Advance the wheel up to nowMillis
+     *
+     * @return Items whose deadline passed, each returned once
+     */
+    public synchronized List<UUID> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<UUID> expired = new ArrayList<>();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Cascade higher levels first so their entries can land in this tick's slot
+            for (int level = levels.size() - 1; level > 0; level--) {
+                if (currentTick % levelSpan[level] == 0) {
+                    for (Entry entry : drain(level, slotIndex(level, currentTick))) {
+                        if (isCurrent(entry)) {
+                            place(entry, currentTick);
+                        }
+                    }
+                }
+            }
+
+            for (Entry entry : drain(0, slotIndex(0, currentTick))) {
+                if (!isCurrent(entry)) {
+                    continue;
+                }
+                if (entry.deadlineMillis() <= nowMillis) {
+                    deadlines.remove(entry.itemId());
+                    expired.add(entry.itemId());
+                } else {
+                    place(entry, currentTick + 1);
+                }
+            }
+        }
+        return expired;
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Slot the entry at its deadline tick, or at earliestTick if that is later
+     * Only a cascade may use the current tick: its level 0 slot is drained right after
+     */
+    private void place(Entry entry, long earliestTick) {
+        long tick = Math.max(ceilDiv(entry.deadlineMillis(), tickMillis), earliestTick);
+
+        for (int level = 0; level < levels.size(); level++) {
+            long span = levelSpan[level];
+            if (tick / span - currentTick / span < wheelSize) {
+                levels.get(level).get(slotIndex(level, tick)).add(entry);
+                return;
+            }
+        }
+
+        // Beyond the top level: park in its farthest slot, re-placed when it fires
+        int top = levels.size() - 1;
+        long farthest = (currentTick / levelSpan[top] + wheelSize - 1) * levelSpan[top];
+        levels.get(top).get(slotIndex(top, farthest)).add(entry);
+    }
+
+    private List<Entry> drain(int level, int slot) {
+        List<List<Entry>> slots = levels.get(level);
+        List<Entry> entries = slots.get(slot);
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        slots.set(slot, new ArrayList<>());
+        return entries;
+    }
+
+    private int slotIndex(int level, long tick) {
+        return (int) ((tick / levelSpan[level]) % wheelSize);
+    }
+
+    private boolean isCurrent(Entry entry) {
+        Long deadline = deadlines.get(entry.itemId());
+        return deadline != null && deadline == entry.deadlineMillis();
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private record Entry(UUID itemId, long deadlineMillis) {
+    }
+}
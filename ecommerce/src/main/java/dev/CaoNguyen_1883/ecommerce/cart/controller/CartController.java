@@ -2,6 +2,7 @@ package dev.CaoNguyen_1883.ecommerce.cart.controller;
 
 import dev.CaoNguyen_1883.ecommerce.auth.security.CustomUserDetails;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.BatchAddToCartRequest;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.CartDto;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.UpdateCartItemRequest;
 import dev.CaoNguyen_1883.ecommerce.cart.service.ICartService;
@@ -57,6 +58,22 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Item added to cart successfully", cart));
     }
 
+    @Operation(
+            summary = "Add items to cart",
+            description = "Add several product variants at once. Either all items are added or none."
+    )
+    @PostMapping("/items/batch")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<ApiResponse<CartDto>> addItemsToCart(
+            @Valid @RequestBody BatchAddToCartRequest request,
+            Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        UUID userId = userDetails.getId();
+
+        CartDto cart = cartService.addItemsToCart(userId, request);
+        return ResponseEntity.ok(ApiResponse.success("Items added to cart successfully", cart));
+    }
+
     @Operation(
             summary = "Update cart item",
             description = "Update the quantity of a cart item"
@@ -118,6 +135,20 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Cart synced successfully", cart));
     }
 
+    @Operation(
+            summary = "Extend reservations",
+            description = "Keep stock reserved for all cart items for another TTL. Expired items are re-reserved if stock is still available."
+    )
+    @PostMapping("/reservations/extend")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public ResponseEntity<ApiResponse<CartDto>> extendReservations(Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        UUID userId = userDetails.getId();
+
+        CartDto cart = cartService.extendReservations(userId);
+        return ResponseEntity.ok(ApiResponse.success("Cart reservations extended successfully", cart));
+    }
+
     @Operation(
             summary = "Get cart item count",
             description = "Get total number of items in the cart"
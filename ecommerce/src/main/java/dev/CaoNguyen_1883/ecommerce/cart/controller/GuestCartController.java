@@ -0,0 +1,75 @@
+package dev.CaoNguyen_1883.ecommerce.cart.controller;
+
+import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.CartDto;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.UpdateCartItemRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.service.IGuestCartService;
+import dev.CaoNguyen_1883.ecommerce.common.response.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/guest-cart")
+@RequiredArgsConstructor
+@Tag(name = "Guest Cart", description = "APIs for the shopping cart of anonymous visitors")
+public class GuestCartController {
+
+    private static final String TOKEN_HEADER = "X-Guest-Cart-Token";
+
+    private final IGuestCartService guestCartService;
+
+    @Operation(
+            summary = "Get guest cart",
+            description = "Get the guest cart identified by the X-Guest-Cart-Token header"
+    )
+    @GetMapping
+    public ResponseEntity<ApiResponse<CartDto>> getCart(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String guestToken) {
+        CartDto cart = guestCartService.getCart(guestToken);
+        return ResponseEntity.ok(ApiResponse.success("Cart retrieved successfully", cart));
+    }
+
+    @Operation(
+            summary = "Add item to guest cart",
+            description = "Add a product variant to the guest cart. Without a token a new guest cart is started; " +
+                    "the response carries the token to send with later requests and at login."
+    )
+    @PostMapping("/items")
+    public ResponseEntity<ApiResponse<CartDto>> addToCart(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String guestToken,
+            @Valid @RequestBody AddToCartRequest request) {
+        CartDto cart = guestCartService.addToCart(guestToken, request);
+        return ResponseEntity.ok(ApiResponse.success("Item added to cart successfully", cart));
+    }
+
+    @Operation(
+            summary = "Update guest cart item",
+            description = "Update the quantity of a guest cart item"
+    )
+    @PutMapping("/items/{itemId}")
+    public ResponseEntity<ApiResponse<CartDto>> updateCartItem(
+            @RequestHeader(TOKEN_HEADER) String guestToken,
+            @PathVariable UUID itemId,
+            @Valid @RequestBody UpdateCartItemRequest request) {
+        CartDto cart = guestCartService.updateCartItem(guestToken, itemId, request);
+        return ResponseEntity.ok(ApiResponse.success("Cart item updated successfully", cart));
+    }
+
+    @Operation(
+            summary = "Remove guest cart item",
+            description = "Remove an item from the guest cart"
+    )
+    @DeleteMapping("/items/{itemId}")
+    public ResponseEntity<ApiResponse<CartDto>> removeCartItem(
+            @RequestHeader(TOKEN_HEADER) String guestToken,
+            @PathVariable UUID itemId) {
+        CartDto cart = guestCartService.removeCartItem(guestToken, itemId);
+        return ResponseEntity.ok(ApiResponse.success("Item removed from cart successfully", cart));
+    }
+}
@@ -0,0 +1,19 @@
+package dev.CaoNguyen_1883.ecommerce.cart.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchAddToCartRequest {
+
+    @NotEmpty(message = "Items are required")
+    @Size(max = 50, message = "At most 50 items can be added at once")
+    private List<@Valid AddToCartRequest> items;
+}
@@ -20,4 +20,5 @@ public class CartDto {
     private BigDecimal discount;      // Discount amount (from coupons/promotions)
     private BigDecimal totalPrice;    // subtotal - discount
     private LocalDateTime updatedAt;
+    private String guestCartToken;    // Only set for guest carts
 }
\ No newline at end of file
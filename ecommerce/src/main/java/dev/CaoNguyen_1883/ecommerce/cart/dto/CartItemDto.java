@@ -3,6 +3,7 @@ package dev.CaoNguyen_1883.ecommerce.cart.dto;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
@@ -23,4 +24,5 @@ public class CartItemDto {
     private BigDecimal subtotal;
     private Integer availableStock;
     private Boolean isAvailable; // Check if variant is still active and in stock
+    private LocalDateTime reservationExpiresAt; // null when the stock is no longer held for this cart
 }
\ No newline at end of file
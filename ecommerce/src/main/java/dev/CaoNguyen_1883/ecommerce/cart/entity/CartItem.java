@@ -7,6 +7,7 @@ import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "cart_items",
@@ -15,7 +16,8 @@ import java.math.BigDecimal;
         },
         indexes = {
                 @Index(name = "idx_cart_item_cart", columnList = "cart_id"),
-                @Index(name = "idx_cart_item_variant", columnList = "variant_id")
+                @Index(name = "idx_cart_item_variant", columnList = "variant_id"),
+                @Index(name = "idx_cart_item_reservation_expiry", columnList = "reservation_expires_at")
         }
 )
 @Getter
@@ -42,7 +44,15 @@ public class CartItem extends BaseEntity {
     @Column(nullable = false, precision = 12, scale = 2)
     private BigDecimal priceAtAdd;
 
+    // Stock for this item is held in ProductVariant.reservedStock until this time
+    // null means the reservation expired (or was never made) and must be re-reserved before checkout
+    private LocalDateTime reservationExpiresAt;
+
     // Helper methods
+    public boolean hasLiveReservation() {
+        return reservationExpiresAt != null;
+    }
+
     public BigDecimal getSubtotal() {
         return priceAtAdd.multiply(BigDecimal.valueOf(quantity));
     }
@@ -1,70 +1,82 @@
 package dev.CaoNguyen_1883.ecommerce.cart.mapper;
 
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartLine;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartSnapshot;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.CartDto;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.CartItemDto;
-import dev.CaoNguyen_1883.ecommerce.cart.entity.Cart;
-import dev.CaoNguyen_1883.ecommerce.cart.entity.CartItem;
-import org.mapstruct.*;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository.StockView;
+import org.mapstruct.Mapper;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Maps carts served by the CartStore
+ * Display data comes from the line snapshots; only live stock is passed in
+ */
 @Mapper(componentModel = "spring")
 public abstract class CartMapper {
 
-    @Mapping(target = "userId", source = "user.id")
-    @Mapping(target = "items", source = "items")
-    @Mapping(target = "totalItems", expression = "java(cart.getTotalItems())")
-    @Mapping(target = "subtotal", expression = "java(cart.getTotalPrice())")
-    @Mapping(target = "discount", expression = "java(java.math.BigDecimal.ZERO)")
-    @Mapping(target = "totalPrice", expression = "java(cart.getTotalPrice())")
-    public abstract CartDto toDto(Cart cart);
-
-    @Mapping(target = "variantId", source = "variant.id")
-    @Mapping(target = "variantSku", source = "variant.sku")
-    @Mapping(target = "variantName", source = "variant.name")
-    @Mapping(target = "productName", source = "variant.product.name")
-    @Mapping(target = "productId", source = "variant.product.id")
-    @Mapping(target = "productSlug", source = "variant.product.slug")
-    @Mapping(target = "primaryImage", expression = "java(getPrimaryImageUrl(cartItem))")
-    @Mapping(target = "subtotal", expression = "java(cartItem.getSubtotal())")
-    @Mapping(target = "availableStock", expression = "java(getAvailableStock(cartItem))")
-    @Mapping(target = "isAvailable", expression = "java(isItemAvailable(cartItem))")
-    public abstract CartItemDto toItemDto(CartItem cartItem);
+    public CartDto toDto(CartSnapshot cart, Map<UUID, StockView> stock) {
+        BigDecimal subtotal = cart.subtotal();
+        return CartDto.builder()
+                .id(cart.cartId())
+                .userId(cart.userId())
+                .items(toItemDtoList(cart.lines(), stock))
+                .totalItems(cart.totalQuantity())
+                .subtotal(subtotal)
+                .discount(BigDecimal.ZERO)
+                .totalPrice(subtotal)
+                .updatedAt(cart.updatedAt())
+                .build();
+    }
 
-    public abstract List<CartItemDto> toItemDtoList(List<CartItem> items);
+    public List<CartItemDto> toItemDtoList(List<CartLine> lines, Map<UUID, StockView> stock) {
+        return lines.stream()
+                .map(line -> toItemDto(line, stock.get(line.variantId())))
+                .toList();
+    }
 
-    // Helper methods
-    protected String getPrimaryImageUrl(CartItem cartItem) {
-        if (cartItem.getVariant() == null || cartItem.getVariant().getImages() == null) {
-            return null;
-        }
-        return cartItem.getVariant().getImages().stream()
-                .filter(img -> img.getIsPrimary() != null && img.getIsPrimary())
-                .findFirst()
-                .map(img -> img.getImageUrl())
-                .orElseGet(() -> cartItem.getVariant().getImages().stream()
-                        .findFirst()
-                        .map(img -> img.getImageUrl())
-                        .orElse(null));
+    public CartItemDto toItemDto(CartLine line, StockView stock) {
+        return CartItemDto.builder()
+                .id(line.itemId())
+                .variantId(line.variantId())
+                .variantSku(line.variantSku())
+                .variantName(line.variantName())
+                .productName(line.productName())
+                .productId(line.productId())
+                .productSlug(line.productSlug())
+                .primaryImage(line.primaryImage())
+                .priceAtAdd(line.priceAtAdd())
+                .quantity(line.quantity())
+                .subtotal(line.subtotal())
+                .availableStock(getAvailableStock(stock))
+                .isAvailable(isItemAvailable(line, stock))
+                .reservationExpiresAt(line.reservationExpiresAt())
+                .build();
     }
 
-    protected Integer getAvailableStock(CartItem cartItem) {
-        if (cartItem.getVariant() == null) {
+    // Helper methods
+    protected Integer getAvailableStock(StockView stock) {
+        if (stock == null) {
             return 0;
         }
-        int stock = cartItem.getVariant().getStock() != null ? cartItem.getVariant().getStock() : 0;
-        int reserved = cartItem.getVariant().getReservedStock() != null ? cartItem.getVariant().getReservedStock() : 0;
-        return Math.max(0, stock - reserved);
+        int onHand = stock.getStock() != null ? stock.getStock() : 0;
+        int reserved = stock.getReservedStock() != null ? stock.getReservedStock() : 0;
+        return Math.max(0, onHand - reserved);
     }
 
-    protected Boolean isItemAvailable(CartItem cartItem) {
-        if (cartItem.getVariant() == null || cartItem.getVariant().getProduct() == null) {
+    protected Boolean isItemAvailable(CartLine line, StockView stock) {
+        if (stock == null) {
             return false;
         }
-        boolean variantActive = cartItem.getVariant().getIsActive() != null && cartItem.getVariant().getIsActive();
-        boolean productActive = cartItem.getVariant().getProduct().getIsActive() != null && cartItem.getVariant().getProduct().getIsActive();
-        boolean hasStock = getAvailableStock(cartItem) >= cartItem.getQuantity();
+        boolean variantActive = Boolean.TRUE.equals(stock.getVariantActive());
+        boolean productActive = Boolean.TRUE.equals(stock.getProductActive());
+        // A live reservation already holds the stock; otherwise it has to be free right now
+        boolean hasStock = line.hasLiveReservation() || getAvailableStock(stock) >= line.quantity();
 
         return variantActive && productActive && hasStock;
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,15 @@
 package dev.CaoNguyen_1883.ecommerce.cart.repository;
 
 import dev.CaoNguyen_1883.ecommerce.cart.entity.CartItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,4 +42,24 @@ public interface CartItemRepository extends JpaRepository<CartItem, UUID> {
     // Count items in cart
     @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.isActive = true")
     long countByCartId(@Param("cartId") UUID cartId);
-}
\ No newline at end of file
+
+    // Total quantity of a user's cart, single column and no fetch join (header badge fallback)
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci " +
+            "WHERE ci.cart.user.id = :userId AND ci.isActive = true")
+    long sumQuantityByUserId(@Param("userId") UUID userId);
+
+    // ===== RESERVATION EXPIRY =====
+
+    // (item id, user id) of items whose reservation deadline passed, oldest first
+    @Query("SELECT ci.id, c.user.id FROM CartItem ci " +
+            "JOIN ci.cart c " +
+            "WHERE ci.reservationExpiresAt <= :now " +
+            "ORDER BY ci.reservationExpiresAt")
+    List<Object[]> findExpiredReservations(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // (item id, user id, reservationExpiresAt) of every live reservation, used to rebuild the timing wheel
+    @Query("SELECT ci.id, c.user.id, ci.reservationExpiresAt FROM CartItem ci " +
+            "JOIN ci.cart c " +
+            "WHERE ci.reservationExpiresAt IS NOT NULL")
+    List<Object[]> findLiveReservations();
+}
@@ -0,0 +1,230 @@
+package dev.CaoNguyen_1883.ecommerce.cart.service;
+
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartLine;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartState;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartStore;
+import dev.CaoNguyen_1883.ecommerce.cart.component.ReservationTimingWheel;
+import dev.CaoNguyen_1883.ecommerce.cart.repository.CartItemRepository;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.product.service.IStockReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-to-live for cart stock reservations
+ *
+ * Every cart line with a live reservation carries reservationExpiresAt and is tracked
+ * in an in-memory timing wheel. Expired lines keep their place in the cart, but their
+ * reserved stock is released; the cart re-reserves on the next extend, sync or checkout.
+ * Releases go through the CartStore lock of the owning cart, so a line extended or removed
+ * meanwhile is left alone. A periodic DB sweep catches lines scheduled by other instances
+ * or missed by the wheel.
+ */
+@Service
+@Slf4j
+public class CartReservationService {
+
+    private final CartItemRepository cartItemRepository;
+    private final ProductVariantRepository variantRepository;
+    private final IStockReservationService stockReservationService;
+    private final CartStore cartStore;
+
+    private final Duration ttl;
+    private final int batchSize;
+    private final ReservationTimingWheel wheel;
+    private final Map<UUID, UUID> owners = new ConcurrentHashMap<>();  // item id -> user id of tracked lines
+
+    private final AtomicLong reservedStock = new AtomicLong();
+    private final Counter expiredCounter;
+
+    public CartReservationService(
+            CartItemRepository cartItemRepository,
+            ProductVariantRepository variantRepository,
+            IStockReservationService stockReservationService,
+            CartStore cartStore,
+            MeterRegistry meterRegistry,
+            @Value("${app.cart.reservation.ttl-minutes:30}") long ttlMinutes,
+            @Value("${app.cart.reservation.tick-millis:1000}") long tickMillis,
+            @Value("${app.cart.reservation.wheel-size:64}") int wheelSize,
+            @Value("${app.cart.reservation.wheel-levels:3}") int wheelLevels,
+            @Value("${app.cart.reservation.batch-size:200}") int batchSize) {
+        this.cartItemRepository = cartItemRepository;
+        this.variantRepository = variantRepository;
+        this.stockReservationService = stockReservationService;
+        this.cartStore = cartStore;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.batchSize = batchSize;
+        this.wheel = new ReservationTimingWheel(tickMillis, wheelSize, wheelLevels, System.currentTimeMillis());
+
+        Gauge.builder("inventory.stock.reserved", reservedStock, AtomicLong::get)
+                .description("Units of stock held by cart reservations")
+                .register(meterRegistry);
+        Gauge.builder("cart.reservations.tracked", wheel, ReservationTimingWheel::size)
+                .description("Cart lines with a pending reservation deadline on this instance")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("cart.reservations.expired")
+                .description("Cart item reservations released after their TTL")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deadline for a reservation made or extended now
+     */
+    public LocalDateTime newExpiry() {
+        return LocalDateTime.now().plus(ttl);
+    }
+
+    /**
+     * Schedule release of the line's reservation at its expiry
+     * Lines without a live reservation are ignored
+     */
+    public void track(UUID userId, CartLine line) {
+        if (line.hasLiveReservation()) {
+            owners.put(line.itemId(), userId);
+            wheel.schedule(line.itemId(), toMillis(line.reservationExpiresAt()));
+        }
+    }
+
+    /**
+     * Stop tracking a line (removed, checked out)
+     */
+    public void untrack(UUID itemId) {
+        wheel.cancel(itemId);
+        owners.remove(itemId);
+    }
+
+    /**
+     * Release reservations whose deadline passed on the wheel
+     */
+    @Scheduled(fixedDelayString = "${app.cart.reservation.tick-millis:1000}")
+    public void tick() {
+        List<UUID> expired = wheel.advance(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, List<UUID>> byUser = new HashMap<>();
+        for (UUID itemId : expired) {
+            UUID userId = owners.remove(itemId);
+            if (userId != null) {
+                byUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(itemId);
+            }
+        }
+        releaseByUser(byUser);
+    }
+
+    /**
+     * Fallback sweep over the DB and refresh of the reserved stock gauge
+     */
+    @Scheduled(fixedDelayString = "${app.cart.reservation.sweep-millis:60000}")
+    public void sweep() {
+        int released = 0;
+        // Released lines reach MySQL only with the next write-behind flush, so page forward instead of re-reading page 0
+        for (int page = 0; page < 100; page++) {
+            List<Object[]> rows = cartItemRepository.findExpiredReservations(
+                    LocalDateTime.now(), PageRequest.of(page, batchSize));
+            if (rows.isEmpty()) {
+                break;
+            }
+            Map<UUID, List<UUID>> byUser = new HashMap<>();
+            for (Object[] row : rows) {
+                byUser.computeIfAbsent((UUID) row[1], k -> new ArrayList<>()).add((UUID) row[0]);
+            }
+            released += releaseByUser(byUser);
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        if (released > 0) {
+            log.info("Reservation sweep released {} expired cart items", released);
+        }
+
+        try {
+            reservedStock.set(variantRepository.sumReservedStock());
+        } catch (Exception e) {
+            log.warn("Could not refresh reserved stock gauge: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-populate the wheel from live reservations after a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Object[]> live = cartItemRepository.findLiveReservations();
+            for (Object[] row : live) {
+                owners.put((UUID) row[0], (UUID) row[1]);
+                wheel.schedule((UUID) row[0], toMillis((LocalDateTime) row[2]));
+            }
+            log.info("Rebuilt reservation timing wheel with {} items", live.size());
+        } catch (Exception e) {
+            // The periodic sweep still releases everything that expires
+            log.warn("Failed to rebuild reservation timing wheel: {}", e.getMessage());
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private int releaseByUser(Map<UUID, List<UUID>> itemIdsByUser) {
+        int released = 0;
+        for (Map.Entry<UUID, List<UUID>> entry : itemIdsByUser.entrySet()) {
+            try {
+                released += cartStore.mutate(entry.getKey(), state -> releaseExpired(state, entry.getValue()));
+            } catch (Exception e) {
+                log.warn("Failed to release expired reservations of user {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Release the stock of the given lines that are still expired (one UPDATE for all variants)
+     * and mark them unreserved; runs under the cart's store lock
+     *
+     * @return Released line count
+     */
+    private int releaseExpired(CartState state, List<UUID> itemIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CartLine> expired = itemIds.stream()
+                .map(state::findItem)
+                .flatMap(Optional::stream)
+                .filter(line -> line.hasLiveReservation() && !line.reservationExpiresAt().isAfter(now))
+                .toList();
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, Integer> quantityByVariant = new HashMap<>();
+        for (CartLine line : expired) {
+            quantityByVariant.merge(line.variantId(), line.quantity(), Integer::sum);
+        }
+        stockReservationService.releaseAll(quantityByVariant);
+        expired.forEach(line -> state.put(line.withReservationExpiresAt(null)));
+
+        expiredCounter.increment(expired.size());
+        log.debug("Released expired reservations. User: {}, Items: {}, Variants: {}",
+                state.getUserId(), expired.size(), quantityByVariant.size());
+
+        return expired.size();
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
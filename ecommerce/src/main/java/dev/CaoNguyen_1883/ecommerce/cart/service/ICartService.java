@@ -1,58 +1,69 @@
 package dev.CaoNguyen_1883.ecommerce.cart.service;
 
 import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.BatchAddToCartRequest;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.CartDto;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.UpdateCartItemRequest;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.UUID;
 
+/**
+ * Cart operations, served from the CartStore
+ * Not transactional: every stock reservation commits on its own before the cart changes
+ */
 public interface ICartService {
 
     /**
      * Get user's cart. Creates a new cart if doesn't exist.
      */
-    @Cacheable(value = "cart", key = "#userId")
     CartDto getCart(UUID userId);
 
     /**
      * Add item to cart. If item already exists, increase quantity.
      */
-    @Transactional
-    @CacheEvict(value = "cart", key = "#userId")
     CartDto addToCart(UUID userId, AddToCartRequest request);
 
+    /**
+     * Add several items at once (bundles, re-order)
+     * All variants are validated and reserved together; if any fails, the cart is left unchanged
+     */
+    CartDto addItemsToCart(UUID userId, BatchAddToCartRequest request);
+
     /**
      * Update cart item quantity
      */
-    @Transactional
-    @CacheEvict(value = "cart", key = "#userId")
     CartDto updateCartItem(UUID userId, UUID cartItemId, UpdateCartItemRequest request);
 
     /**
      * Remove item from cart
      */
-    @Transactional
-    @CacheEvict(value = "cart", key = "#userId")
     CartDto removeCartItem(UUID userId, UUID cartItemId);
 
     /**
      * Clear all items from cart
      */
-    @Transactional
-    @CacheEvict(value = "cart", key = "#userId")
     void clearCart(UUID userId);
 
+    /**
+     * Remove the checked out items
+     * Reserved stock was already committed by the order, so nothing is released;
+     * items added while the order was being placed stay in the cart
+     */
+    void clearCartAfterCheckout(UUID userId, Collection<UUID> cartItemIds);
+
     /**
      * Sync cart items with current product data
      * Updates prices and removes unavailable items
      */
-    @Transactional
-    @CacheEvict(value = "cart", key = "#userId")
     CartDto syncCart(UUID userId);
 
+    /**
+     * Extend the stock reservations of all cart items
+     * Items whose reservation already expired are re-reserved if stock is still free
+     */
+    CartDto extendReservations(UUID userId);
+
     /**
      * Get total number of items in cart
      */
@@ -0,0 +1,42 @@
+package dev.CaoNguyen_1883.ecommerce.cart.service;
+
+import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.CartDto;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.UpdateCartItemRequest;
+
+import java.util.UUID;
+
+/**
+ * Carts of anonymous visitors
+ * A guest cart is identified by a signed token handed out with the first added item;
+ * it never creates rows in carts/cart_items and is merged into the user's cart at login
+ */
+public interface IGuestCartService {
+
+    /**
+     * Get a guest cart (empty if the token is missing or the cart expired)
+     */
+    CartDto getCart(String guestToken);
+
+    /**
+     * Add item to a guest cart. Starts a new guest cart if no token is given.
+     * The returned cart carries the token to send with later requests.
+     */
+    CartDto addToCart(String guestToken, AddToCartRequest request);
+
+    /**
+     * Update guest cart item quantity
+     */
+    CartDto updateCartItem(String guestToken, UUID cartItemId, UpdateCartItemRequest request);
+
+    /**
+     * Remove item from a guest cart
+     */
+    CartDto removeCartItem(String guestToken, UUID cartItemId);
+
+    /**
+     * Move all guest items into the user's cart in one batch and delete the guest cart
+     * Reservations held by the guest carry over; invalid or expired tokens are ignored
+     */
+    void mergeIntoUserCart(String guestToken, UUID userId);
+}
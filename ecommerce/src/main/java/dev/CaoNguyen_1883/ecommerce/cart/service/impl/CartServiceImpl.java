@@ -1,42 +1,42 @@
 package dev.CaoNguyen_1883.ecommerce.cart.service.impl;
 
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartLine;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartSnapshot;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartState;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartStore;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.BatchAddToCartRequest;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.CartDto;
 import dev.CaoNguyen_1883.ecommerce.cart.dto.UpdateCartItemRequest;
-import dev.CaoNguyen_1883.ecommerce.cart.entity.Cart;
-import dev.CaoNguyen_1883.ecommerce.cart.entity.CartItem;
 import dev.CaoNguyen_1883.ecommerce.cart.mapper.CartMapper;
-import dev.CaoNguyen_1883.ecommerce.cart.repository.CartItemRepository;
-import dev.CaoNguyen_1883.ecommerce.cart.repository.CartRepository;
+import dev.CaoNguyen_1883.ecommerce.cart.service.CartReservationService;
 import dev.CaoNguyen_1883.ecommerce.cart.service.ICartService;
 import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
-import dev.CaoNguyen_1883.ecommerce.common.exception.ForbiddenException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.OutOfStockException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
 import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
 import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
-import dev.CaoNguyen_1883.ecommerce.user.entity.User;
-import dev.CaoNguyen_1883.ecommerce.user.repository.UserRepository;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository.StockView;
+import dev.CaoNguyen_1883.ecommerce.product.service.IStockReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional(readOnly = true)
 public class CartServiceImpl implements ICartService {
 
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final UserRepository userRepository;
+    private final CartStore cartStore;
     private final ProductVariantRepository variantRepository;
+    private final IStockReservationService stockReservationService;
+    private final CartReservationService reservationService;
     private final CartMapper cartMapper;
 
     @Override
@@ -44,282 +44,389 @@ public class CartServiceImpl implements ICartService {
         log.debug("Fetching cart for user: {}", userId);
 
         // Get or create cart
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseGet(() -> createCartForUser(userId));
-
-        return cartMapper.toDto(cart);
+        return toDto(cartStore.getOrCreate(userId));
     }
 
     @Override
-    @Transactional
     public CartDto addToCart(UUID userId, AddToCartRequest request) {
         log.debug("Adding item to cart for user: {}, variantId: {}, quantity: {}",
                 userId, request.getVariantId(), request.getQuantity());
 
-        // Get or create cart
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseGet(() -> createCartForUser(userId));
-
         // Get variant and validate
-        ProductVariant variant = variantRepository.findByIdWithProduct(request.getVariantId())
+        ProductVariant variant = variantRepository.findByIdWithProductAndImages(request.getVariantId())
                 .orElseThrow(() -> new ResourceNotFoundException("Product variant", "id", request.getVariantId()));
 
         // Validate variant is active and product is approved
         validateVariantAvailable(variant);
 
-        // Check if item already exists in cart
-        CartItem existingItem = cartItemRepository.findByCartIdAndVariantId(cart.getId(), variant.getId())
-                .orElse(null);
+        CartSnapshot cart = cartStore.mutate(userId, state -> {
+            // Check if item already exists in cart
+            CartLine existing = state.findByVariant(variant.getId()).orElse(null);
+            CartLine line;
 
-        if (existingItem != null) {
-            // Update existing item quantity
-            int newQuantity = existingItem.getQuantity() + request.getQuantity();
+            if (existing != null) {
+                // Update existing item quantity
+                int newQuantity = existing.quantity() + request.getQuantity();
 
-            // Check stock availability
-            if (!variant.canReserve(request.getQuantity())) {
-                throw new OutOfStockException("Insufficient stock for variant: " + variant.getName());
-            }
+                // Reserve only the added quantity if the existing one is still held
+                reserveOrThrow(variant, existing.hasLiveReservation() ? request.getQuantity() : newQuantity);
 
-            // Release old reservation and reserve new quantity
-            variant.releaseReservedStock(existingItem.getQuantity());
-            variant.reserveStock(newQuantity);
+                line = existing.withQuantity(newQuantity)
+                        .withReservationExpiresAt(reservationService.newExpiry());
 
-            existingItem.setQuantity(newQuantity);
-            cartItemRepository.save(existingItem);
+                log.info("Updated cart item quantity. User: {}, Item: {}, New quantity: {}",
+                        userId, line.itemId(), newQuantity);
+            } else {
+                // Reserve stock
+                reserveOrThrow(variant, request.getQuantity());
 
-            log.info("Updated cart item quantity. User: {}, Item: {}, New quantity: {}",
-                    userId, existingItem.getId(), newQuantity);
-        } else {
-            // Add new item to cart
+                // Create new cart line
+                line = CartLine.of(UUID.randomUUID(), variant, currentPrice(variant), request.getQuantity(),
+                        reservationService.newExpiry());
 
-            // Check stock availability
-            if (!variant.canReserve(request.getQuantity())) {
-                throw new OutOfStockException("Insufficient stock for variant: " + variant.getName());
+                log.info("Added new item to cart. User: {}, Variant: {}, Quantity: {}",
+                        userId, variant.getId(), request.getQuantity());
             }
 
-            // Reserve stock
-            variant.reserveStock(request.getQuantity());
+            state.put(line);
+            reservationService.track(userId, line);
+            return state.snapshot();
+        });
+
+        return toDto(cart);
+    }
 
-            // Create new cart item
-            CartItem cartItem = CartItem.builder()
-                    .cart(cart)
-                    .variant(variant)
-                    .quantity(request.getQuantity())
-                    .priceAtAdd(variant.getPrice() != null ? variant.getPrice() : variant.getProduct().getBasePrice())
-                    .build();
+    @Override
+    public CartDto addItemsToCart(UUID userId, BatchAddToCartRequest request) {
+        // Same variant listed twice counts as one line
+        Map<UUID, Integer> requested = new LinkedHashMap<>();
+        for (AddToCartRequest item : request.getItems()) {
+            requested.merge(item.getVariantId(), item.getQuantity(), Integer::sum);
+        }
 
-            cart.addItem(cartItem);
-//            cartItemRepository.save(cartItem);
+        log.debug("Adding {} variants to cart for user: {}", requested.size(), userId);
 
-            log.info("Added new item to cart. User: {}, Variant: {}, Quantity: {}",
-                    userId, variant.getId(), request.getQuantity());
+        // Load and validate all variants with one query
+        Map<UUID, ProductVariant> variants = variantRepository.findAllByIdWithProductAndImages(requested.keySet())
+                .stream()
+                .collect(Collectors.toMap(ProductVariant::getId, Function.identity()));
+        for (UUID variantId : requested.keySet()) {
+            ProductVariant variant = variants.get(variantId);
+            if (variant == null) {
+                throw new ResourceNotFoundException("Product variant", "id", variantId);
+            }
+            validateVariantAvailable(variant);
         }
 
-        // Save variant with updated reserved stock
-        variantRepository.save(variant);
+        CartSnapshot cart = cartStore.mutate(userId, state -> {
+            LocalDateTime expiresAt = reservationService.newExpiry();
+            Map<UUID, Integer> toReserve = new HashMap<>();
+            List<CartLine> lines = new ArrayList<>(requested.size());
 
-        // Save cart
-        cart = cartRepository.save(cart);
+            requested.forEach((variantId, quantity) -> {
+                ProductVariant variant = variants.get(variantId);
+                CartLine existing = state.findByVariant(variantId).orElse(null);
 
-        return cartMapper.toDto(cart);
-    }
+                if (existing != null) {
+                    int newQuantity = existing.quantity() + quantity;
+                    // Reserve only the added quantity if the existing one is still held
+                    toReserve.put(variantId, existing.hasLiveReservation() ? quantity : newQuantity);
+                    lines.add(existing.withQuantity(newQuantity).withReservationExpiresAt(expiresAt));
+                } else {
+                    toReserve.put(variantId, quantity);
+                    lines.add(CartLine.of(UUID.randomUUID(), variant, currentPrice(variant), quantity, expiresAt));
+                }
+            });
 
-    @Override
-    @Transactional
-    public CartDto updateCartItem(UUID userId, UUID cartItemId, UpdateCartItemRequest request) {
-        log.debug("Updating cart item: {} for user: {}, new quantity: {}",
-                cartItemId, userId, request.getQuantity());
+            // All-or-nothing: throws before the cart is touched
+            stockReservationService.reserveAll(toReserve);
 
-        // Get cart
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user", "userId", userId));
+            for (CartLine line : lines) {
+                state.put(line);
+                reservationService.track(userId, line);
+            }
 
-        // Get cart item
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", cartItemId));
+            log.info("Added items to cart. User: {}, Variants: {}", userId, lines.size());
 
-        // Verify cart item belongs to user's cart
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new ForbiddenException("Cart item does not belong to user's cart");
-        }
+            return state.snapshot();
+        });
 
-        // Get variant and check availability
-        ProductVariant variant = variantRepository.findById(cartItem.getVariant().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product variant", "id", cartItem.getVariant().getId()));
+        return toDto(cart);
+    }
 
-        int oldQuantity = cartItem.getQuantity();
-        int quantityDiff = request.getQuantity() - oldQuantity;
+    @Override
+    public CartDto updateCartItem(UUID userId, UUID cartItemId, UpdateCartItemRequest request) {
+        log.debug("Updating cart item: {} for user: {}, new quantity: {}",
+                cartItemId, userId, request.getQuantity());
 
-        if (quantityDiff > 0) {
-            // Increasing quantity - check if we can reserve more
-            if (!variant.canReserve(quantityDiff)) {
-                throw new OutOfStockException("Insufficient stock for variant: " + variant.getName());
+        CartSnapshot cart = cartStore.mutate(userId, state -> {
+            // Only lines of the user's own cart can be found
+            CartLine line = findLine(state, cartItemId);
+
+            int oldQuantity = line.quantity();
+            int quantityDiff = request.getQuantity() - oldQuantity;
+
+            if (!line.hasLiveReservation()) {
+                // Reservation expired - reserve the full new quantity again
+                reserveOrThrow(line, request.getQuantity());
+            } else if (quantityDiff > 0) {
+                // Increasing quantity - reserve the difference
+                reserveOrThrow(line, quantityDiff);
+            } else if (quantityDiff < 0) {
+                // Decreasing quantity - release reserved stock
+                stockReservationService.release(line.variantId(), Math.abs(quantityDiff));
             }
-            variant.reserveStock(quantityDiff);
-        } else if (quantityDiff < 0) {
-            // Decreasing quantity - release reserved stock
-            variant.releaseReservedStock(Math.abs(quantityDiff));
-        }
 
-        // Update cart item
-        cartItem.setQuantity(request.getQuantity());
-        cartItemRepository.save(cartItem);
-        variantRepository.save(variant);
+            CartLine updated = line.withQuantity(request.getQuantity())
+                    .withReservationExpiresAt(reservationService.newExpiry());
+            state.put(updated);
+            reservationService.track(userId, updated);
 
-        log.info("Updated cart item. User: {}, Item: {}, Old quantity: {}, New quantity: {}",
-                userId, cartItemId, oldQuantity, request.getQuantity());
+            log.info("Updated cart item. User: {}, Item: {}, Old quantity: {}, New quantity: {}",
+                    userId, cartItemId, oldQuantity, request.getQuantity());
 
-        // Reload cart to get updated data
-        cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "userId", userId));
+            return state.snapshot();
+        });
 
-        return cartMapper.toDto(cart);
+        return toDto(cart);
     }
 
     @Override
-    @Transactional
     public CartDto removeCartItem(UUID userId, UUID cartItemId) {
         log.debug("Removing cart item: {} for user: {}", cartItemId, userId);
 
-        // Get cart
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user", "userId", userId));
-
-        // Get cart item
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", cartItemId));
+        CartSnapshot cart = cartStore.mutate(userId, state -> {
+            CartLine line = findLine(state, cartItemId);
 
-        // Verify cart item belongs to user's cart
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new ForbiddenException("Cart item does not belong to user's cart");
-        }
+            // Release reserved stock
+            releaseReservation(line);
+            state.remove(cartItemId);
 
-        // Release reserved stock
-        ProductVariant variant = variantRepository.findById(cartItem.getVariant().getId())
-                .orElse(null);
+            log.info("Removed cart item. User: {}, Item: {}", userId, cartItemId);
 
-        if (variant != null) {
-            variant.releaseReservedStock(cartItem.getQuantity());
-            variantRepository.save(variant);
-        }
+            return state.snapshot();
+        });
 
-        // Remove item from cart
-        cart.removeItem(cartItem);
-        cartItem.softDelete();
-        cartItemRepository.save(cartItem);
-
-        log.info("Removed cart item. User: {}, Item: {}", userId, cartItemId);
-
-        // Reload cart to get updated data
-        cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "userId", userId));
-
-        return cartMapper.toDto(cart);
+        return toDto(cart);
     }
 
     @Override
-    @Transactional
     public void clearCart(UUID userId) {
         log.debug("Clearing cart for user: {}", userId);
 
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user", "userId", userId));
+        cartStore.mutate(userId, state -> {
+            // Release all reserved stock in one statement
+            Map<UUID, Integer> releases = new HashMap<>();
+            state.lines().forEach(line -> collectRelease(releases, line));
+            stockReservationService.releaseAll(releases);
 
-        // Release all reserved stock
-        for (CartItem item : cart.getItems()) {
-            ProductVariant variant = variantRepository.findById(item.getVariant().getId())
-                    .orElse(null);
+            state.clear();
+            return null;
+        });
 
-            if (variant != null) {
-                variant.releaseReservedStock(item.getQuantity());
-                variantRepository.save(variant);
-            }
-        }
+        log.info("Cleared cart for user: {}", userId);
+    }
+
+    @Override
+    public void clearCartAfterCheckout(UUID userId, Collection<UUID> cartItemIds) {
+        log.debug("Clearing checked out cart for user: {}", userId);
 
-        // Clear all items
-        cart.clearItems();
-        cartItemRepository.softDeleteAllByCartId(cart.getId());
-        cartRepository.save(cart);
+        cartStore.mutate(userId, state -> {
+            for (UUID itemId : cartItemIds) {
+                reservationService.untrack(itemId);
+                state.remove(itemId);
+            }
+            return null;
+        });
 
-        log.info("Cleared cart for user: {}", userId);
+        log.info("Cleared checked out cart for user: {}", userId);
     }
 
     @Override
-    @Transactional
     public CartDto syncCart(UUID userId) {
         log.debug("Syncing cart for user: {}", userId);
 
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user", "userId", userId));
+        CartSnapshot cart = cartStore.mutate(userId, state -> {
+            // One query for all variants, one statement for all releases
+            Map<UUID, ProductVariant> variants = loadVariants(state.lines());
+            Map<UUID, Integer> releases = new HashMap<>();
+            int removed = 0;
+
+            for (CartLine line : state.lines()) {
+                ProductVariant variant = variants.get(line.variantId());
+
+                if (variant == null || !variant.getIsActive() || !variant.getProduct().getIsActive()) {
+                    // Product or variant no longer available
+                    collectRelease(releases, line);
+                    state.remove(line.itemId());
+                    removed++;
+                    log.warn("Removing unavailable item from cart. User: {}, Item: {}", userId, line.itemId());
+                    continue;
+                }
 
-        List<CartItem> itemsToRemove = new ArrayList<>();
+                // Update price if changed
+                BigDecimal currentPrice = currentPrice(variant);
+                if (line.priceAtAdd().compareTo(currentPrice) != 0) {
+                    line = line.withPrice(currentPrice);
+                    log.info("Updated cart item price. User: {}, Item: {}, New price: {}",
+                            userId, line.itemId(), currentPrice);
+                }
 
-        for (CartItem item : cart.getItems()) {
-            ProductVariant variant = variantRepository.findById(item.getVariant().getId())
-                    .orElse(null);
+                if (!line.hasLiveReservation()) {
+                    // Reservation expired - hold the stock again, as much as is still free
+                    int quantity = Math.min(line.quantity(), variant.getAvailableStock());
+                    if (quantity > 0 && stockReservationService.tryReserve(variant.getId(), quantity)) {
+                        if (quantity < line.quantity()) {
+                            line = line.withQuantity(quantity);
+                            log.warn("Adjusted cart item quantity to available stock. User: {}, Item: {}, New quantity: {}",
+                                    userId, line.itemId(), quantity);
+                        }
+                    } else {
+                        reservationService.untrack(line.itemId());
+                        state.remove(line.itemId());
+                        removed++;
+                        log.warn("Removing out of stock item from cart. User: {}, Item: {}", userId, line.itemId());
+                        continue;
+                    }
+                } else {
+                    // The item's own quantity is already reserved, so only a stock drop below it matters
+                    int stock = variant.getStock();
+                    if (stock < line.quantity()) {
+                        if (stock > 0) {
+                            // Adjust quantity to available stock
+                            releases.merge(variant.getId(), line.quantity() - stock, Integer::sum);
+                            line = line.withQuantity(stock);
+                            log.warn("Adjusted cart item quantity to available stock. User: {}, Item: {}, New quantity: {}",
+                                    userId, line.itemId(), stock);
+                        } else {
+                            // No stock available - remove item
+                            collectRelease(releases, line);
+                            state.remove(line.itemId());
+                            removed++;
+                            log.warn("Removing out of stock item from cart. User: {}, Item: {}", userId, line.itemId());
+                            continue;
+                        }
+                    }
+                }
 
-            if (variant == null || !variant.getIsActive() || !variant.getProduct().getIsActive()) {
-                // Product or variant no longer available
-                itemsToRemove.add(item);
-                log.warn("Removing unavailable item from cart. User: {}, Item: {}", userId, item.getId());
-                continue;
+                // Syncing counts as activity - keep the reservation alive
+                line = line.withReservationExpiresAt(reservationService.newExpiry());
+                state.put(line);
+                reservationService.track(userId, line);
             }
 
-            // Update price if changed
-            BigDecimal currentPrice = variant.getPrice() != null ? variant.getPrice() : variant.getProduct().getBasePrice();
-            if (!item.getPriceAtAdd().equals(currentPrice)) {
-                item.setPriceAtAdd(currentPrice);
-                log.info("Updated cart item price. User: {}, Item: {}, New price: {}",
-                        userId, item.getId(), currentPrice);
-            }
+            stockReservationService.releaseAll(releases);
 
-            // Check if quantity exceeds available stock
-            if (!variant.canReserve(item.getQuantity())) {
-                int availableStock = variant.getAvailableStock();
-                if (availableStock > 0) {
-                    // Adjust quantity to available stock
-                    variant.releaseReservedStock(item.getQuantity());
-                    variant.reserveStock(availableStock);
-                    item.setQuantity(availableStock);
-                    log.warn("Adjusted cart item quantity to available stock. User: {}, Item: {}, New quantity: {}",
-                            userId, item.getId(), availableStock);
+            log.info("Synced cart for user: {}. Removed {} items", userId, removed);
+
+            return state.snapshot();
+        });
+
+        return toDto(cart);
+    }
+
+    @Override
+    public CartDto extendReservations(UUID userId) {
+        log.debug("Extending cart reservations for user: {}", userId);
+
+        LocalDateTime expiresAt = reservationService.newExpiry();
+
+        CartSnapshot cart = cartStore.mutate(userId, state -> {
+            int notReserved = 0;
+
+            for (CartLine line : state.lines()) {
+                // Expired items get their stock back only if it is still free
+                if (line.hasLiveReservation()
+                        || stockReservationService.tryReserve(line.variantId(), line.quantity())) {
+                    CartLine extended = line.withReservationExpiresAt(expiresAt);
+                    state.put(extended);
+                    reservationService.track(userId, extended);
                 } else {
-                    // No stock available - remove item
-                    itemsToRemove.add(item);
-                    variant.releaseReservedStock(item.getQuantity());
-                    log.warn("Removing out of stock item from cart. User: {}, Item: {}", userId, item.getId());
+                    notReserved++;
                 }
-                variantRepository.save(variant);
             }
-        }
 
-        // Remove unavailable items
-        for (CartItem item : itemsToRemove) {
-            cart.removeItem(item);
-            item.softDelete();
-            cartItemRepository.save(item);
-        }
+            log.info("Extended cart reservations. User: {}, Until: {}, Not reserved: {}",
+                    userId, expiresAt, notReserved);
+
+            return state.snapshot();
+        });
 
-        cart = cartRepository.save(cart);
+        return toDto(cart);
+    }
 
-        log.info("Synced cart for user: {}. Removed {} items", userId, itemsToRemove.size());
+    @Override
+    public int getCartItemCount(UUID userId) {
+        log.debug("Fetching cart item count for user: {}", userId);
 
-        return cartMapper.toDto(cart);
+        // Maintained counter - never loads the cart lines
+        return cartStore.itemCount(userId);
     }
 
     // ===== HELPER METHODS =====
 
-    private Cart createCartForUser(UUID userId) {
-        log.debug("Creating new cart for user: {}", userId);
+    private CartDto toDto(CartSnapshot cart) {
+        if (cart.isEmpty()) {
+            return cartMapper.toDto(cart, Map.of());
+        }
+
+        // Display data comes from the lines; only live stock is read from the database
+        Set<UUID> variantIds = cart.lines().stream()
+                .map(CartLine::variantId)
+                .collect(Collectors.toSet());
+        Map<UUID, StockView> stock = variantRepository.findStockViews(variantIds).stream()
+                .collect(Collectors.toMap(StockView::getId, Function.identity()));
+
+        return cartMapper.toDto(cart, stock);
+    }
+
+    private Map<UUID, ProductVariant> loadVariants(List<CartLine> lines) {
+        if (lines.isEmpty()) {
+            return Map.of();
+        }
+        Set<UUID> variantIds = lines.stream()
+                .map(CartLine::variantId)
+                .collect(Collectors.toSet());
+        return variantRepository.findAllByIdWithProduct(variantIds).stream()
+                .collect(Collectors.toMap(ProductVariant::getId, Function.identity()));
+    }
+
+    private CartLine findLine(CartState state, UUID cartItemId) {
+        return state.findItem(cartItemId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", cartItemId));
+    }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+    private void releaseReservation(CartLine line) {
+        if (line.hasLiveReservation()) {
+            stockReservationService.release(line.variantId(), line.quantity());
+        }
+        reservationService.untrack(line.itemId());
+    }
 
-        Cart cart = Cart.builder()
-                .user(user)
-                .build();
+    /**
+     * Stop tracking the line and add its live reservation to a bulk release
+     */
+    private void collectRelease(Map<UUID, Integer> releases, CartLine line) {
+        if (line.hasLiveReservation()) {
+            releases.merge(line.variantId(), line.quantity(), Integer::sum);
+        }
+        reservationService.untrack(line.itemId());
+    }
+
+    private BigDecimal currentPrice(ProductVariant variant) {
+        return variant.getPrice() != null ? variant.getPrice() : variant.getProduct().getBasePrice();
+    }
+
+    private void reserveOrThrow(ProductVariant variant, int quantity) {
+        if (!stockReservationService.tryReserve(variant.getId(), quantity)) {
+            throw new OutOfStockException("Insufficient stock for variant: " + variant.getName());
+        }
+    }
 
-        return cartRepository.save(cart);
+    private void reserveOrThrow(CartLine line, int quantity) {
+        if (!stockReservationService.tryReserve(line.variantId(), quantity)) {
+            throw new OutOfStockException("Insufficient stock for variant: " + line.variantName());
+        }
     }
 
     private void validateVariantAvailable(ProductVariant variant) {
@@ -335,21 +442,4 @@ public class CartServiceImpl implements ICartService {
             throw new BadRequestException("Product is not approved for sale");
         }
     }
-
-    @Override
-    public int getCartItemCount(UUID userId) {
-        log.debug("Fetching cart item count for user: {}", userId);
-
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElse(null);
-
-        if (cart == null || cart.getItems() == null || cart.getItems().isEmpty()) {
-            return 0;
-        }
-
-        // Sum of all quantities
-        return cart.getItems().stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-    }
-}
\ No newline at end of file
+}
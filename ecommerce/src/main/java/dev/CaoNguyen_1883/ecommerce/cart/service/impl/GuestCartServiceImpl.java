@@ -0,0 +1,377 @@
+package dev.CaoNguyen_1883.ecommerce.cart.service.impl;
+
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartLine;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartSnapshot;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartState;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartStore;
+import dev.CaoNguyen_1883.ecommerce.cart.component.GuestCartStore;
+import dev.CaoNguyen_1883.ecommerce.cart.component.GuestCartStore.HeldReservation;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.CartDto;
+import dev.CaoNguyen_1883.ecommerce.cart.dto.UpdateCartItemRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.mapper.CartMapper;
+import dev.CaoNguyen_1883.ecommerce.cart.service.CartReservationService;
+import dev.CaoNguyen_1883.ecommerce.cart.service.IGuestCartService;
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.OutOfStockException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductStatus;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository.StockView;
+import dev.CaoNguyen_1883.ecommerce.product.service.IStockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class GuestCartServiceImpl implements IGuestCartService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final GuestCartStore guestCartStore;
+    private final CartStore cartStore;
+    private final ProductVariantRepository variantRepository;
+    private final IStockReservationService stockReservationService;
+    private final CartReservationService reservationService;
+    private final CartMapper cartMapper;
+
+    private final SecretKeySpec tokenKey;
+    private final Duration reservationTtl;
+
+    public GuestCartServiceImpl(
+            GuestCartStore guestCartStore,
+            CartStore cartStore,
+            ProductVariantRepository variantRepository,
+            IStockReservationService stockReservationService,
+            CartReservationService reservationService,
+            CartMapper cartMapper,
+            @Value("${app.cart.guest.token-secret:${app.jwt.secret}}") String tokenSecret,
+            @Value("${app.cart.guest.reservation-minutes:15}") long reservationMinutes) {
+        this.guestCartStore = guestCartStore;
+        this.cartStore = cartStore;
+        this.variantRepository = variantRepository;
+        this.stockReservationService = stockReservationService;
+        this.reservationService = reservationService;
+        this.cartMapper = cartMapper;
+        this.tokenKey = new SecretKeySpec(tokenSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.reservationTtl = Duration.ofMinutes(reservationMinutes);
+    }
+
+    @Override
+    public CartDto getCart(String guestToken) {
+        if (guestToken == null || guestToken.isBlank()) {
+            return toDto(new CartSnapshot(null, null, LocalDateTime.now(), List.of()), null);
+        }
+        UUID guestId = resolveToken(guestToken);
+        return toDto(guestCartStore.snapshot(guestId), guestToken);
+    }
+
+    @Override
+    public CartDto addToCart(String guestToken, AddToCartRequest request) {
+        // First item starts a new guest cart
+        boolean newCart = guestToken == null || guestToken.isBlank();
+        UUID guestId = newCart ? UUID.randomUUID() : resolveToken(guestToken);
+        String token = newCart ? issueToken(guestId) : guestToken;
+
+        log.debug("Adding item to guest cart: {}, variantId: {}, quantity: {}",
+                guestId, request.getVariantId(), request.getQuantity());
+
+        ProductVariant variant = variantRepository.findByIdWithProductAndImages(request.getVariantId())
+                .orElseThrow(() -> new ResourceNotFoundException("Product variant", "id", request.getVariantId()));
+        validateVariantAvailable(variant);
+
+        CartSnapshot cart = guestCartStore.mutate(guestId, state -> {
+            CartLine existing = state.findByVariant(variant.getId()).orElse(null);
+            LocalDateTime expiresAt = newExpiry();
+
+            if (existing != null) {
+                int newQuantity = existing.quantity() + request.getQuantity();
+                reserveOrThrow(variant.getId(), variant.getName(),
+                        existing.hasLiveReservation() ? request.getQuantity() : newQuantity);
+                state.put(existing.withQuantity(newQuantity).withReservationExpiresAt(expiresAt));
+            } else {
+                reserveOrThrow(variant.getId(), variant.getName(), request.getQuantity());
+                state.put(CartLine.of(UUID.randomUUID(), variant, currentPrice(variant), request.getQuantity(),
+                        expiresAt));
+            }
+            return state.snapshot();
+        });
+
+        return toDto(cart, token);
+    }
+
+    @Override
+    public CartDto updateCartItem(String guestToken, UUID cartItemId, UpdateCartItemRequest request) {
+        UUID guestId = resolveToken(guestToken);
+
+        CartSnapshot cart = guestCartStore.mutate(guestId, state -> {
+            CartLine line = findLine(state, cartItemId);
+            int quantityDiff = request.getQuantity() - line.quantity();
+
+            if (!line.hasLiveReservation()) {
+                reserveOrThrow(line.variantId(), line.variantName(), request.getQuantity());
+            } else if (quantityDiff > 0) {
+                reserveOrThrow(line.variantId(), line.variantName(), quantityDiff);
+            } else if (quantityDiff < 0) {
+                stockReservationService.release(line.variantId(), -quantityDiff);
+            }
+
+            state.put(line.withQuantity(request.getQuantity()).withReservationExpiresAt(newExpiry()));
+            return state.snapshot();
+        });
+
+        return toDto(cart, guestToken);
+    }
+
+    @Override
+    public CartDto removeCartItem(String guestToken, UUID cartItemId) {
+        UUID guestId = resolveToken(guestToken);
+
+        CartSnapshot cart = guestCartStore.mutate(guestId, state -> {
+            CartLine line = findLine(state, cartItemId);
+            if (line.hasLiveReservation()) {
+                stockReservationService.release(line.variantId(), line.quantity());
+            }
+            state.remove(cartItemId);
+            return state.snapshot();
+        });
+
+        return toDto(cart, guestToken);
+    }
+
+    // Runs after the login transaction committed; suspend it so every reservation commits on its own
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void mergeIntoUserCart(String guestToken, UUID userId) {
+        if (guestToken == null || guestToken.isBlank()) {
+            return;
+        }
+        Optional<UUID> guestId = verifyToken(guestToken);
+        if (guestId.isEmpty()) {
+            log.warn("Ignoring invalid guest cart token at login of user: {}", userId);
+            return;
+        }
+
+        List<CartLine> guestLines = guestCartStore.take(guestId.get());
+        if (guestLines.isEmpty()) {
+            return;
+        }
+
+        try {
+            cartStore.mutate(userId, state -> mergeLines(state, userId, guestLines));
+        } catch (RuntimeException e) {
+            // The guest cart is gone - give its stock back rather than leaking the reservations
+            releaseLive(guestLines);
+            throw e;
+        }
+    }
+
+    /**
+     * Release guest reservations whose deadline passed (the lines stay in the guest cart)
+     */
+    @Scheduled(fixedDelayString = "${app.cart.guest.sweep-millis:5000}")
+    public void releaseExpiredReservations() {
+        Map<UUID, List<HeldReservation>> due = guestCartStore.dueReservations(LocalDateTime.now(), 500);
+        for (Map.Entry<UUID, List<HeldReservation>> entry : due.entrySet()) {
+            try {
+                guestCartStore.mutate(entry.getKey(), state -> releaseExpired(state, entry.getValue()));
+            } catch (Exception e) {
+                log.warn("Failed to release expired reservations of guest cart {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Fold the guest lines into the user's cart
+     * A merged line stays reserved only if its whole quantity can be held; otherwise it is kept
+     * unreserved like an expired line, and any partially held stock is released in one statement
+     */
+    private Void mergeLines(CartState state, UUID userId, List<CartLine> guestLines) {
+        LocalDateTime expiresAt = reservationService.newExpiry();
+        Map<UUID, Integer> releases = new HashMap<>();
+        int unreserved = 0;
+
+        for (CartLine guest : guestLines) {
+            CartLine existing = state.findByVariant(guest.variantId()).orElse(null);
+            int held = (guest.hasLiveReservation() ? guest.quantity() : 0)
+                    + (existing != null && existing.hasLiveReservation() ? existing.quantity() : 0);
+            int total = guest.quantity() + (existing != null ? existing.quantity() : 0);
+
+            // New lines keep the guest's item id and price
+            CartLine merged = existing != null ? existing.withQuantity(total) : guest;
+            int missing = total - held;
+
+            if (missing == 0 || stockReservationService.tryReserve(guest.variantId(), missing)) {
+                merged = merged.withReservationExpiresAt(expiresAt);
+                reservationService.track(userId, merged);
+            } else {
+                if (held > 0) {
+                    releases.merge(guest.variantId(), held, Integer::sum);
+                }
+                merged = merged.withReservationExpiresAt(null);
+                reservationService.untrack(merged.itemId());
+                unreserved++;
+            }
+            state.put(merged);
+        }
+        stockReservationService.releaseAll(releases);
+
+        log.info("Merged guest cart into user cart. User: {}, Lines: {}, Not reserved: {}",
+                userId, guestLines.size(), unreserved);
+        return null;
+    }
+
+    private Void releaseExpired(CartState state, List<HeldReservation> due) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, Integer> releases = new HashMap<>();
+        List<UUID> orphaned = new ArrayList<>();
+
+        for (HeldReservation held : due) {
+            CartLine line = state.findItem(held.itemId()).orElse(null);
+            if (line == null) {
+                // Cart expired or unreadable: release what the deadline recorded
+                if (held.variantId() != null) {
+                    releases.merge(held.variantId(), held.quantity(), Integer::sum);
+                } else {
+                    log.warn("Guest cart reservation {} has no recorded stock, dropping its deadline", held.itemId());
+                }
+                orphaned.add(held.itemId());
+            } else if (!line.hasLiveReservation() || !line.reservationExpiresAt().isAfter(now)) {
+                if (line.hasLiveReservation()) {
+                    releases.merge(line.variantId(), line.quantity(), Integer::sum);
+                }
+                state.put(line.withReservationExpiresAt(null));
+            }
+        }
+        stockReservationService.releaseAll(releases);
+        // Only once the stock is back, so a failed release is retried on the next sweep
+        orphaned.forEach(itemId -> guestCartStore.forgetDeadline(state.getUserId(), itemId));
+        return null;
+    }
+
+    private void releaseLive(List<CartLine> lines) {
+        Map<UUID, Integer> releases = new HashMap<>();
+        lines.stream()
+                .filter(CartLine::hasLiveReservation)
+                .forEach(line -> releases.merge(line.variantId(), line.quantity(), Integer::sum));
+        try {
+            stockReservationService.releaseAll(releases);
+        } catch (RuntimeException e) {
+            log.error("Failed to release reservations of a dropped guest cart: {}", e.getMessage());
+        }
+    }
+
+    private CartDto toDto(CartSnapshot cart, String guestToken) {
+        Map<UUID, StockView> stock = Map.of();
+        if (!cart.isEmpty()) {
+            Set<UUID> variantIds = cart.lines().stream()
+                    .map(CartLine::variantId)
+                    .collect(Collectors.toSet());
+            stock = variantRepository.findStockViews(variantIds).stream()
+                    .collect(Collectors.toMap(StockView::getId, Function.identity()));
+        }
+
+        CartDto dto = cartMapper.toDto(cart, stock);
+        dto.setUserId(null);
+        dto.setGuestCartToken(guestToken);
+        return dto;
+    }
+
+    private LocalDateTime newExpiry() {
+        return LocalDateTime.now().plus(reservationTtl);
+    }
+
+    private CartLine findLine(CartState state, UUID cartItemId) {
+        return state.findItem(cartItemId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", cartItemId));
+    }
+
+    private void reserveOrThrow(UUID variantId, String variantName, int quantity) {
+        if (!stockReservationService.tryReserve(variantId, quantity)) {
+            throw new OutOfStockException("Insufficient stock for variant: " + variantName);
+        }
+    }
+
+    private BigDecimal currentPrice(ProductVariant variant) {
+        return variant.getPrice() != null ? variant.getPrice() : variant.getProduct().getBasePrice();
+    }
+
+    private void validateVariantAvailable(ProductVariant variant) {
+        if (!variant.getIsActive()) {
+            throw new BadRequestException("Product variant is not available");
+        }
+
+        if (!variant.getProduct().getIsActive()) {
+            throw new BadRequestException("Product is not available");
+        }
+
+        if (!variant.getProduct().getStatus().equals(ProductStatus.APPROVED)) {
+            throw new BadRequestException("Product is not approved for sale");
+        }
+    }
+
+    // ===== GUEST TOKEN =====
+
+    /**
+     * Token format: {guestId}.{base64url HMAC-SHA256 of guestId}
+     */
+    private String issueToken(UUID guestId) {
+        return guestId + "." + signature(guestId.toString());
+    }
+
+    private UUID resolveToken(String guestToken) {
+        return verifyToken(guestToken)
+                .orElseThrow(() -> new BadRequestException("Invalid guest cart token"));
+    }
+
+    private Optional<UUID> verifyToken(String guestToken) {
+        if (guestToken == null) {
+            return Optional.empty();
+        }
+        int dot = guestToken.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        String id = guestToken.substring(0, dot);
+        byte[] expected = signature(id).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = guestToken.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private String signature(String guestId) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(tokenKey);
+            byte[] digest = mac.doFinal(guestId.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
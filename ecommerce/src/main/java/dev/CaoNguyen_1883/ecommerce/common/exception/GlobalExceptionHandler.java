@@ -286,6 +286,24 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    /**
+     * Handle TooManyRequestsException (429)
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse<Object>> handleTooManyRequests(
+            TooManyRequestsException ex,
+            HttpServletRequest request) {
+
+        log.warn("Too many requests: {} at {}", ex.getMessage(), request.getRequestURI());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error(
+                        ex.getMessage(),
+                        HttpStatus.TOO_MANY_REQUESTS,
+                        request.getRequestURI()
+                ));
+    }
+
     /**
      * Handle all other exceptions (500)
      */
@@ -0,0 +1,7 @@
+package dev.CaoNguyen_1883.ecommerce.common.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
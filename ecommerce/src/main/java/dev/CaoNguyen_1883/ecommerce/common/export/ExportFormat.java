@@ -0,0 +1,31 @@
+package dev.CaoNguyen_1883.ecommerce.common.export;
+
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * Output formats of the streaming export endpoints
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");   // One JSON object per line
+
+    private final String contentType;
+    private final String extension;
+
+    public static ExportFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported export format: " + value);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package dev.CaoNguyen_1883.ecommerce.common.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A validated export, run once the response stream is available
+ */
+@FunctionalInterface
+public interface ExportJob {
+
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,156 @@
+package dev.CaoNguyen_1883.ecommerce.common.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+
+/**
+ * Writes export rows to a stream as they come, one buffered line per row
+ *
+ * Values are rendered the same way in both formats: numbers stay numbers, timestamps become
+ * ISO-8601 strings, everything else its string form. CSV text cells that a spreadsheet would
+ * read as a formula get a leading apostrophe.
+ */
+public class ExportWriter implements Flushable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExportFormat format;
+    private final List<String> columns;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private long rows;
+
+    public ExportWriter(OutputStream out, ExportFormat format, List<String> columns, ObjectMapper objectMapper)
+            throws IOException {
+        this.format = format;
+        this.columns = List.copyOf(columns);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ExportFormat.NDJSON) {
+            this.json = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                    .setRootValueSeparator(null);   // rows are separated by our own newline only
+        } else {
+            this.json = null;
+            writeCsvLine(this.columns.toArray());
+        }
+    }
+
+    /**
+     * Write one row; values are in column order
+     */
+    public void writeRow(Object... values) throws IOException {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+        }
+        if (format == ExportFormat.NDJSON) {
+            writeJsonLine(values);
+        } else {
+            writeCsvLine(values);
+        }
+        rows++;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void writeJsonLine(Object[] values) throws IOException {
+        json.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            json.writeFieldName(columns.get(i));
+            Object value = normalize(values[i]);
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof BigDecimal decimal) {
+                json.writeNumber(decimal);
+            } else if (value instanceof Long number) {
+                json.writeNumber(number);
+            } else if (value instanceof Integer number) {
+                json.writeNumber(number);
+            } else if (value instanceof Number number) {
+                json.writeNumber(number.doubleValue());
+            } else if (value instanceof Boolean bool) {
+                json.writeBoolean(bool);
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.flush();   // into the buffered writer only, so the newline lands after the object
+        writer.write('\n');
+    }
+
+    private void writeCsvLine(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = normalize(values[i]);
+            if (value == null) {
+                continue;
+            }
+            String text;
+            if (value instanceof BigDecimal decimal) {
+                text = decimal.toPlainString();
+            } else if (value instanceof Number || value instanceof Boolean) {
+                text = value.toString();  // negative numbers stay numbers
+            } else {
+                text = neutralizeFormula(value.toString());
+            }
+            writer.write(escapeCsv(text));
+        }
+        writer.write("\r\n");
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof TemporalAccessor temporal) {
+            return temporal.toString();
+        }
+        return value;
+    }
+
+    // Text starting like a formula (=, +, -, @, tab, CR) is prefixed with ' so spreadsheets show it as text
+    private static String neutralizeFormula(String text) {
+        if (text.isEmpty()) {
+            return text;
+        }
+        char first = text.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+        return formula ? "'" + text : text;
+    }
+
+    // RFC 4180: quote fields with separators, quotes or line breaks; double embedded quotes
+    private static String escapeCsv(String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + text.replace("\"", "\"\"") + '"' : text;
+    }
+}
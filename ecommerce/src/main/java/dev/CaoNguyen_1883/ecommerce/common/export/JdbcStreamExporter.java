@@ -0,0 +1,106 @@
+package dev.CaoNguyen_1883.ecommerce.common.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.common.exception.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs export queries as forward-only JDBC cursors and writes each row as it is read
+ *
+ * The default fetch size (Integer.MIN_VALUE) makes MySQL Connector/J stream rows one by one
+ * instead of buffering the whole result, so memory stays flat whatever the row count.
+ * A positive fetch size only streams with useCursorFetch=true on the JDBC url.
+ * A running export holds a pool connection for its whole length, so at most max-concurrent run at once.
+ */
+@Component
+@Slf4j
+public class JdbcStreamExporter {
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore slots;
+
+    public JdbcStreamExporter(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${app.export.fetch-size:-2147483648}") int fetchSize,
+            @Value("${app.export.query-timeout-seconds:0}") int queryTimeoutSeconds,
+            @Value("${app.export.max-concurrent:2}") int maxConcurrent) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.streamingJdbcTemplate.setQueryTimeout(queryTimeoutSeconds);
+        this.objectMapper = objectMapper;
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Take an export slot for a job, given back when the job ends; call it last before handing
+     * the job to the response, so a job that is never run cannot keep its slot
+     *
+     * @throws TooManyRequestsException if max-concurrent exports are already running
+     */
+    public ExportJob reserve(ExportJob job) {
+        if (!slots.tryAcquire()) {
+            throw new TooManyRequestsException("Too many exports are running, please retry later");
+        }
+        return out -> {
+            try {
+                job.writeTo(out);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    /**
+     * Start an export: for CSV the header line is written right away
+     */
+    public ExportWriter open(OutputStream out, ExportFormat format, List<String> columns) throws IOException {
+        return new ExportWriter(out, format, columns, objectMapper);
+    }
+
+    /**
+     * Stream the rows of a query into the writer; the select list must follow the writer's columns
+     *
+     * @return Rows written by this query
+     */
+    public long stream(ExportWriter writer, String sql, Object... args) {
+        int width = writer.getColumns().size();
+        return stream(writer, (rs, rowNum) -> {
+            Object[] values = new Object[width];
+            for (int i = 0; i < width; i++) {
+                values[i] = rs.getObject(i + 1);
+            }
+            return values;
+        }, sql, args);
+    }
+
+    /**
+     * Stream the rows of a query into the writer, each row turned into column values by the mapper
+     *
+     * @return Rows written by this query
+     */
+    public long stream(ExportWriter writer, RowMapper<Object[]> mapper, String sql, Object... args) {
+        long before = writer.getRows();
+        streamingJdbcTemplate.query(sql, rs -> {
+            try {
+                writer.writeRow(mapper.mapRow(rs, (int) (writer.getRows() - before)));
+            } catch (IOException e) {
+                // Client went away: abort the query instead of reading the remaining rows
+                throw new UncheckedIOException(e);
+            }
+        }, args);
+        return writer.getRows() - before;
+    }
+}
@@ -0,0 +1,50 @@
+package dev.CaoNguyen_1883.ecommerce.common.outbox;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Side effect recorded in the transaction that caused it, delivered later by OutboxPoller
+ * Written and consumed with plain SQL; mapped here so the table is created with the schema
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_pending", columnList = "processed_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", length = 50, nullable = false)
+    private String eventType;
+
+    @Column(name = "aggregate_id", columnDefinition = "BINARY(16)")
+    private UUID aggregateId;
+
+    @Lob
+    @Column(name = "payload", columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Null while pending; also set when the event is parked after max-attempts failures
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -0,0 +1,17 @@
+package dev.CaoNguyen_1883.ecommerce.common.outbox;
+
+import java.util.List;
+
+/**
+ * Consumer of outbox events of one type (a type can have several handlers)
+ *
+ * Handlers get a whole batch at once and run inside the poller's transaction, so database work
+ * commits together with the events being marked processed. Anything outside the database
+ * (caches, Redis) can see a batch more than once and must be idempotent.
+ */
+public interface OutboxHandler {
+
+    String eventType();
+
+    void handle(List<OutboxMessage> messages);
+}
@@ -0,0 +1,10 @@
+package dev.CaoNguyen_1883.ecommerce.common.outbox;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Pending outbox event as handed to an OutboxHandler
+ */
+public record OutboxMessage(long id, String eventType, UUID aggregateId, String payload, LocalDateTime createdAt) {
+}
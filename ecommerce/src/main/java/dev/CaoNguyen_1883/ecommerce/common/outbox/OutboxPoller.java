@@ -0,0 +1,179 @@
+package dev.CaoNguyen_1883.ecommerce.common.outbox;
+
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox events to their handlers in batches
+ *
+ * A batch is claimed with FOR UPDATE SKIP LOCKED (instances share the work), handed to the handlers
+ * grouped by type (every handler of a type sees the batch) and marked processed, all in one transaction. If a batch fails its events are
+ * retried one by one so a single bad event cannot hold back the rest; an event that keeps failing
+ * is parked (processed_at set, last_error kept) after max-attempts.
+ */
+@Component
+@Slf4j
+public class OutboxPoller {
+
+    private static final String SELECT_BATCH_SQL = """
+            SELECT id, event_type, aggregate_id, payload, created_at
+            FROM outbox_events
+            WHERE processed_at IS NULL
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String SELECT_ONE_SQL = """
+            SELECT id, event_type, aggregate_id, payload, created_at
+            FROM outbox_events
+            WHERE id = ? AND processed_at IS NULL
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String MARK_PROCESSED_SQL =
+            "UPDATE outbox_events SET processed_at = :now, last_error = NULL WHERE id IN (:ids)";
+
+    // MySQL applies SET clauses left to right, so processed_at sees the incremented attempts
+    private static final String MARK_FAILED_SQL = """
+            UPDATE outbox_events
+            SET attempts = attempts + 1,
+                last_error = ?,
+                processed_at = IF(attempts >= ?, ?, NULL)
+            WHERE id = ?
+            """;
+
+    private static final String PURGE_SQL = """
+            DELETE FROM outbox_events
+            WHERE processed_at < ? AND last_error IS NULL
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, List<OutboxHandler>> handlers;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    public OutboxPoller(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            List<OutboxHandler> handlers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.handlers = handlers.stream()
+                .collect(Collectors.groupingBy(OutboxHandler::eventType));
+
+        log.info("Initialized outbox poller with handlers for {}", this.handlers.keySet());
+    }
+
+    /**
+     * Deliver pending events (default every 500ms)
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-millis:500}")
+    public void poll() {
+        // Bounded so a backlog cannot keep the scheduler thread forever
+        for (int round = 0; round < 50; round++) {
+            List<Long> claimed = new ArrayList<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<OutboxMessage> batch = jdbcTemplate.query(SELECT_BATCH_SQL, this::toMessage, batchSize);
+                    batch.forEach(message -> claimed.add(message.id()));
+                    deliver(batch);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Outbox batch of {} events failed, retrying one by one: {}", claimed.size(), e.getMessage());
+                claimed.forEach(this::deliverOne);
+            }
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop delivered events after the retention window (parked events are kept)
+     */
+    @Scheduled(cron = "${app.outbox.purge-cron:0 15 * * * *}")
+    public void purgeProcessed() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, cutoff, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            log.info("Purged {} processed outbox events", total);
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void deliver(List<OutboxMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<OutboxMessage>> byType = batch.stream()
+                .collect(Collectors.groupingBy(OutboxMessage::eventType, LinkedHashMap::new, Collectors.toList()));
+        byType.forEach((type, messages) -> {
+            List<OutboxHandler> typeHandlers = handlers.get(type);
+            if (typeHandlers == null) {
+                throw new IllegalStateException("No outbox handler for event type " + type);
+            }
+            typeHandlers.forEach(handler -> handler.handle(messages));
+        });
+
+        namedJdbcTemplate.update(MARK_PROCESSED_SQL, Map.of(
+                "now", Timestamp.valueOf(LocalDateTime.now()),
+                "ids", batch.stream().map(OutboxMessage::id).toList()));
+    }
+
+    private void deliverOne(long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    deliver(jdbcTemplate.query(SELECT_ONE_SQL, this::toMessage, id)));
+        } catch (RuntimeException e) {
+            log.error("Outbox event {} failed: {}", id, e.getMessage());
+            String error = String.valueOf(e.getMessage());
+            jdbcTemplate.update(MARK_FAILED_SQL, error.substring(0, Math.min(error.length(), 500)),
+                    maxAttempts, Timestamp.valueOf(LocalDateTime.now()), id);
+        }
+    }
+
+    private OutboxMessage toMessage(ResultSet rs, int rowNum) throws SQLException {
+        byte[] aggregateId = rs.getBytes("aggregate_id");
+        return new OutboxMessage(
+                rs.getLong("id"),
+                rs.getString("event_type"),
+                aggregateId != null ? UuidUtils.fromBytes(aggregateId) : null,
+                rs.getString("payload"),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    }
+}
@@ -0,0 +1,42 @@
+package dev.CaoNguyen_1883.ecommerce.common.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Records outbox events in the caller's transaction: they exist exactly when its changes commit
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_events (event_type, aggregate_id, payload, created_at, attempts)
+            VALUES (?, ?, ?, ?, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, UUID aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event", e);
+        }
+        jdbcTemplate.update(INSERT_SQL, eventType, aggregateId != null ? UuidUtils.toBytes(aggregateId) : null,
+                json, Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
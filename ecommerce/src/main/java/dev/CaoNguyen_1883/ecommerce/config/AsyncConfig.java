@@ -7,6 +7,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Configuration for async processing
@@ -53,4 +54,25 @@ public class AsyncConfig {
 
         return executor;
     }
+
+    /**
+     * Thread pool for rewriting order search terms after a profile change
+     * A full queue runs the rewrite on the caller rather than losing it
+     */
+    @Bean(name = "searchIndexExecutor")
+    public Executor searchIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("search-index-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        log.info("Initialized search index executor: corePoolSize=1, maxPoolSize=2, queueCapacity=500");
+
+        return executor;
+    }
 }
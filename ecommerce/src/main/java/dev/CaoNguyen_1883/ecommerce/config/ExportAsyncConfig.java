@@ -0,0 +1,44 @@
+package dev.CaoNguyen_1883.ecommerce.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Async timeout of streaming exports
+ * Export endpoints stream for minutes; every other async request keeps the container default
+ */
+@Configuration
+public class ExportAsyncConfig implements WebMvcConfigurer {
+
+    private static final String EXPORT_PATH_SUFFIX = "/export";
+
+    private final long timeoutMillis;
+
+    public ExportAsyncConfig(@Value("${app.export.request-timeout:30m}") Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // Runs before the async request starts, so the timeout still applies to it
+                HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+                if (request instanceof AsyncWebRequest asyncRequest && servletRequest != null
+                        && servletRequest.getRequestURI().endsWith(EXPORT_PATH_SUFFIX)) {
+                    asyncRequest.setTimeout(timeoutMillis);
+                }
+            }
+        });
+    }
+}
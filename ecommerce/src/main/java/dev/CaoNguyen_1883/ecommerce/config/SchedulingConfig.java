@@ -0,0 +1,13 @@
+package dev.CaoNguyen_1883.ecommerce.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration for scheduled maintenance jobs
+ * Enables @Scheduled annotation (retention, reconciliation, sweepers)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -63,6 +63,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/categories/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/brands/**").permitAll()
 
+                        // Guest carts are identified by their signed token
+                        .requestMatchers("/api/guest-cart/**").permitAll()
+
                         // All other requests require authentication
                         .requestMatchers("/api/auth/me").authenticated()
                         .anyRequest().authenticated()
@@ -124,7 +127,8 @@ public class SecurityConfig {
                 "Authorization",
                 "Content-Type",
                 "Accept",
-                "X-Requested-With"
+                "X-Requested-With",
+                "Idempotency-Key"
         ));
 
         // Allow credentials (cookies, authorization headers)
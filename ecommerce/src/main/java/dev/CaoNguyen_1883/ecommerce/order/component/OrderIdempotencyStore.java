@@ -0,0 +1,321 @@
+package dev.CaoNguyen_1883.ecommerce.order.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.DuplicateResourceException;
+import dev.CaoNguyen_1883.ecommerce.order.dto.CreateOrderRequest;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderDto;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for order creation
+ *
+ * The first request with a key claims it in idempotency_keys (INSERT IGNORE, outside any transaction)
+ * and runs the checkout; its OrderDto is stored with the key. Retries on the same instance wait on the
+ * in-flight result in Caffeine, retries on other instances poll the row. A failed checkout drops its
+ * claim so the client can retry with the same key. Keys expire after ttl-hours.
+ * Every claim carries a random token: expired or abandoned rows are taken over with one conditional
+ * UPDATE on the values just read, and completing or dropping a claim only touches the owner's row.
+ */
+@Component
+@Slf4j
+public class OrderIdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final String CLAIM_SQL = """
+            INSERT IGNORE INTO idempotency_keys (request_key, fingerprint, status, claim_token, created_at, expires_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    // Succeeds only if the row is still exactly the stale one that was read
+    private static final String TAKE_OVER_SQL = """
+            UPDATE idempotency_keys
+            SET fingerprint = ?, status = ?, claim_token = ?, order_id = NULL, response = NULL,
+                created_at = ?, expires_at = ?
+            WHERE request_key = ? AND status = ? AND created_at = ? AND claim_token <=> ?
+            """;
+
+    private static final String COMPLETE_SQL = """
+            UPDATE idempotency_keys SET status = ?, order_id = ?, response = ?
+            WHERE request_key = ? AND claim_token = ?
+            """;
+
+    private static final String SELECT_SQL = """
+            SELECT fingerprint, status, response, claim_token, created_at, expires_at
+            FROM idempotency_keys WHERE request_key = ?
+            """;
+
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_keys WHERE request_key = ? AND claim_token = ?";
+
+    private static final String PURGE_SQL = "DELETE FROM idempotency_keys WHERE expires_at < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration staleAfter;
+    private final long waitMillis;
+    private final long pollMillis;
+    private final int purgeBatchSize;
+
+    // request key -> in-flight or completed result on this instance
+    private final Cache<String, Entry> entries;
+
+    public OrderIdempotencyStore(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.order.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${app.order.idempotency.stale-seconds:60}") long staleSeconds,
+            @Value("${app.order.idempotency.wait-millis:10000}") long waitMillis,
+            @Value("${app.order.idempotency.poll-millis:100}") long pollMillis,
+            @Value("${app.order.idempotency.max-entries:10000}") long maxEntries,
+            @Value("${app.order.idempotency.purge-batch-size:1000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.staleAfter = Duration.ofSeconds(staleSeconds);
+        this.waitMillis = waitMillis;
+        this.pollMillis = pollMillis;
+        this.purgeBatchSize = purgeBatchSize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Run an order creation at most once per (user, Idempotency-Key)
+     *
+     * @param userId   Owner of the key
+     * @param key      Idempotency-Key header value
+     * @param request  Request body, a key reused with a different body is rejected
+     * @param checkout Order creation; must run (and commit) its own transaction
+     * @return Order created by the first request with this key
+     */
+    public OrderDto execute(UUID userId, String key, CreateOrderRequest request, Supplier<OrderDto> checkout) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String requestKey = userId + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(requestKey, mine);
+        if (existing != null) {
+            checkFingerprint(existing.fingerprint(), fingerprint);
+            log.debug("Idempotent retry for {}, waiting on the local result", requestKey);
+            return await(existing.result());
+        }
+
+        try {
+            String claim = claimOrLoad(requestKey, fingerprint);
+            OrderDto order = claim != null
+                    ? run(requestKey, claim, checkout)
+                    : awaitRemote(requestKey, fingerprint, checkout);
+            mine.result().complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            entries.asMap().remove(requestKey, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop expired keys in small batches (default every 10 minutes)
+     */
+    @Scheduled(fixedDelayString = "${app.order.idempotency.purge-millis:600000}")
+    public void purgeExpired() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        if (total > 0) {
+            log.info("Purged {} expired idempotency keys", total);
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * @return Claim token if this request now owns the key, null if another request (or instance) does
+     */
+    private String claimOrLoad(String requestKey, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        String claim = insertClaim(requestKey, fingerprint, now);
+        if (claim != null) {
+            return claim;
+        }
+
+        // Expired rows not purged yet and claims of crashed requests are taken over
+        List<Row> rows = select(requestKey);
+        if (rows.isEmpty()) {
+            // Dropped in between by its failed owner
+            return insertClaim(requestKey, fingerprint, now);
+        }
+        Row row = rows.get(0);
+        boolean expired = row.expiresAt().isBefore(now);
+        boolean abandoned = STATUS_IN_PROGRESS.equals(row.status()) && row.createdAt().isBefore(now.minus(staleAfter));
+        if (!expired && !abandoned) {
+            return null;
+        }
+
+        // Concurrent retries that read the same stale row race here; exactly one UPDATE matches
+        String token = UUID.randomUUID().toString();
+        int taken = jdbcTemplate.update(TAKE_OVER_SQL,
+                fingerprint, STATUS_IN_PROGRESS, token, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)),
+                requestKey, row.status(), Timestamp.valueOf(row.createdAt()), row.claimToken());
+        if (taken != 1) {
+            return null;
+        }
+        log.warn("Took over {} idempotency key {}", expired ? "expired" : "abandoned", requestKey);
+        return token;
+    }
+
+    /**
+     * @return Claim token, or null if the key already has a row
+     */
+    private String insertClaim(String requestKey, String fingerprint, LocalDateTime now) {
+        String token = UUID.randomUUID().toString();
+        int inserted = jdbcTemplate.update(CLAIM_SQL, requestKey, fingerprint, STATUS_IN_PROGRESS, token,
+                Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)));
+        return inserted == 1 ? token : null;
+    }
+
+    private OrderDto run(String requestKey, String claim, Supplier<OrderDto> checkout) {
+        OrderDto order;
+        try {
+            order = checkout.get();
+        } catch (RuntimeException e) {
+            // Only our own claim; the key may have been taken over meanwhile
+            jdbcTemplate.update(RELEASE_SQL, requestKey, claim);
+            throw e;
+        }
+
+        // The order is committed at this point; a lost response only means retries can't find it here
+        try {
+            int stored = jdbcTemplate.update(COMPLETE_SQL, STATUS_COMPLETED, UuidUtils.toBytes(order.getId()),
+                    objectMapper.writeValueAsString(order), requestKey, claim);
+            if (stored == 0) {
+                log.warn("Idempotency key {} was taken over before order {} completed", requestKey, order.getId());
+            }
+        } catch (Exception e) {
+            log.error("Could not store response for idempotency key {}: {}", requestKey, e.getMessage());
+        }
+        return order;
+    }
+
+    /**
+     * Poll the row of a key owned elsewhere until its response is stored
+     */
+    private OrderDto awaitRemote(String requestKey, String fingerprint, Supplier<OrderDto> checkout) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            List<Row> rows = select(requestKey);
+            if (rows.isEmpty()) {
+                // The owner failed and dropped its claim: this retry runs the checkout itself
+                String claim = insertClaim(requestKey, fingerprint, LocalDateTime.now());
+                if (claim != null) {
+                    return run(requestKey, claim, checkout);
+                }
+            } else {
+                Row row = rows.get(0);
+                checkFingerprint(row.fingerprint(), fingerprint);
+                if (STATUS_COMPLETED.equals(row.status()) && row.response() != null) {
+                    try {
+                        return objectMapper.readValue(row.response(), OrderDto.class);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Unreadable response for idempotency key " + requestKey, e);
+                    }
+                }
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+            }
+            sleep();
+        }
+    }
+
+    private OrderDto await(CompletableFuture<OrderDto> result) {
+        try {
+            return result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+
+    private List<Row> select(String requestKey) {
+        return jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Row(
+                rs.getString("fingerprint"),
+                rs.getString("status"),
+                rs.getString("response"),
+                rs.getString("claim_token"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                rs.getTimestamp("expires_at").toLocalDateTime()), requestKey);
+    }
+
+    private void checkFingerprint(String stored, String fingerprint) {
+        if (!stored.equals(fingerprint)) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String fingerprint(CreateOrderRequest request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint order request", e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(pollMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<OrderDto> result) {
+    }
+
+    private record Row(String fingerprint, String status, String response, String claimToken,
+                       LocalDateTime createdAt, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,125 @@
+package dev.CaoNguyen_1883.ecommerce.order.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-safe order numbers: ORD-YYYYMMDD-NNNNN, restarting at 1 every day
+ *
+ * Hi/lo allocation over order_number_sequences: a node reserves a block of blockSize numbers
+ * for the day with one upsert (in its own transaction, so a rolled back order never hands its
+ * block back), then serves numbers from memory with a CAS. Unused numbers of a block are skipped
+ * after a restart - numbers are unique and increasing per node, not gap-free.
+ *
+ * A day's row starts after the highest number already in orders for that day, so numbers issued
+ * before the row existed (older nodes, earlier generator) are never handed out again. Refills
+ * take a connection of their own and must not run inside the caller's transaction.
+ */
+@Component
+@Slf4j
+public class OrderNumberAllocator {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // LAST_INSERT_ID(expr) makes the new high-water mark readable on this connection
+    private static final String RESERVE_BLOCK_SQL =
+            "UPDATE order_number_sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE seq_date = ?";
+
+    // First block of a day: start after the day's highest existing number (the suffix after "ORD-YYYYMMDD-")
+    private static final String CREATE_DAY_SQL = """
+            INSERT INTO order_number_sequences (seq_date, next_value)
+            SELECT ?, LAST_INSERT_ID(COALESCE(MAX(CAST(SUBSTRING(order_number, 14) AS UNSIGNED)), 0) + 1 + ?)
+            FROM orders
+            WHERE order_number LIKE ?
+            ON DUPLICATE KEY UPDATE next_value = LAST_INSERT_ID(next_value + ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    private volatile Block block = new Block(LocalDate.MIN, 0, 0);
+
+    public OrderNumberAllocator(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.order.number.block-size:50}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Next order number for today; call it before the order's transaction starts
+     */
+    public String nextOrderNumber() {
+        LocalDate today = LocalDate.now();
+        while (true) {
+            Block current = block;
+            if (current.day.equals(today)) {
+                long value = current.next.getAndIncrement();
+                if (value < current.end) {
+                    return format(today, value);
+                }
+            }
+            refill(current, today);
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Reserve a new block unless another thread already replaced the exhausted one
+     */
+    private synchronized void refill(Block exhausted, LocalDate today) {
+        if (block != exhausted) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Would hold the caller's connection while waiting for a second one under this lock
+            throw new IllegalStateException("Order numbers must be allocated outside a transaction");
+        }
+        long end = Objects.requireNonNull(transactionTemplate.execute(status -> {
+            Date day = Date.valueOf(today);
+            if (jdbcTemplate.update(RESERVE_BLOCK_SQL, blockSize, day) == 0) {
+                jdbcTemplate.update(CREATE_DAY_SQL, day, blockSize, "ORD-" + today.format(DATE_FORMAT) + "-%", blockSize);
+            }
+            return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        }));
+        block = new Block(today, end - blockSize, end);
+
+        log.debug("Reserved order number block {}..{} for {}", end - blockSize, end - 1, today);
+    }
+
+    private String format(LocalDate day, long value) {
+        return String.format("ORD-%s-%05d", day.format(DATE_FORMAT), value);
+    }
+
+    /**
+     * Numbers [next, end) of one day
+     */
+    private static final class Block {
+        private final LocalDate day;
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(LocalDate day, long start, long end) {
+            this.day = day;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package dev.CaoNguyen_1883.ecommerce.order.component;
+
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderStatistics;
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
+import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentStatus;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderTransitionBatchEvent;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderTransitionEvent;
+import dev.CaoNguyen_1883.ecommerce.order.repository.OrderArchiveRepository;
+import dev.CaoNguyen_1883.ecommerce.order.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Order counts per status and revenue (DELIVERED + PAID), kept in memory
+ *
+ * Loaded with one GROUP BY, then moved by OrderTransitionEvents after each commit. Transitions
+ * committed on other instances are only picked up by the periodic reconciliation, so figures
+ * can lag by up to one reconcile interval.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsCounters {
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveRepository orderArchiveRepository;
+
+    private final AtomicReference<Totals> totals = new AtomicReference<>();
+
+    /**
+     * Current statistics; the first call loads them from the database
+     */
+    public OrderStatistics statistics() {
+        Totals current = totals.get();
+        if (current == null) {
+            current = reload();
+        }
+        return current.toDto();
+    }
+
+    /**
+     * Apply an order transition once its transaction committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransition(OrderTransitionEvent event) {
+        if (!event.isChange()) {
+            return;
+        }
+        // Not loaded yet: the first read will see this transition in the database anyway
+        totals.updateAndGet(current -> current == null ? null : current.apply(event));
+    }
+
+    /**
+     * Apply the transitions of a bulk status update once its transaction committed, in one step
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransitions(OrderTransitionBatchEvent batch) {
+        List<OrderTransitionEvent> changes = batch.transitions().stream().filter(OrderTransitionEvent::isChange).toList();
+        if (changes.isEmpty()) {
+            return;
+        }
+        totals.updateAndGet(current -> {
+            if (current == null) {
+                return null;
+            }
+            Totals next = current;
+            for (OrderTransitionEvent event : changes) {
+                next = next.apply(event);
+            }
+            return next;
+        });
+    }
+
+    /**
+     * Replace the counters with database figures (default every minute)
+     */
+    @Scheduled(fixedDelayString = "${app.order.stats.reconcile-millis:60000}")
+    public void reconcile() {
+        Totals before = totals.get();
+        Totals loaded = reload();
+        if (before != null && !before.equals(loaded)) {
+            log.info("Order statistics drifted and were reconciled: {} -> {}", before, loaded);
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private Totals reload() {
+        // Archived orders still count; a batch archived between the two reads is off until the next reconcile
+        List<Object[]> rows = new ArrayList<>(orderRepository.aggregateByStatus());
+        rows.addAll(orderArchiveRepository.aggregateByStatus());
+        Totals loaded = Totals.from(rows);
+        totals.set(loaded);
+        return loaded;
+    }
+
+    /**
+     * Immutable figures; every update builds a new instance so readers never see half an update
+     */
+    private record Totals(Map<OrderStatus, Long> counts, BigDecimal revenue) {
+
+        static Totals from(List<Object[]> rows) {
+            Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+            BigDecimal revenue = BigDecimal.ZERO;
+            for (Object[] row : rows) {
+                OrderStatus status = (OrderStatus) row[0];
+                counts.merge(status, ((Number) row[2]).longValue(), Long::sum);
+                if (OrderTransitionEvent.countsAsRevenue(status, (PaymentStatus) row[1])) {
+                    revenue = revenue.add(toBigDecimal(row[3]));
+                }
+            }
+            return new Totals(counts, revenue);
+        }
+
+        Totals apply(OrderTransitionEvent event) {
+            Map<OrderStatus, Long> next = new EnumMap<>(OrderStatus.class);
+            next.putAll(counts);
+            BigDecimal amount = event.totalAmount() != null ? event.totalAmount() : BigDecimal.ZERO;
+
+            if (event.fromStatus() != null) {
+                next.merge(event.fromStatus(), -1L, (count, delta) -> count + delta == 0 ? null : count + delta);
+            }
+            next.merge(event.toStatus(), 1L, Long::sum);
+            BigDecimal nextRevenue = revenue.add(amount.multiply(BigDecimal.valueOf(event.revenueDelta())));
+            return new Totals(next, nextRevenue);
+        }
+
+        OrderStatistics toDto() {
+            return OrderStatistics.builder()
+                    .totalOrders(counts.values().stream().mapToLong(Long::longValue).sum())
+                    .pendingOrders(count(OrderStatus.PENDING))
+                    .confirmedOrders(count(OrderStatus.CONFIRMED))
+                    .processingOrders(count(OrderStatus.PROCESSING))
+                    .shippedOrders(count(OrderStatus.SHIPPED))
+                    .deliveredOrders(count(OrderStatus.DELIVERED))
+                    .cancelledOrders(count(OrderStatus.CANCELLED))
+                    .totalRevenue(revenue.doubleValue())
+                    .build();
+        }
+
+        private long count(OrderStatus status) {
+            return counts.getOrDefault(status, 0L);
+        }
+
+        private static BigDecimal toBigDecimal(Object value) {
+            return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+        }
+
+        // BigDecimal.equals is scale-sensitive, compare amounts by value
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Totals other
+                    && counts.equals(other.counts)
+                    && revenue.compareTo(other.revenue) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return counts.hashCode();
+        }
+    }
+}
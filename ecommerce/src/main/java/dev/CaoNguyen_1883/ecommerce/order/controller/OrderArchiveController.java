@@ -0,0 +1,44 @@
+package dev.CaoNguyen_1883.ecommerce.order.controller;
+
+import dev.CaoNguyen_1883.ecommerce.common.response.ApiResponse;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderArchiveReport;
+import dev.CaoNguyen_1883.ecommerce.order.service.OrderArchiveService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/orders/archive")
+@RequiredArgsConstructor
+@Tag(name = "Order Archive Maintenance", description = "APIs for moving completed orders to cold storage")
+@SecurityRequirement(name = "bearer-jwt")
+public class OrderArchiveController {
+
+    private final OrderArchiveService orderArchiveService;
+
+    @Operation(
+            summary = "Run order archiving",
+            description = "Move old delivered/cancelled orders out of the hot order tables (Admin only)"
+    )
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderArchiveReport>> runArchive() {
+        OrderArchiveReport report = orderArchiveService.runArchive();
+        return ResponseEntity.ok(ApiResponse.success("Order archiving completed", report));
+    }
+
+    @Operation(
+            summary = "Get last archive report",
+            description = "Get orders moved and bytes written by the last archiving run (Admin only)"
+    )
+    @GetMapping("/last-report")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<OrderArchiveReport>> getLastReport() {
+        OrderArchiveReport report = orderArchiveService.getLastReport();
+        return ResponseEntity.ok(ApiResponse.success("Last archive report retrieved successfully", report));
+    }
+}
@@ -1,11 +1,15 @@
 package dev.CaoNguyen_1883.ecommerce.order.controller;
 
 import dev.CaoNguyen_1883.ecommerce.auth.security.CustomUserDetails;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportFormat;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportJob;
 import dev.CaoNguyen_1883.ecommerce.common.response.ApiResponse;
+import dev.CaoNguyen_1883.ecommerce.order.component.OrderIdempotencyStore;
 import dev.CaoNguyen_1883.ecommerce.order.dto.*;
 import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
 import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentStatus;
 import dev.CaoNguyen_1883.ecommerce.order.service.IOrderService;
+import dev.CaoNguyen_1883.ecommerce.order.service.OrderExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -17,12 +21,17 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
 @RestController
@@ -32,23 +41,33 @@ import java.util.UUID;
 @SecurityRequirement(name = "bearer-jwt")
 public class OrderController {
 
+    private static final DateTimeFormatter EXPORT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
     private final IOrderService orderService;
+    private final OrderIdempotencyStore idempotencyStore;
+    private final OrderExportService orderExportService;
 
     // ===== CUSTOMER ENDPOINTS =====
 
     @Operation(
             summary = "Create order from cart",
-            description = "Create a new order from the current user's cart items"
+            description = "Create a new order from the current user's cart items. "
+                    + "Retries carrying the same Idempotency-Key return the original order instead of creating another one"
     )
     @PostMapping
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<ApiResponse<OrderDto>> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @Parameter(description = "Client-generated key, unique per checkout attempt")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
         UUID userId = userDetails.getId();
 
-        OrderDto order = orderService.createOrderFromCart(userId, request);
+        OrderDto order = idempotencyKey == null
+                ? orderService.createOrderFromCart(userId, request)
+                : idempotencyStore.execute(userId, idempotencyKey, request,
+                        () -> orderService.createOrderFromCart(userId, request));
         return ResponseEntity.ok(ApiResponse.success("Order created successfully", order));
     }
 
@@ -216,6 +235,34 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success("Orders retrieved successfully", orders));
     }
 
+    @Operation(
+            summary = "Export orders",
+            description = "Stream orders as CSV or NDJSON, oldest first, optionally filtered by creation date and status (Admin/Staff only)"
+    )
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "csv (default) or ndjson")
+            @RequestParam(required = false) String format,
+            @Parameter(description = "Created at or after (ISO format)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "Created at or before (ISO format)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) OrderStatus orderStatus,
+            @RequestParam(required = false) PaymentStatus paymentStatus,
+            @Parameter(description = "Append archived orders after the current ones")
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        ExportJob job = orderExportService.export(exportFormat, startDate, endDate,
+                orderStatus, paymentStatus, includeArchived);
+
+        String filename = "orders-" + LocalDateTime.now().format(EXPORT_TIMESTAMP) + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(job::writeTo);
+    }
+
     @Operation(
             summary = "Confirm order",
             description = "Confirm a pending order (Admin/Staff only)"
@@ -285,6 +332,22 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success("Order status updated successfully", order));
     }
 
+    @Operation(
+            summary = "Bulk update order status",
+            description = "Confirm, process, ship or deliver up to 500 orders at once; "
+                    + "orders that cannot make the transition are reported and left unchanged (Admin/Staff only)"
+    )
+    @PostMapping("/bulk/status")
+    @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+    public ResponseEntity<ApiResponse<BulkOrderStatusResult>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkOrderStatusRequest request,
+            Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+
+        BulkOrderStatusResult result = orderService.bulkUpdateOrderStatus(request, userDetails.getId());
+        return ResponseEntity.ok(ApiResponse.success("Order statuses updated", result));
+    }
+
     @Operation(
             summary = "Mark payment as paid",
             description = "Mark order payment as paid (Admin/Staff only)"
@@ -347,4 +410,19 @@ public class OrderController {
         Double revenue = orderService.getRevenueByDateRange(startDate, endDate);
         return ResponseEntity.ok(ApiResponse.success("Revenue retrieved successfully", revenue));
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Get revenue summary by date range",
+            description = "Get revenue, order count and item count of delivered and paid orders within a date range"
+    )
+    @GetMapping("/revenue/summary")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<RevenueSummary>> getRevenueSummary(
+            @Parameter(description = "Start date (ISO format)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date (ISO format)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        RevenueSummary summary = orderService.getRevenueSummary(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Revenue summary retrieved successfully", summary));
+    }
+}
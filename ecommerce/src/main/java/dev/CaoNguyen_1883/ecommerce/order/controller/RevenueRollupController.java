@@ -0,0 +1,41 @@
+package dev.CaoNguyen_1883.ecommerce.order.controller;
+
+import dev.CaoNguyen_1883.ecommerce.common.response.ApiResponse;
+import dev.CaoNguyen_1883.ecommerce.order.dto.RevenueRollupReport;
+import dev.CaoNguyen_1883.ecommerce.order.service.RevenueRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/admin/orders/revenue-rollups")
+@RequiredArgsConstructor
+@Tag(name = "Revenue Rollup Maintenance", description = "APIs for hourly/daily revenue rollups")
+@SecurityRequirement(name = "bearer-jwt")
+public class RevenueRollupController {
+
+    private final RevenueRollupService revenueRollupService;
+
+    @Operation(
+            summary = "Rebuild revenue rollups",
+            description = "Recompute hourly and daily revenue buckets from orders, day by day (Admin only)"
+    )
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<RevenueRollupReport>> rebuild(
+            @Parameter(description = "First day (ISO date), defaults to the first delivery")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @Parameter(description = "Last day (ISO date), defaults to today")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        RevenueRollupReport report = revenueRollupService.rebuild(fromDate, toDate);
+        return ResponseEntity.ok(ApiResponse.success("Revenue rollups rebuilt", report));
+    }
+}
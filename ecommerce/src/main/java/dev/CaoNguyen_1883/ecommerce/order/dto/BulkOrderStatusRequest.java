@@ -0,0 +1,24 @@
+package dev.CaoNguyen_1883.ecommerce.order.dto;
+
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderStatusRequest {
+
+    @NotNull(message = "Order status is required")
+    private OrderStatus status;
+
+    @NotEmpty(message = "Order IDs are required")
+    @Size(max = 500, message = "At most 500 orders can be updated at once")
+    private List<@NotNull UUID> orderIds;
+}
@@ -0,0 +1,18 @@
+package dev.CaoNguyen_1883.ecommerce.order.dto;
+
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkOrderStatusResult {
+    private OrderStatus status;              // Requested target status
+    private Integer requested;               // Distinct order ids in the request
+    private Integer updated;
+    private Integer rejected;                // Unknown orders or illegal transitions
+    private List<OrderStatusChange> results; // One per distinct order id, in request order
+}
@@ -0,0 +1,20 @@
+package dev.CaoNguyen_1883.ecommerce.order.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderArchiveReport {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime cutoff;            // Completed orders created before this were archived
+    private Integer batches;
+    private Long ordersArchived;             // Rows moved out of orders
+    private Long itemsArchived;              // Rows moved out of order_items
+    private Long payloadBytes;               // Compressed size written to orders_archive
+    private Long rawBytes;                   // Uncompressed JSON size of the same orders
+}
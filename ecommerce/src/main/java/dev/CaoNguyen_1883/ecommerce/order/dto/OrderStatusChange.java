@@ -0,0 +1,19 @@
+package dev.CaoNguyen_1883.ecommerce.order.dto;
+
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
+import lombok.*;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusChange {
+    private UUID orderId;
+    private String orderNumber;              // Null if the order was not found
+    private OrderStatus fromStatus;
+    private OrderStatus toStatus;            // Null if rejected
+    private Boolean success;
+    private String message;
+}
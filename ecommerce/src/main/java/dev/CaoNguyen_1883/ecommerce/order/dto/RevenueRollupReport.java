@@ -0,0 +1,19 @@
+package dev.CaoNguyen_1883.ecommerce.order.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueRollupReport {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private Integer daysRebuilt;
+    private Long ordersCounted;              // Delivered and paid orders found in the rebuilt days
+}
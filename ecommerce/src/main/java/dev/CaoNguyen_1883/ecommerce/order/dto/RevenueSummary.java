@@ -0,0 +1,18 @@
+package dev.CaoNguyen_1883.ecommerce.order.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevenueSummary {
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private BigDecimal revenue;
+    private Long orderCount;
+    private Long itemCount;
+}
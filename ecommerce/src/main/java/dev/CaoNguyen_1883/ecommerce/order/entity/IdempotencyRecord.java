@@ -0,0 +1,54 @@
+package dev.CaoNguyen_1883.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Idempotency-Key of an order creation request and, once done, the order it produced
+ * Written with plain SQL by OrderIdempotencyStore; mapped here so the table is created with the schema
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    // "<userId>:<Idempotency-Key>" - keys are scoped per user
+    @Id
+    @Column(name = "request_key", length = 150, nullable = false)
+    private String requestKey;
+
+    // SHA-256 of the request body, a key must not be reused for a different request
+    @Column(name = "fingerprint", length = 64, nullable = false)
+    private String fingerprint;
+
+    // IN_PROGRESS or COMPLETED
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    // Random id of the current claim; only its owner may complete or drop it
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "order_id", columnDefinition = "BINARY(16)")
+    private UUID orderId;
+
+    // Serialized OrderDto returned to retries
+    @Lob
+    @Column(name = "response", columnDefinition = "MEDIUMTEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
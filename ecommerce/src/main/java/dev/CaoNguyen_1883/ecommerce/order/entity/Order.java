@@ -9,14 +9,17 @@ import lombok.experimental.SuperBuilder;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
 @Table(name = "orders", indexes = {
         @Index(name = "idx_order_user", columnList = "user_id"),
         @Index(name = "idx_order_number", columnList = "order_number"),
         @Index(name = "idx_order_status", columnList = "order_status"),
-        @Index(name = "idx_order_created", columnList = "created_at")
+        @Index(name = "idx_order_created", columnList = "created_at"),
+        @Index(name = "idx_order_delivered", columnList = "delivered_at")
 })
 @Getter
 @Setter
@@ -149,15 +152,29 @@ public class Order extends BaseEntity {
     }
 
     public boolean canConfirm() {
-        return orderStatus == OrderStatus.PENDING;
+        return transitionSources(OrderStatus.CONFIRMED).contains(orderStatus);
     }
 
     public boolean canShip() {
-        return orderStatus == OrderStatus.CONFIRMED || orderStatus == OrderStatus.PROCESSING;
+        return transitionSources(OrderStatus.SHIPPED).contains(orderStatus);
     }
 
     public boolean canDeliver() {
-        return orderStatus == OrderStatus.SHIPPED;
+        return transitionSources(OrderStatus.DELIVERED).contains(orderStatus);
+    }
+
+    /**
+     * Statuses an order may be in to move to the target through confirm/markAsProcessing/ship/deliver
+     * (empty for targets those methods cannot reach)
+     */
+    public static Set<OrderStatus> transitionSources(OrderStatus target) {
+        return switch (target) {
+            case CONFIRMED -> EnumSet.of(OrderStatus.PENDING);
+            case PROCESSING -> EnumSet.of(OrderStatus.CONFIRMED);
+            case SHIPPED -> EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.PROCESSING);
+            case DELIVERED -> EnumSet.of(OrderStatus.SHIPPED);
+            default -> EnumSet.noneOf(OrderStatus.class);
+        };
     }
 
     public void cancel(String reason, User cancelledBy) {
@@ -180,7 +197,7 @@ public class Order extends BaseEntity {
     }
 
     public void markAsProcessing() {
-        if (orderStatus != OrderStatus.CONFIRMED) {
+        if (!transitionSources(OrderStatus.PROCESSING).contains(orderStatus)) {
             throw new IllegalStateException("Cannot process order in status: " + orderStatus);
         }
         this.orderStatus = OrderStatus.PROCESSING;
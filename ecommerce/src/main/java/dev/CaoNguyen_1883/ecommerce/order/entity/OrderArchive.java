@@ -0,0 +1,67 @@
+package dev.CaoNguyen_1883.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A completed order moved out of orders/order_items by OrderArchiveService
+ *
+ * The full order (OrderDto with items) is kept as gzip'd JSON; the columns beside it are only
+ * what lookups, statistics and revenue rollups need without opening the payload.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_order_archive_user", columnList = "user_id, created_at"),
+        @Index(name = "idx_order_archive_created", columnList = "created_at"),
+        @Index(name = "idx_order_archive_delivered", columnList = "delivered_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderArchive {
+
+    @Id
+    @Column(name = "id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    @Column(name = "order_number", nullable = false, unique = true, length = 50)
+    private String orderNumber;
+
+    @Column(name = "user_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_status", nullable = false)
+    private OrderStatus orderStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private PaymentStatus paymentStatus;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount;
+
+    // Sum of item quantities, for revenue rollups
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // gzip'd OrderDto JSON
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] payload;
+}
@@ -0,0 +1,27 @@
+package dev.CaoNguyen_1883.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Per-day high-water mark of order numbers
+ * Nodes reserve blocks by advancing nextValue (see OrderNumberAllocator); never updated through JPA
+ */
+@Entity
+@Table(name = "order_number_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderNumberSequence {
+
+    @Id
+    @Column(name = "seq_date", nullable = false)
+    private LocalDate seqDate;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
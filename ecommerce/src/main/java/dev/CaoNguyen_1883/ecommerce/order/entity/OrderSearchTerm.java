@@ -0,0 +1,36 @@
+package dev.CaoNguyen_1883.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One lookup term of an order (see OrderSearchIndexService for the term kinds)
+ * The primary key doubles as the search index: exact and prefix lookups are range scans on term
+ */
+@Entity
+@Table(name = "order_search_terms", indexes = {
+        @Index(name = "idx_order_search_order", columnList = "order_id")
+})
+@IdClass(OrderSearchTermId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchTerm {
+
+    @Id
+    @Column(name = "term", length = 64, nullable = false)
+    private String term;
+
+    @Id
+    @Column(name = "order_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID orderId;
+
+    // Copied from the order so matches can be ordered without reading orders
+    @Column(name = "order_created_at", nullable = false)
+    private LocalDateTime orderCreatedAt;
+}
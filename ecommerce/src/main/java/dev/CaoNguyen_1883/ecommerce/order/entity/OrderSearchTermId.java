@@ -0,0 +1,23 @@
+package dev.CaoNguyen_1883.ecommerce.order.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Composite key for OrderSearchTerm entity
+ * Represents the combination of term and order_id
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchTermId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String term;
+    private UUID orderId;
+}
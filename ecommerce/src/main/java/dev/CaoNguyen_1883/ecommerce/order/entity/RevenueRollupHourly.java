@@ -0,0 +1,37 @@
+package dev.CaoNguyen_1883.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Revenue (delivered and paid orders) of one hour, bucketed by delivered_at
+ * Maintained with plain SQL by RevenueRollupService
+ */
+@Entity
+@Table(name = "revenue_rollups_hourly")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueRollupHourly {
+
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "revenue", nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
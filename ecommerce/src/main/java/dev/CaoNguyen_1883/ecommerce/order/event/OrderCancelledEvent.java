@@ -0,0 +1,22 @@
+package dev.CaoNguyen_1883.ecommerce.order.event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Outbox payload of a committed order cancellation
+ *
+ * @param productIds Distinct products of the order's items (items of deleted variants are left out)
+ * @param quantities Ordered quantity per product, taken back from purchase counts
+ */
+public record OrderCancelledEvent(
+        UUID orderId,
+        String orderNumber,
+        LocalDateTime cancelledAt,
+        List<UUID> productIds,
+        Map<UUID, Integer> quantities) {
+
+    public static final String TYPE = "ORDER_CANCELLED";
+}
@@ -0,0 +1,26 @@
+package dev.CaoNguyen_1883.ecommerce.order.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outbox payload of a committed checkout
+ */
+public record OrderPlacedEvent(
+        UUID orderId,
+        String orderNumber,
+        UUID userId,
+        BigDecimal totalAmount,
+        LocalDateTime placedAt,
+        List<Item> items) {
+
+    public static final String TYPE = "ORDER_PLACED";
+
+    /**
+     * One ordered cart line
+     */
+    public record Item(UUID productId, UUID variantId, UUID cartItemId, int quantity, BigDecimal price) {
+    }
+}
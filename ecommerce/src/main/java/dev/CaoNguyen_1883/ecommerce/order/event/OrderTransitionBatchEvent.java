@@ -0,0 +1,10 @@
+package dev.CaoNguyen_1883.ecommerce.order.event;
+
+import java.util.List;
+
+/**
+ * In-process event: several orders changed status in one bulk update
+ * Listeners apply the transitions together instead of one event per order
+ */
+public record OrderTransitionBatchEvent(List<OrderTransitionEvent> transitions) {
+}
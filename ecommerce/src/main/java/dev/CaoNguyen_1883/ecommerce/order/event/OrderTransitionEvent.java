@@ -0,0 +1,45 @@
+package dev.CaoNguyen_1883.ecommerce.order.event;
+
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
+import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * In-process event: an order was created or changed order/payment status
+ * Published inside the order transaction; listeners react after commit
+ *
+ * @param fromStatus  Status before the change, null for a new order
+ * @param fromPayment Payment status before the change, null for a new order
+ */
+public record OrderTransitionEvent(
+        UUID orderId,
+        OrderStatus fromStatus,
+        PaymentStatus fromPayment,
+        OrderStatus toStatus,
+        PaymentStatus toPayment,
+        BigDecimal totalAmount,
+        LocalDateTime deliveredAt) {
+
+    /**
+     * Revenue means delivered and paid
+     */
+    public static boolean countsAsRevenue(OrderStatus status, PaymentStatus payment) {
+        return status == OrderStatus.DELIVERED && payment == PaymentStatus.PAID;
+    }
+
+    public boolean isChange() {
+        return fromStatus != toStatus || fromPayment != toPayment;
+    }
+
+    /**
+     * +1 if the order became revenue, -1 if it stopped being revenue, 0 otherwise
+     */
+    public int revenueDelta() {
+        boolean before = fromStatus != null && countsAsRevenue(fromStatus, fromPayment);
+        boolean after = countsAsRevenue(toStatus, toPayment);
+        return before == after ? 0 : (after ? 1 : -1);
+    }
+}
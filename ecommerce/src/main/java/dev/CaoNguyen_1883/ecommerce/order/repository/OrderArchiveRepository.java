@@ -0,0 +1,31 @@
+package dev.CaoNguyen_1883.ecommerce.order.repository;
+
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface OrderArchiveRepository extends JpaRepository<OrderArchive, UUID> {
+
+    Optional<OrderArchive> findByOrderNumber(String orderNumber);
+
+    long countByUserId(UUID userId);
+
+    // Archived orders of a user, newest first, from an arbitrary offset (pages continue after the hot orders)
+    @Query(value = "SELECT * FROM orders_archive WHERE user_id = :userId " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<OrderArchive> findSliceByUserId(@Param("userId") byte[] userId,
+                                         @Param("offset") long offset,
+                                         @Param("limit") int limit);
+
+    // Same shape as OrderRepository.aggregateByStatus, so statistics can add both tables
+    @Query("SELECT a.orderStatus, a.paymentStatus, COUNT(a), COALESCE(SUM(a.totalAmount), 0) FROM OrderArchive a " +
+            "GROUP BY a.orderStatus, a.paymentStatus")
+    List<Object[]> aggregateByStatus();
+}
@@ -3,14 +3,17 @@ package dev.CaoNguyen_1883.ecommerce.order.repository;
 import dev.CaoNguyen_1883.ecommerce.order.entity.Order;
 import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
 import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentStatus;
+import dev.CaoNguyen_1883.ecommerce.user.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,44 +41,47 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
             "WHERE o.orderNumber = :orderNumber")
     Optional<Order> findByOrderNumberWithDetails(@Param("orderNumber") String orderNumber);
 
+    // Orders with items and user for a page of ids (second phase of the list endpoints)
+    @Query("SELECT DISTINCT o FROM Order o " +
+            "LEFT JOIN FETCH o.items oi " +
+            "LEFT JOIN FETCH o.user u " +
+            "WHERE o.id IN :ids")
+    List<Order> findAllByIdWithDetails(@Param("ids") Collection<UUID> ids);
+
+    // List endpoints page over ids only; the rows are loaded by findAllByIdWithDetails
+
+    // Find order ids, any status
+    @Query("SELECT o.id FROM Order o")
+    Page<UUID> findPageIds(Pageable pageable);
+
     // Find orders by user
-    @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC")
-    Page<Order> findByUserId(@Param("userId") UUID userId, Pageable pageable);
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC")
+    Page<UUID> findIdsByUserId(@Param("userId") UUID userId, Pageable pageable);
 
     // Find orders by status
-    @Query("SELECT o FROM Order o WHERE o.orderStatus = :status ORDER BY o.createdAt DESC")
-    Page<Order> findByOrderStatus(@Param("status") OrderStatus status, Pageable pageable);
+    @Query("SELECT o.id FROM Order o WHERE o.orderStatus = :status ORDER BY o.createdAt DESC")
+    Page<UUID> findIdsByOrderStatus(@Param("status") OrderStatus status, Pageable pageable);
 
     // Find orders by payment status
-    @Query("SELECT o FROM Order o WHERE o.paymentStatus = :status ORDER BY o.createdAt DESC")
-    Page<Order> findByPaymentStatus(@Param("status") PaymentStatus status, Pageable pageable);
+    @Query("SELECT o.id FROM Order o WHERE o.paymentStatus = :status ORDER BY o.createdAt DESC")
+    Page<UUID> findIdsByPaymentStatus(@Param("status") PaymentStatus status, Pageable pageable);
 
     // Find pending orders (for admin)
-    @Query("SELECT o FROM Order o " +
+    @Query("SELECT o.id FROM Order o " +
             "WHERE o.orderStatus = 'PENDING' " +
             "ORDER BY o.createdAt ASC")
-    Page<Order> findPendingOrders(Pageable pageable);
+    Page<UUID> findPendingOrderIds(Pageable pageable);
 
     // Find orders by date range
-    @Query("SELECT o FROM Order o " +
+    @Query("SELECT o.id FROM Order o " +
             "WHERE o.createdAt BETWEEN :startDate AND :endDate " +
             "ORDER BY o.createdAt DESC")
-    Page<Order> findByDateRange(
+    Page<UUID> findIdsByDateRange(
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate,
             Pageable pageable
     );
 
-    // Search orders
-    @Query("SELECT o FROM Order o " +
-            "WHERE (o.orderNumber LIKE %:keyword% " +
-            "OR o.user.email LIKE %:keyword% " +
-            "OR o.user.fullName LIKE %:keyword% " +
-            "OR o.shippingPhone LIKE %:keyword% " +
-            "OR o.shippingRecipient LIKE %:keyword%) " +
-            "ORDER BY o.createdAt DESC")
-    Page<Order> searchOrders(@Param("keyword") String keyword, Pageable pageable);
-
     // Count orders by status
     long countByOrderStatus(OrderStatus status);
 
@@ -88,6 +94,11 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
             "AND o.paymentStatus = 'PAID'")
     Double getTotalRevenue();
 
+    // Order count and amount per (status, payment status) in one pass, for the statistics counters
+    @Query("SELECT o.orderStatus, o.paymentStatus, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
+            "GROUP BY o.orderStatus, o.paymentStatus")
+    List<Object[]> aggregateByStatus();
+
     // Get total revenue by date range
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
             "WHERE o.orderStatus = 'DELIVERED' " +
@@ -98,6 +109,51 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
             @Param("endDate") LocalDateTime endDate
     );
 
+    // Status fields of several orders in one read, locking them for a bulk transition
+    // Columns: id, order_number, order_status, payment_status, payment_method, total_amount
+    @Query(value = "SELECT id, order_number, order_status, payment_status, payment_method, total_amount " +
+            "FROM orders WHERE id IN (:ids) FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStatusRows(@Param("ids") Collection<byte[]> ids);
+
+    // Enum literal prefixes for the bulk updates below
+    String ORDER_STATUS = "dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus.";
+    String PAYMENT_STATUS = "dev.CaoNguyen_1883.ecommerce.order.entity.PaymentStatus.";
+    String PAYMENT_METHOD = "dev.CaoNguyen_1883.ecommerce.order.entity.PaymentMethod.";
+
+    // Bulk transitions; the status guard repeats the check made under lock, version is bumped like an entity save
+    @Modifying
+    @Query("UPDATE Order o SET o.orderStatus = " + ORDER_STATUS + "CONFIRMED, " +
+            "o.confirmedBy = :user, o.confirmedAt = :now, " +
+            "o.updatedAt = :now, o.updatedBy = :updatedBy, o.version = o.version + 1 " +
+            "WHERE o.id IN :ids AND o.orderStatus = " + ORDER_STATUS + "PENDING")
+    int bulkConfirm(@Param("ids") Collection<UUID> ids, @Param("user") User user,
+                    @Param("now") LocalDateTime now, @Param("updatedBy") String updatedBy);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.orderStatus = " + ORDER_STATUS + "PROCESSING, " +
+            "o.updatedAt = :now, o.updatedBy = :updatedBy, o.version = o.version + 1 " +
+            "WHERE o.id IN :ids AND o.orderStatus = " + ORDER_STATUS + "CONFIRMED")
+    int bulkMarkAsProcessing(@Param("ids") Collection<UUID> ids,
+                             @Param("now") LocalDateTime now, @Param("updatedBy") String updatedBy);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.orderStatus = " + ORDER_STATUS + "SHIPPED, o.shippedAt = :now, " +
+            "o.updatedAt = :now, o.updatedBy = :updatedBy, o.version = o.version + 1 " +
+            "WHERE o.id IN :ids AND o.orderStatus IN (" + ORDER_STATUS + "CONFIRMED, " + ORDER_STATUS + "PROCESSING)")
+    int bulkShip(@Param("ids") Collection<UUID> ids,
+                 @Param("now") LocalDateTime now, @Param("updatedBy") String updatedBy);
+
+    // COD orders still pending payment are paid on delivery, as in Order.deliver()
+    @Modifying
+    @Query("UPDATE Order o SET o.orderStatus = " + ORDER_STATUS + "DELIVERED, o.deliveredAt = :now, " +
+            "o.paymentStatus = CASE WHEN o.paymentMethod = " + PAYMENT_METHOD + "COD " +
+            "AND o.paymentStatus = " + PAYMENT_STATUS + "PENDING " +
+            "THEN " + PAYMENT_STATUS + "PAID ELSE o.paymentStatus END, " +
+            "o.updatedAt = :now, o.updatedBy = :updatedBy, o.version = o.version + 1 " +
+            "WHERE o.id IN :ids AND o.orderStatus = " + ORDER_STATUS + "SHIPPED")
+    int bulkDeliver(@Param("ids") Collection<UUID> ids,
+                    @Param("now") LocalDateTime now, @Param("updatedBy") String updatedBy);
+
     // Get user's latest orders
     @Query("SELECT o FROM Order o " +
             "WHERE o.user.id = :userId " +
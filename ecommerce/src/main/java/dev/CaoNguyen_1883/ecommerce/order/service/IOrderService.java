@@ -100,6 +100,13 @@ public interface IOrderService {
     @Transactional
     OrderDto updateOrderStatus(UUID orderId, UpdateOrderStatusRequest request, UUID updatedBy);
 
+    /**
+     * Move many orders to the same status (confirm/processing/ship/deliver) in one transaction
+     * Orders that are unknown or cannot make the transition are reported, not updated
+     */
+    @Transactional
+    BulkOrderStatusResult bulkUpdateOrderStatus(BulkOrderStatusRequest request, UUID updatedBy);
+
     /**
      * Mark payment as paid
      */
@@ -126,4 +133,9 @@ public interface IOrderService {
      * Get revenue by date range
      */
     Double getRevenueByDateRange(LocalDateTime startDate, LocalDateTime endDate);
-}
\ No newline at end of file
+
+    /**
+     * Get revenue, order and item counts by date range (served from revenue rollups)
+     */
+    RevenueSummary getRevenueSummary(LocalDateTime startDate, LocalDateTime endDate);
+}
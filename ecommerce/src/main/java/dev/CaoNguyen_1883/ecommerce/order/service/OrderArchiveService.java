@@ -0,0 +1,376 @@
+package dev.CaoNguyen_1883.ecommerce.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderArchiveReport;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderDto;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderItemDto;
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderArchive;
+import dev.CaoNguyen_1883.ecommerce.order.mapper.OrderMapper;
+import dev.CaoNguyen_1883.ecommerce.order.repository.OrderArchiveRepository;
+import dev.CaoNguyen_1883.ecommerce.order.repository.OrderRepository;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for completed orders
+ *
+ * DELIVERED and CANCELLED orders created more than N months ago are moved from orders/order_items
+ * into orders_archive (one gzip'd OrderDto JSON per order) in keyset batches, each batch in its own
+ * transaction so checkout is never blocked for long. Reads that miss the hot tables fall back here,
+ * so archived orders stay visible to their owner and to staff.
+ *
+ * Orders referenced by a review stay hot: reviews.order_id is a foreign key into orders.
+ */
+@Service
+@Slf4j
+public class OrderArchiveService {
+
+    private static final String SELECT_BATCH_SQL = """
+            SELECT o.id, o.created_at
+            FROM orders o
+            WHERE o.order_status IN ('DELIVERED', 'CANCELLED')
+              AND o.created_at < ?
+              AND (o.created_at, o.id) > (?, ?)
+              AND NOT EXISTS (SELECT 1 FROM reviews r WHERE r.order_id = o.id)
+            ORDER BY o.created_at, o.id
+            LIMIT ?
+            FOR UPDATE OF o SKIP LOCKED
+            """;
+
+    private static final String INSERT_ARCHIVE_SQL = """
+            INSERT INTO orders_archive
+                (id, order_number, user_id, order_status, payment_status, total_amount, item_count,
+                 created_at, delivered_at, archived_at, payload)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String SELECT_DELIVERED_PAYLOADS_SQL =
+            "SELECT payload FROM orders_archive WHERE user_id = ? AND order_status = 'DELIVERED'";
+
+    private static final String DELETE_ITEMS_SQL = "DELETE FROM order_items WHERE order_id IN (:ids)";
+
+    private static final String DELETE_ORDERS_SQL = "DELETE FROM orders WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRepository orderRepository;
+    private final OrderArchiveRepository archiveRepository;
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.order.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.order.archive.months:12}")
+    private int months;
+
+    @Value("${app.order.archive.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.order.archive.max-batches:1000}")
+    private int maxBatches;
+
+    @Value("${app.order.archive.pause-millis:50}")
+    private long pauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile OrderArchiveReport lastReport;
+
+    public OrderArchiveService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            OrderRepository orderRepository,
+            OrderArchiveRepository archiveRepository,
+            OrderMapper orderMapper,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderRepository = orderRepository;
+        this.archiveRepository = archiveRepository;
+        this.orderMapper = orderMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Nightly archiving run (default 04:00)
+     */
+    @Scheduled(cron = "${app.order.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            log.debug("Order archiving disabled, skipping scheduled run");
+            return;
+        }
+        try {
+            runArchive();
+        } catch (BadRequestException e) {
+            log.info("Skipping scheduled order archiving: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Move completed orders older than the archive window into orders_archive
+     *
+     * @return Report with orders moved and payload sizes
+     */
+    public OrderArchiveReport runArchive() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("Order archiving is already running");
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDateTime cutoff = startedAt.minusMonths(months);
+
+            log.info("Starting order archiving: cutoff={}, batchSize={}", cutoff, batchSize);
+
+            // Keyset cursor over (created_at, id)
+            Cursor cursor = Cursor.start();
+            BatchResult total = BatchResult.EMPTY;
+            int batches = 0;
+
+            while (batches < maxBatches) {
+                BatchResult result = transactionTemplate.execute(status -> archiveBatch(cutoff, cursor));
+                if (result == null || result.selected() == 0) {
+                    break;
+                }
+                batches++;
+                total = total.plus(result);
+
+                if (result.selected() < batchSize) {
+                    break;  // last partial batch
+                }
+                pause();
+            }
+
+            OrderArchiveReport report = OrderArchiveReport.builder()
+                    .startedAt(startedAt)
+                    .finishedAt(LocalDateTime.now())
+                    .cutoff(cutoff)
+                    .batches(batches)
+                    .ordersArchived(total.orders())
+                    .itemsArchived(total.items())
+                    .payloadBytes(total.payloadBytes())
+                    .rawBytes(total.rawBytes())
+                    .build();
+            lastReport = report;
+
+            log.info("Order archiving finished: batches={}, orders={}, items={}, {} -> {} bytes",
+                    batches, total.orders(), total.items(), total.rawBytes(), total.payloadBytes());
+
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Report of the last completed run, or null if none ran since startup
+     */
+    public OrderArchiveReport getLastReport() {
+        return lastReport;
+    }
+
+    public Optional<OrderDto> findById(UUID orderId) {
+        return archiveRepository.findById(orderId).map(this::decode);
+    }
+
+    public Optional<OrderDto> findByOrderNumber(String orderNumber) {
+        return archiveRepository.findByOrderNumber(orderNumber).map(this::decode);
+    }
+
+    /**
+     * Archived orders among the given ids, by id
+     */
+    public Map<UUID, OrderDto> findAllById(Collection<UUID> orderIds) {
+        Map<UUID, OrderDto> found = new HashMap<>();
+        archiveRepository.findAllById(orderIds).forEach(archive -> found.put(archive.getId(), decode(archive)));
+        return found;
+    }
+
+    public long countByUser(UUID userId) {
+        return archiveRepository.countByUserId(userId);
+    }
+
+    /**
+     * Archived orders of a user, newest first
+     */
+    public List<OrderDto> findByUser(UUID userId, long offset, int limit) {
+        return archiveRepository.findSliceByUserId(UuidUtils.toBytes(userId), offset, limit).stream()
+                .map(this::decode)
+                .toList();
+    }
+
+    /**
+     * Whether a DELIVERED archived order of the user contains one of the variants
+     */
+    public boolean hasDeliveredItem(UUID userId, Set<UUID> variantIds) {
+        if (variantIds.isEmpty()) {
+            return false;
+        }
+        Boolean found = jdbcTemplate.query(SELECT_DELIVERED_PAYLOADS_SQL, rs -> {
+            while (rs.next()) {
+                if (containsAny(decodePayload(rs.getBytes("payload")), variantIds)) {
+                    return true;
+                }
+            }
+            return false;
+        }, UuidUtils.toBytes(userId));
+        return Boolean.TRUE.equals(found);
+    }
+
+    /**
+     * Whether the order has a line of one of the variants
+     */
+    public static boolean containsAny(OrderDto order, Set<UUID> variantIds) {
+        return order.getItems() != null && order.getItems().stream()
+                .anyMatch(item -> variantIds.contains(item.getVariantId()));
+    }
+
+    /**
+     * Order stored in an orders_archive payload column (for code that reads the table directly)
+     */
+    public OrderDto decodePayload(byte[] payload) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readValue(in, OrderDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable archived order payload", e);
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Lock one batch of completed orders, copy them to the archive and delete them from the hot tables
+     * Runs inside a transaction; SKIP LOCKED lets several instances share the work
+     */
+    private BatchResult archiveBatch(LocalDateTime cutoff, Cursor cursor) {
+        List<byte[]> ids = new ArrayList<>();
+        LocalDateTime[] lastCreatedAt = {null};
+        jdbcTemplate.query(SELECT_BATCH_SQL, rs -> {
+                    ids.add(rs.getBytes("id"));
+                    lastCreatedAt[0] = rs.getTimestamp("created_at").toLocalDateTime();
+                },
+                Timestamp.valueOf(cutoff),
+                Timestamp.valueOf(cursor.createdAt), cursor.id,
+                batchSize);
+
+        if (ids.isEmpty()) {
+            return BatchResult.EMPTY;
+        }
+        cursor.advance(lastCreatedAt[0], ids.get(ids.size() - 1));
+
+        List<UUID> orderIds = ids.stream().map(UuidUtils::fromBytes).toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        long items = 0;
+        long payloadBytes = 0;
+        long rawBytes = 0;
+
+        for (OrderDto order : orderRepository.findAllByIdWithDetails(orderIds).stream().map(orderMapper::toDto).toList()) {
+            byte[] json = toJson(order);
+            byte[] payload = gzip(json);
+            int itemCount = order.getItems() == null ? 0 : order.getItems().stream()
+                    .mapToInt(OrderItemDto::getQuantity)
+                    .sum();
+
+            rows.add(new Object[]{
+                    UuidUtils.toBytes(order.getId()), order.getOrderNumber(), UuidUtils.toBytes(order.getUserId()),
+                    order.getOrderStatus().name(), order.getPaymentStatus().name(), order.getTotalAmount(), itemCount,
+                    Timestamp.valueOf(order.getCreatedAt()),
+                    order.getDeliveredAt() != null ? Timestamp.valueOf(order.getDeliveredAt()) : null,
+                    now, payload
+            });
+            items += order.getItems() == null ? 0 : order.getItems().size();
+            payloadBytes += payload.length;
+            rawBytes += json.length;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ARCHIVE_SQL, rows);
+
+        Map<String, Object> params = Map.of("ids", ids);
+        namedJdbcTemplate.update(DELETE_ITEMS_SQL, params);
+        int deleted = namedJdbcTemplate.update(DELETE_ORDERS_SQL, params);
+
+        return new BatchResult(ids.size(), deleted, items, payloadBytes, rawBytes);
+    }
+
+    private OrderDto decode(OrderArchive archive) {
+        return decodePayload(archive.getPayload());
+    }
+
+    private byte[] toJson(OrderDto order) {
+        try {
+            return objectMapper.writeValueAsBytes(order);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize order " + order.getId(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record BatchResult(int selected, long orders, long items, long payloadBytes, long rawBytes) {
+        static final BatchResult EMPTY = new BatchResult(0, 0, 0, 0, 0);
+
+        BatchResult plus(BatchResult other) {
+            return new BatchResult(selected + other.selected, orders + other.orders, items + other.items,
+                    payloadBytes + other.payloadBytes, rawBytes + other.rawBytes);
+        }
+    }
+
+    private static class Cursor {
+        private LocalDateTime createdAt;
+        private byte[] id;
+
+        static Cursor start() {
+            Cursor cursor = new Cursor();
+            cursor.advance(LocalDateTime.of(1970, 1, 1, 0, 0), new byte[16]);
+            return cursor;
+        }
+
+        void advance(LocalDateTime createdAt, byte[] id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package dev.CaoNguyen_1883.ecommerce.order.service;
+
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportFormat;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportJob;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportWriter;
+import dev.CaoNguyen_1883.ecommerce.common.export.JdbcStreamExporter;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderDto;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderItemDto;
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
+import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streaming export of orders (staff/admin), one row per order
+ *
+ * Rows are read through a forward-only cursor and written as they arrive, without paging,
+ * COUNT queries or entity hydration. Archived orders can be appended; their rows are rebuilt
+ * from the archived payload one at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderExportService {
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "order_number", "created_at", "user_id", "user_email", "user_full_name",
+            "order_status", "payment_status", "payment_method",
+            "subtotal", "shipping_fee", "tax", "discount", "total_amount", "item_count",
+            "shipping_recipient", "shipping_phone", "shipping_address", "shipping_ward",
+            "shipping_district", "shipping_city",
+            "confirmed_at", "shipped_at", "delivered_at", "cancelled_at");
+
+    private static final String SELECT_ORDERS_SQL = """
+            SELECT BIN_TO_UUID(o.id), o.order_number, o.created_at, BIN_TO_UUID(o.user_id), u.email, u.full_name,
+                   o.order_status, o.payment_status, o.payment_method,
+                   o.subtotal, o.shipping_fee, o.tax, o.discount, o.total_amount,
+                   (SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i WHERE i.order_id = o.id),
+                   o.shipping_recipient, o.shipping_phone, o.shipping_address, o.shipping_ward,
+                   o.shipping_district, o.shipping_city,
+                   o.confirmed_at, o.shipped_at, o.delivered_at, o.cancelled_at
+            FROM orders o
+            JOIN users u ON u.id = o.user_id
+            """;
+
+    private static final String SELECT_ARCHIVED_SQL = "SELECT a.payload FROM orders_archive a";
+
+    private final JdbcStreamExporter exporter;
+    private final OrderArchiveService orderArchiveService;
+
+    /**
+     * Export of orders matching the filters (all optional; dates bound created_at), oldest first,
+     * then archived orders if asked
+     */
+    public ExportJob export(ExportFormat format,
+                            LocalDateTime startDate, LocalDateTime endDate,
+                            OrderStatus orderStatus, PaymentStatus paymentStatus,
+                            boolean includeArchived) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new BadRequestException("End date must not be before start date");
+        }
+
+        Filter hot = Filter.of("o", startDate, endDate, orderStatus, paymentStatus);
+        Filter cold = Filter.of("a", startDate, endDate, orderStatus, paymentStatus);
+
+        return exporter.reserve(out -> {
+            long startedAt = System.currentTimeMillis();
+            ExportWriter writer = exporter.open(out, format, COLUMNS);
+
+            long rows = exporter.stream(writer, SELECT_ORDERS_SQL + hot.where() + " ORDER BY o.created_at, o.id",
+                    hot.args());
+            long archived = 0;
+            if (includeArchived) {
+                archived = exporter.stream(writer,
+                        (rs, rowNum) -> toRow(orderArchiveService.decodePayload(rs.getBytes(1))),
+                        SELECT_ARCHIVED_SQL + cold.where() + " ORDER BY a.created_at, a.id",
+                        cold.args());
+            }
+            writer.flush();
+
+            log.info("Exported {} orders and {} archived orders as {} in {} ms",
+                    rows, archived, format, System.currentTimeMillis() - startedAt);
+        });
+    }
+
+    // ===== HELPER METHODS =====
+
+    private static Object[] toRow(OrderDto order) {
+        int itemCount = order.getItems() == null ? 0 : order.getItems().stream()
+                .map(OrderItemDto::getQuantity)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .sum();
+        return new Object[]{
+                order.getId(), order.getOrderNumber(), order.getCreatedAt(), order.getUserId(),
+                order.getUserEmail(), order.getUserFullName(),
+                order.getOrderStatus(), order.getPaymentStatus(), order.getPaymentMethod(),
+                order.getSubtotal(), order.getShippingFee(), order.getTax(), order.getDiscount(),
+                order.getTotalAmount(), itemCount,
+                order.getShippingRecipient(), order.getShippingPhone(), order.getShippingAddress(),
+                order.getShippingWard(), order.getShippingDistrict(), order.getShippingCity(),
+                order.getConfirmedAt(), order.getShippedAt(), order.getDeliveredAt(), order.getCancelledAt()
+        };
+    }
+
+    /**
+     * WHERE clause over created_at/order_status/payment_status, which orders and orders_archive share
+     */
+    private record Filter(String where, Object[] args) {
+
+        static Filter of(String alias, LocalDateTime startDate, LocalDateTime endDate,
+                         OrderStatus orderStatus, PaymentStatus paymentStatus) {
+            List<String> conditions = new ArrayList<>();
+            List<Object> args = new ArrayList<>();
+            if (startDate != null) {
+                conditions.add(alias + ".created_at >= ?");
+                args.add(Timestamp.valueOf(startDate));
+            }
+            if (endDate != null) {
+                conditions.add(alias + ".created_at <= ?");
+                args.add(Timestamp.valueOf(endDate));
+            }
+            if (orderStatus != null) {
+                conditions.add(alias + ".order_status = ?");
+                args.add(orderStatus.name());
+            }
+            if (paymentStatus != null) {
+                conditions.add(alias + ".payment_status = ?");
+                args.add(paymentStatus.name());
+            }
+            String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+            return new Filter(where, args.toArray());
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package dev.CaoNguyen_1883.ecommerce.order.service;
+
+import dev.CaoNguyen_1883.ecommerce.order.entity.Order;
+import dev.CaoNguyen_1883.ecommerce.user.event.UserProfileChangedEvent;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Lookup index for the staff order search, kept in order_search_terms
+ *
+ * Every order gets prefixed terms: n: order number (also without the "ORD-" prefix), p: shipping
+ * phone digits, e: customer email, w: words and g: trigrams of recipient and customer names.
+ * Names are lower-cased and stripped of Vietnamese diacritics. A keyword matches by prefix on
+ * n/p/e/w (an index range scan on the term primary key) or, from three characters on, by having
+ * all of its trigrams. Terms are written with the order and rewritten when the customer's
+ * email or name changes.
+ */
+@Service
+@Slf4j
+public class OrderSearchIndexService {
+
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern NAME = Pattern.compile("[\\p{L} ]{3,}");
+
+    private static final String INSERT_TERM_SQL =
+            "INSERT IGNORE INTO order_search_terms (term, order_id, order_created_at) VALUES (?, ?, ?)";
+
+    private static final String DELETE_TERMS_SQL = "DELETE FROM order_search_terms WHERE order_id IN (:ids)";
+
+    private static final String SOURCE_SQL = """
+            SELECT o.id, o.order_number, o.shipping_phone, o.shipping_recipient, o.created_at, u.email, u.full_name
+            FROM orders o
+            JOIN users u ON u.id = o.user_id
+            """;
+
+    private static final String PREFIX_MATCH_SQL = """
+            SELECT order_id, MAX(order_created_at) AS created_at
+            FROM order_search_terms
+            WHERE %s
+            GROUP BY order_id
+            ORDER BY created_at DESC
+            LIMIT ?
+            """;
+
+    private static final String TRIGRAM_MATCH_SQL = """
+            SELECT order_id, MAX(order_created_at) AS created_at
+            FROM order_search_terms
+            WHERE term IN (:grams)
+            GROUP BY order_id
+            HAVING COUNT(*) = :count
+            ORDER BY created_at DESC
+            LIMIT :limit
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.order.search.max-results:500}")
+    private int maxResults;
+
+    @Value("${app.order.search.backfill-batch-size:500}")
+    private int backfillBatchSize;
+
+    public OrderSearchIndexService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        // Own transactions: the profile listener runs after the caller's transaction has committed
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Write the terms of a new order (inside its transaction)
+     */
+    public void index(Order order) {
+        LocalDateTime createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        write(List.of(new Source(order.getId(), order.getOrderNumber(), order.getShippingPhone(),
+                order.getShippingRecipient(), createdAt, order.getUser().getEmail(), order.getUser().getFullName())));
+    }
+
+    /**
+     * Ids of orders matching a keyword, newest first (at most max-results matches are considered)
+     */
+    public Page<UUID> search(String keyword, Pageable pageable) {
+        String normalized = normalize(keyword);
+        Map<UUID, LocalDateTime> matches = new HashMap<>();
+        prefixMatches(normalized, keyword).forEach(match -> matches.merge(match.orderId(), match.createdAt(), this::latest));
+        trigramMatches(normalized).forEach(match -> matches.merge(match.orderId(), match.createdAt(), this::latest));
+
+        List<UUID> sorted = matches.entrySet().stream()
+                .sorted(Map.Entry.<UUID, LocalDateTime>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .toList();
+
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+    }
+
+    /**
+     * Rewrite the terms of a user's orders once a changed email or name is committed
+     * Runs off the request thread, one new transaction per batch of orders
+     */
+    @Async("searchIndexExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserProfileChanged(UserProfileChangedEvent event) {
+        byte[] userId = UuidUtils.toBytes(event.userId());
+        byte[] after = new byte[16];
+        while (true) {
+            byte[] cursor = after;
+            List<Source> batch = jdbcTemplate.query(
+                    SOURCE_SQL + " WHERE o.user_id = ? AND o.id > ? ORDER BY o.id LIMIT ?",
+                    this::toSource, userId, cursor, backfillBatchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                namedJdbcTemplate.update(DELETE_TERMS_SQL,
+                        Map.of("ids", batch.stream().map(source -> UuidUtils.toBytes(source.orderId())).toList()));
+                write(batch);
+            });
+            after = UuidUtils.toBytes(batch.get(batch.size() - 1).orderId());
+        }
+    }
+
+    /**
+     * First start with the index: fill it from existing orders in keyset batches
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            Integer terms = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM order_search_terms LIMIT 1) t", Integer.class);
+            if (terms == null || terms > 0) {
+                return;
+            }
+
+            long orders = 0;
+            byte[] after = new byte[16];
+            while (true) {
+                List<Source> batch = jdbcTemplate.query(SOURCE_SQL + " WHERE o.id > ? ORDER BY o.id LIMIT ?",
+                        this::toSource, after, backfillBatchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+                orders += batch.size();
+                after = UuidUtils.toBytes(batch.get(batch.size() - 1).orderId());
+            }
+            if (orders > 0) {
+                log.info("Backfilled order search index for {} orders", orders);
+            }
+        } catch (Exception e) {
+            log.warn("Order search index backfill skipped: {}", e.getMessage());
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void write(List<Source> sources) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Source source : sources) {
+            byte[] orderId = UuidUtils.toBytes(source.orderId());
+            Timestamp createdAt = Timestamp.valueOf(source.createdAt());
+            for (String term : terms(source)) {
+                rows.add(new Object[]{term, orderId, createdAt});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TERM_SQL, rows);
+        }
+    }
+
+    private Set<String> terms(Source source) {
+        Set<String> terms = new LinkedHashSet<>();
+        String orderNumber = normalize(source.orderNumber());
+        if (!orderNumber.isEmpty()) {
+            terms.add(term("n:", orderNumber));
+            if (orderNumber.startsWith("ord-")) {
+                terms.add(term("n:", orderNumber.substring(4)));
+            }
+        }
+        String phone = digits(source.phone());
+        if (!phone.isEmpty()) {
+            terms.add(term("p:", phone));
+        }
+        String email = normalize(source.email());
+        if (!email.isEmpty()) {
+            terms.add(term("e:", email));
+        }
+        for (String name : List.of(normalize(source.recipient()), normalize(source.fullName()))) {
+            for (String word : SPACES.split(name)) {
+                if (!word.isEmpty()) {
+                    terms.add(term("w:", word));
+                }
+            }
+            terms.addAll(trigrams(name));
+        }
+        return terms;
+    }
+
+    private List<Match> prefixMatches(String normalized, String keyword) {
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        List<String> prefixes = new ArrayList<>(List.of("n:" + normalized, "e:" + normalized, "w:" + normalized));
+        String phone = digits(keyword);
+        if (phone.length() >= 3 && phone.length() == keyword.replaceAll("[\\s.+-]", "").length()) {
+            prefixes.add("p:" + phone);
+        }
+
+        String where = String.join(" OR ", Collections.nCopies(prefixes.size(), "term LIKE ? ESCAPE '!'"));
+        List<Object> args = new ArrayList<>();
+        prefixes.forEach(prefix -> args.add(escapeLike(truncate(prefix)) + "%"));
+        args.add(maxResults);
+        return jdbcTemplate.query(PREFIX_MATCH_SQL.formatted(where), this::toMatch, args.toArray());
+    }
+
+    private List<Match> trigramMatches(String normalized) {
+        // Names only: emails, phones and order numbers are served by prefixes, and their
+        // trigrams would walk long posting lists for nothing
+        if (!NAME.matcher(normalized).matches()) {
+            return List.of();
+        }
+        Set<String> grams = trigrams(normalized);
+        if (grams.isEmpty()) {
+            return List.of();
+        }
+        return namedJdbcTemplate.query(TRIGRAM_MATCH_SQL,
+                Map.of("grams", grams, "count", grams.size(), "limit", maxResults), this::toMatch);
+    }
+
+    private Set<String> trigrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add("g:" + text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT).trim())
+                .replaceAll(" ");
+    }
+
+    private String digits(String value) {
+        return value == null ? "" : value.replaceAll("\\D", "");
+    }
+
+    private String term(String kind, String value) {
+        return truncate(kind + value);
+    }
+
+    private String truncate(String term) {
+        return term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term;
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private Match toMatch(ResultSet rs, int rowNum) throws SQLException {
+        return new Match(UuidUtils.fromBytes(rs.getBytes("order_id")), rs.getTimestamp("created_at").toLocalDateTime());
+    }
+
+    private Source toSource(ResultSet rs, int rowNum) throws SQLException {
+        return new Source(UuidUtils.fromBytes(rs.getBytes("id")), rs.getString("order_number"),
+                rs.getString("shipping_phone"), rs.getString("shipping_recipient"),
+                rs.getTimestamp("created_at").toLocalDateTime(), rs.getString("email"), rs.getString("full_name"));
+    }
+
+    private record Source(UUID orderId, String orderNumber, String phone, String recipient,
+                          LocalDateTime createdAt, String email, String fullName) {
+    }
+
+    private record Match(UUID orderId, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,402 @@
+package dev.CaoNguyen_1883.ecommerce.order.service;
+
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.order.dto.RevenueRollupReport;
+import dev.CaoNguyen_1883.ecommerce.order.dto.RevenueSummary;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderTransitionBatchEvent;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderTransitionEvent;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hourly and daily revenue rollups (delivered and paid orders, bucketed by delivered_at)
+ *
+ * Buckets move in the transaction of the order transition that makes an order count (or stop
+ * counting) as revenue. A range is answered from daily buckets for whole days, hourly buckets
+ * for whole hours and an indexed scan of orders for the partial hours at both edges.
+ * Archived orders (orders_archive) are read alongside orders wherever orders are scanned.
+ * The rebuild job recomputes day by day; each day locks its daily row first, the same order the
+ * incremental path uses, so transitions committed meanwhile are neither lost nor counted twice.
+ */
+@Service
+@Slf4j
+public class RevenueRollupService {
+
+    private static final String UPSERT_DAILY_SQL = """
+            INSERT INTO revenue_rollups_daily (bucket_date, revenue, order_count, item_count, updated_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                revenue = revenue + VALUES(revenue),
+                order_count = order_count + VALUES(order_count),
+                item_count = item_count + VALUES(item_count),
+                updated_at = VALUES(updated_at)
+            """;
+
+    private static final String UPSERT_HOURLY_SQL = """
+            INSERT INTO revenue_rollups_hourly (bucket_start, revenue, order_count, item_count, updated_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                revenue = revenue + VALUES(revenue),
+                order_count = order_count + VALUES(order_count),
+                item_count = item_count + VALUES(item_count),
+                updated_at = VALUES(updated_at)
+            """;
+
+    private static final String ITEM_COUNT_SQL =
+            "SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE order_id = ?";
+
+    private static final String ITEM_COUNTS_SQL =
+            "SELECT order_id, SUM(quantity) FROM order_items WHERE order_id IN (:ids) GROUP BY order_id";
+
+    // Per-hour totals of one day, straight from orders and archived orders (both indexed on delivered_at)
+    private static final String DAY_BY_HOUR_SQL = """
+            SELECT HOUR(t.delivered_at) AS bucket_hour, SUM(t.total_amount), COUNT(*), SUM(t.items)
+            FROM (
+                SELECT o.delivered_at, o.total_amount,
+                       (SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i WHERE i.order_id = o.id) AS items
+                FROM orders o
+                WHERE o.delivered_at >= ? AND o.delivered_at < ?
+                  AND o.order_status = 'DELIVERED' AND o.payment_status = 'PAID'
+                UNION ALL
+                SELECT a.delivered_at, a.total_amount, a.item_count
+                FROM orders_archive a
+                WHERE a.delivered_at >= ? AND a.delivered_at < ?
+                  AND a.order_status = 'DELIVERED' AND a.payment_status = 'PAID'
+            ) t
+            GROUP BY bucket_hour
+            """;
+
+    private static final String EDGE_SQL = """
+            SELECT COALESCE(SUM(t.total_amount), 0), COUNT(*), COALESCE(SUM(t.items), 0)
+            FROM (
+                SELECT o.total_amount,
+                       (SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i WHERE i.order_id = o.id) AS items
+                FROM orders o
+                WHERE o.delivered_at >= ? AND o.delivered_at %1$s ?
+                  AND o.order_status = 'DELIVERED' AND o.payment_status = 'PAID'
+                UNION ALL
+                SELECT a.total_amount, a.item_count
+                FROM orders_archive a
+                WHERE a.delivered_at >= ? AND a.delivered_at %1$s ?
+                  AND a.order_status = 'DELIVERED' AND a.payment_status = 'PAID'
+            ) t
+            """;
+
+    private static final String SUM_HOURLY_SQL = """
+            SELECT COALESCE(SUM(revenue), 0), COALESCE(SUM(order_count), 0), COALESCE(SUM(item_count), 0)
+            FROM revenue_rollups_hourly
+            WHERE bucket_start >= ? AND bucket_start < ?
+            """;
+
+    private static final String SUM_DAILY_SQL = """
+            SELECT COALESCE(SUM(revenue), 0), COALESCE(SUM(order_count), 0), COALESCE(SUM(item_count), 0)
+            FROM revenue_rollups_daily
+            WHERE bucket_date >= ? AND bucket_date < ?
+            """;
+
+    private static final String FIRST_DELIVERY_SQL = """
+            SELECT MIN(t.first_delivery)
+            FROM (
+                SELECT MIN(delivered_at) AS first_delivery FROM orders
+                WHERE order_status = 'DELIVERED' AND payment_status = 'PAID'
+                UNION ALL
+                SELECT MIN(delivered_at) FROM orders_archive
+                WHERE order_status = 'DELIVERED' AND payment_status = 'PAID'
+            ) t
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.order.revenue-rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public RevenueRollupService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Move the buckets of an order that became (or stopped being) revenue
+     * Runs just before the transition commits, inside its transaction
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransition(OrderTransitionEvent event) {
+        int sign = event.revenueDelta();
+        if (sign == 0) {
+            return;
+        }
+        if (event.deliveredAt() == null) {
+            log.warn("Order {} counts as revenue without a delivery time, not rolled up", event.orderId());
+            return;
+        }
+
+        long items = Objects.requireNonNull(jdbcTemplate.queryForObject(
+                ITEM_COUNT_SQL, Long.class, UuidUtils.toBytes(event.orderId())));
+        BigDecimal amount = event.totalAmount().multiply(BigDecimal.valueOf(sign));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // Daily row first: same lock order as rebuildDay
+        jdbcTemplate.update(UPSERT_DAILY_SQL, Date.valueOf(event.deliveredAt().toLocalDate()),
+                amount, sign, sign * items, now);
+        jdbcTemplate.update(UPSERT_HOURLY_SQL, Timestamp.valueOf(event.deliveredAt().truncatedTo(ChronoUnit.HOURS)),
+                amount, sign, sign * items, now);
+    }
+
+    /**
+     * Bulk status update: the same as onTransition for every order, summed per bucket first
+     * Daily rows are taken in date order before any hourly row, so concurrent updates cannot deadlock
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransitions(OrderTransitionBatchEvent batch) {
+        List<OrderTransitionEvent> moves = new ArrayList<>();
+        for (OrderTransitionEvent event : batch.transitions()) {
+            if (event.revenueDelta() == 0) {
+                continue;
+            }
+            if (event.deliveredAt() == null) {
+                log.warn("Order {} counts as revenue without a delivery time, not rolled up", event.orderId());
+                continue;
+            }
+            moves.add(event);
+        }
+        if (moves.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Long> items = new HashMap<>();
+        namedJdbcTemplate.query(ITEM_COUNTS_SQL,
+                Map.of("ids", moves.stream().map(event -> UuidUtils.toBytes(event.orderId())).toList()),
+                (ResultSet rs) -> {
+                    items.put(UuidUtils.fromBytes(rs.getBytes(1)), rs.getLong(2));
+                });
+
+        Map<LocalDate, Totals> days = new TreeMap<>();
+        Map<LocalDateTime, Totals> hours = new TreeMap<>();
+        for (OrderTransitionEvent event : moves) {
+            int sign = event.revenueDelta();
+            Totals delta = new Totals(event.totalAmount().multiply(BigDecimal.valueOf(sign)), sign,
+                    sign * items.getOrDefault(event.orderId(), 0L));
+            days.merge(event.deliveredAt().toLocalDate(), delta, Totals::plus);
+            hours.merge(event.deliveredAt().truncatedTo(ChronoUnit.HOURS), delta, Totals::plus);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, days.entrySet().stream()
+                .map(day -> new Object[]{Date.valueOf(day.getKey()),
+                        day.getValue().revenue(), day.getValue().orders(), day.getValue().items(), now})
+                .toList());
+        jdbcTemplate.batchUpdate(UPSERT_HOURLY_SQL, hours.entrySet().stream()
+                .map(hour -> new Object[]{Timestamp.valueOf(hour.getKey()),
+                        hour.getValue().revenue(), hour.getValue().orders(), hour.getValue().items(), now})
+                .toList());
+    }
+
+    /**
+     * Revenue, orders and items delivered within [startDate, endDate]
+     */
+    public RevenueSummary summarize(LocalDateTime startDate, LocalDateTime endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new BadRequestException("End date must not be before start date");
+        }
+
+        LocalDateTime firstHour = ceil(startDate, ChronoUnit.HOURS);
+        LocalDateTime lastHour = endDate.truncatedTo(ChronoUnit.HOURS);
+
+        Totals totals;
+        if (!firstHour.isBefore(lastHour)) {
+            // Less than one whole hour: scan orders directly
+            totals = edge(startDate, endDate, true);
+        } else {
+            totals = edge(startDate, firstHour, false)
+                    .plus(buckets(firstHour, lastHour))
+                    .plus(edge(lastHour, endDate, true));
+        }
+
+        return RevenueSummary.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .revenue(totals.revenue())
+                .orderCount(totals.orders())
+                .itemCount(totals.items())
+                .build();
+    }
+
+    /**
+     * Recompute the buckets of [fromDate, toDate] from orders; nulls mean first delivery .. today
+     */
+    public RevenueRollupReport rebuild(LocalDate fromDate, LocalDate toDate) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new BadRequestException("Revenue rollup rebuild is already running");
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDate from = fromDate != null ? fromDate : firstDeliveryDate();
+            LocalDate to = toDate != null ? toDate : LocalDate.now();
+            if (from == null) {
+                from = to;
+            }
+            if (to.isBefore(from)) {
+                throw new BadRequestException("End date must not be before start date");
+            }
+
+            log.info("Rebuilding revenue rollups from {} to {}", from, to);
+
+            int days = 0;
+            long orders = 0;
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                LocalDate current = day;
+                orders += Objects.requireNonNull(transactionTemplate.execute(status -> rebuildDay(current)));
+                days++;
+            }
+
+            log.info("Revenue rollups rebuilt: {} days, {} orders", days, orders);
+
+            return RevenueRollupReport.builder()
+                    .startedAt(startedAt)
+                    .finishedAt(LocalDateTime.now())
+                    .fromDate(from)
+                    .toDate(to)
+                    .daysRebuilt(days)
+                    .ordersCounted(orders)
+                    .build();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * First start with rollups: fill them from existing orders
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_rollups_daily", Integer.class);
+            if (rows != null && rows == 0 && firstDeliveryDate() != null) {
+                rebuild(null, null);
+            }
+        } catch (Exception e) {
+            log.warn("Revenue rollup backfill skipped: {}", e.getMessage());
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Rebuild one day; the caller's transaction is held for the day only
+     */
+    private long rebuildDay(LocalDate day) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date bucketDate = Date.valueOf(day);
+
+        // Lock (creating if needed) the daily row before reading orders: concurrent transitions
+        // wait on it and apply their delta on top of the recomputed figures
+        jdbcTemplate.update(UPSERT_DAILY_SQL, bucketDate, BigDecimal.ZERO, 0, 0, now);
+
+        LocalDateTime start = day.atStartOfDay();
+        List<Object[]> hours = new ArrayList<>();
+        Totals[] dayTotals = {Totals.ZERO};
+        jdbcTemplate.query(DAY_BY_HOUR_SQL, rs -> {
+            Totals hour = new Totals(rs.getBigDecimal(2), rs.getLong(3), rs.getLong(4));
+            dayTotals[0] = dayTotals[0].plus(hour);
+            hours.add(new Object[]{Timestamp.valueOf(start.plusHours(rs.getInt(1))),
+                    hour.revenue(), hour.orders(), hour.items(), now});
+        }, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)),
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)));
+
+        jdbcTemplate.update("DELETE FROM revenue_rollups_hourly WHERE bucket_start >= ? AND bucket_start < ?",
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)));
+        if (!hours.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_HOURLY_SQL, hours);
+        }
+
+        Totals total = dayTotals[0];
+        if (total.orders() == 0) {
+            jdbcTemplate.update("DELETE FROM revenue_rollups_daily WHERE bucket_date = ?", bucketDate);
+        } else {
+            jdbcTemplate.update(
+                    "UPDATE revenue_rollups_daily SET revenue = ?, order_count = ?, item_count = ?, updated_at = ? WHERE bucket_date = ?",
+                    total.revenue(), total.orders(), total.items(), now, bucketDate);
+        }
+        return total.orders();
+    }
+
+    /**
+     * Whole hours [from, to): daily buckets for the whole days inside, hourly buckets around them
+     */
+    private Totals buckets(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime firstDay = ceil(from, ChronoUnit.DAYS);
+        LocalDateTime lastDay = to.truncatedTo(ChronoUnit.DAYS);
+        if (!firstDay.isBefore(lastDay)) {
+            return sum(SUM_HOURLY_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        }
+        return sum(SUM_HOURLY_SQL, Timestamp.valueOf(from), Timestamp.valueOf(firstDay))
+                .plus(sum(SUM_DAILY_SQL, Date.valueOf(firstDay.toLocalDate()), Date.valueOf(lastDay.toLocalDate())))
+                .plus(sum(SUM_HOURLY_SQL, Timestamp.valueOf(lastDay), Timestamp.valueOf(to)));
+    }
+
+    /**
+     * Orders delivered in [from, to) or [from, to] (less than an hour), read from orders
+     */
+    private Totals edge(LocalDateTime from, LocalDateTime to, boolean inclusive) {
+        if (to.isBefore(from) || (!inclusive && !from.isBefore(to))) {
+            return Totals.ZERO;
+        }
+        return sum(EDGE_SQL.formatted(inclusive ? "<=" : "<"),
+                Timestamp.valueOf(from), Timestamp.valueOf(to), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    private Totals sum(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql,
+                (rs, rowNum) -> new Totals(rs.getBigDecimal(1), rs.getLong(2), rs.getLong(3)), args);
+    }
+
+    private LocalDate firstDeliveryDate() {
+        Timestamp first = jdbcTemplate.queryForObject(FIRST_DELIVERY_SQL, Timestamp.class);
+        return first != null ? first.toLocalDateTime().toLocalDate() : null;
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+
+    private record Totals(BigDecimal revenue, long orders, long items) {
+        static final Totals ZERO = new Totals(BigDecimal.ZERO, 0, 0);
+
+        Totals plus(Totals other) {
+            return new Totals(revenue.add(other.revenue), orders + other.orders, items + other.items);
+        }
+    }
+}
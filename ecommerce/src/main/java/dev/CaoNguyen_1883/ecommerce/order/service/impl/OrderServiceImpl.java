@@ -1,42 +1,59 @@
 package dev.CaoNguyen_1883.ecommerce.order.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import dev.CaoNguyen_1883.ecommerce.cart.entity.Cart;
-import dev.CaoNguyen_1883.ecommerce.cart.entity.CartItem;
-import dev.CaoNguyen_1883.ecommerce.cart.repository.CartRepository;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartLine;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartSnapshot;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartStore;
+import dev.CaoNguyen_1883.ecommerce.cart.service.CartReservationService;
 import dev.CaoNguyen_1883.ecommerce.cart.service.ICartService;
 import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ForbiddenException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxPublisher;
+import dev.CaoNguyen_1883.ecommerce.order.component.OrderNumberAllocator;
+import dev.CaoNguyen_1883.ecommerce.order.component.OrderStatsCounters;
 import dev.CaoNguyen_1883.ecommerce.order.dto.*;
 import dev.CaoNguyen_1883.ecommerce.order.entity.Order;
 import dev.CaoNguyen_1883.ecommerce.order.entity.OrderItem;
 import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
+import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentMethod;
 import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentStatus;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderCancelledEvent;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderPlacedEvent;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderTransitionBatchEvent;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderTransitionEvent;
 import dev.CaoNguyen_1883.ecommerce.order.mapper.OrderMapper;
 import dev.CaoNguyen_1883.ecommerce.order.repository.OrderItemRepository;
 import dev.CaoNguyen_1883.ecommerce.order.repository.OrderRepository;
 import dev.CaoNguyen_1883.ecommerce.order.service.IOrderService;
+import dev.CaoNguyen_1883.ecommerce.order.service.OrderArchiveService;
+import dev.CaoNguyen_1883.ecommerce.order.service.OrderSearchIndexService;
+import dev.CaoNguyen_1883.ecommerce.order.service.RevenueRollupService;
+import dev.CaoNguyen_1883.ecommerce.product.component.ProductSnapshotCache;
 import dev.CaoNguyen_1883.ecommerce.product.entity.Product;
 import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
 import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.product.service.IStockReservationService;
 import dev.CaoNguyen_1883.ecommerce.user.entity.User;
 import dev.CaoNguyen_1883.ecommerce.user.repository.UserRepository;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -46,50 +63,96 @@ public class OrderServiceImpl implements IOrderService {
 
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final CartRepository cartRepository;
     private final UserRepository userRepository;
     private final ProductVariantRepository variantRepository;
+    private final IStockReservationService stockReservationService;
+    private final CartStore cartStore;
+    private final CartReservationService reservationService;
     private final ICartService cartService;
     private final OrderMapper orderMapper;
-    private final ObjectMapper objectMapper;
-
-    // Thread-safe counter for order number generation
-    private static final AtomicLong orderCounter = new AtomicLong(0);
+    private final ProductSnapshotCache productSnapshotCache;
+    private final OrderNumberAllocator orderNumberAllocator;
+    private final OutboxPublisher outboxPublisher;
+    private final OrderStatsCounters orderStatsCounters;
+    private final RevenueRollupService revenueRollupService;
+    private final OrderSearchIndexService orderSearchIndexService;
+    private final OrderArchiveService orderArchiveService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderDto createOrderFromCart(UUID userId, CreateOrderRequest request) {
         log.debug("Creating order from cart for user: {}", userId);
 
+        // Numbered before the order transaction starts, so a block refill never needs a second pool connection
+        String orderNumber = orderNumberAllocator.nextOrderNumber();
+        return transactionTemplate.execute(status -> placeOrder(userId, request, orderNumber));
+    }
+
+    /**
+     * Checkout body, in the transaction started by createOrderFromCart
+     */
+    private OrderDto placeOrder(UUID userId, CreateOrderRequest request, String orderNumber) {
         // Get user
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
-        // Get cart with items
-        Cart cart = cartRepository.findByUserIdWithItems(userId)
-                .orElseThrow(() -> new BadRequestException("Cart is empty"));
+        // Claim the cart so a second checkout of the same lines (double click, second tab) is refused;
+        // the claim ends once the ordered lines are out of the cart, or on rollback
+        UUID checkoutToken = UUID.randomUUID();
+        List<UUID> orderedItemIds = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    try {
+                        cartService.clearCartAfterCheckout(userId, orderedItemIds);
+                    } catch (RuntimeException e) {
+                        // Lines stay claimed until CheckoutCartCleaner removes them or the claim expires
+                        log.warn("Deferred cart clearing of user {} to the outbox: {}", userId, e.getMessage());
+                        return;
+                    }
+                }
+                cartStore.releaseCheckout(userId, checkoutToken);
+            }
+        });
+
+        // Pin the cart for checkout: live reservations are extended so the expiry job cannot release them mid-order
+        CartSnapshot cart = cartStore.claimCheckout(userId, checkoutToken, state -> {
+            LocalDateTime expiresAt = reservationService.newExpiry();
+            for (CartLine line : state.lines()) {
+                if (line.hasLiveReservation()) {
+                    CartLine extended = line.withReservationExpiresAt(expiresAt);
+                    state.put(extended);
+                    reservationService.track(userId, extended);
+                }
+            }
+            return state.snapshot();
+        });
 
-        if (cart.getItems().isEmpty()) {
+        if (cart.isEmpty()) {
             throw new BadRequestException("Cart is empty. Cannot create order.");
         }
 
+        // Load all variants in one query
+        Map<UUID, ProductVariant> variants = variantRepository.findAllByIdWithProduct(
+                        cart.lines().stream().map(CartLine::variantId).toList()).stream()
+                .collect(Collectors.toMap(ProductVariant::getId, Function.identity()));
+
         // Validate all items are still available
-        for (CartItem cartItem : cart.getItems()) {
-            ProductVariant variant = cartItem.getVariant();
-            
-            if (!variant.getIsActive() || !variant.getProduct().getIsActive()) {
-                throw new BadRequestException("Product '" + variant.getProduct().getName() + "' is no longer available");
-            }
+        for (CartLine line : cart.lines()) {
+            ProductVariant variant = variants.get(line.variantId());
 
-            if (variant.getAvailableStock() < cartItem.getQuantity()) {
-                throw new BadRequestException("Insufficient stock for product: " + variant.getProduct().getName());
+            if (variant == null || !variant.getIsActive() || !variant.getProduct().getIsActive()) {
+                throw new BadRequestException("Product '" + line.productName() + "' is no longer available");
             }
         }
 
         // Create order
         Order order = Order.builder()
                 .user(user)
-                .orderNumber(generateOrderNumber())
+                .orderNumber(orderNumber)
                 .paymentMethod(request.getPaymentMethod())
                 .shippingAddress(request.getShippingAddress())
                 .shippingCity(request.getShippingCity())
@@ -111,13 +174,16 @@ public class OrderServiceImpl implements IOrderService {
 
         // Convert cart items to order items
         BigDecimal subtotal = BigDecimal.ZERO;
+        Map<UUID, Integer> reservedQuantities = new HashMap<>();
+        Map<UUID, Integer> unreservedQuantities = new HashMap<>();
+        List<OrderPlacedEvent.Item> placedItems = new ArrayList<>(cart.lines().size());
 
-        for (CartItem cartItem : cart.getItems()) {
-            ProductVariant variant = cartItem.getVariant();
+        for (CartLine line : cart.lines()) {
+            ProductVariant variant = variants.get(line.variantId());
             Product product = variant.getProduct();
 
-            // Create product snapshot
-            String productSnapshot = createProductSnapshot(product, variant);
+            // Product snapshot JSON, built once per variant version
+            String productSnapshot = productSnapshotCache.snapshot(variant);
 
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
@@ -125,21 +191,29 @@ public class OrderServiceImpl implements IOrderService {
                     .productName(product.getName())
                     .variantSku(variant.getSku())
                     .variantName(variant.getName())
-                    .productImage(getPrimaryImageUrl(variant))
+                    .productImage(line.primaryImage())
                     .productSnapshot(productSnapshot)
-                    .quantity(cartItem.getQuantity())
-                    .price(cartItem.getPriceAtAdd())
-                    .subtotal(cartItem.getSubtotal())
+                    .quantity(line.quantity())
+                    .price(line.priceAtAdd())
+                    .subtotal(line.subtotal())
                     .build();
 
             order.addItem(orderItem);
             subtotal = subtotal.add(orderItem.getSubtotal());
 
-            // Decrease stock (convert reserved to sold)
-            variant.decreaseStock(cartItem.getQuantity());
+            // Live reservations already hold their stock, expired ones must take it from free stock
+            (line.hasLiveReservation() ? reservedQuantities : unreservedQuantities)
+                    .merge(variant.getId(), line.quantity(), Integer::sum);
+            placedItems.add(new OrderPlacedEvent.Item(
+                    product.getId(), variant.getId(), line.itemId(), line.quantity(), line.priceAtAdd()));
+        }
 
-            // Update product purchase count for recommendation system
-            product.setPurchaseCount(product.getPurchaseCount() + cartItem.getQuantity());
+        // Stock stage: lock all variants in id order, validate and decrement in bulk
+        // Locks are held until the order commits; the whole order rolls back on failure
+        Set<UUID> shortVariants = stockReservationService.commitAll(reservedQuantities, unreservedQuantities);
+        if (!shortVariants.isEmpty()) {
+            ProductVariant variant = variants.get(shortVariants.iterator().next());
+            throw new BadRequestException("Insufficient stock for product: " + variant.getProduct().getName());
         }
 
         // Calculate totals
@@ -149,13 +223,16 @@ public class OrderServiceImpl implements IOrderService {
         // Save order
         order = orderRepository.save(order);
 
-        // Save variants with updated stock
-        for (CartItem cartItem : cart.getItems()) {
-            variantRepository.save(cartItem.getVariant());
-        }
+        orderSearchIndexService.index(order);
+        publishTransition(order, null, null);
 
-        // Clear cart
-        cartService.clearCart(userId);
+        // Purchase and co-purchase counters, cart clearing and other non-critical work run from the outbox after commit
+        outboxPublisher.publish(OrderPlacedEvent.TYPE, order.getId(), new OrderPlacedEvent(
+                order.getId(), order.getOrderNumber(), userId, order.getTotalAmount(),
+                LocalDateTime.now(), placedItems));
+
+        // Cleared right after commit, before the claim ends; CheckoutCartCleaner repeats it from the outbox if lost
+        cart.lines().forEach(line -> orderedItemIds.add(line.itemId()));
 
         log.info("Order created successfully. Order number: {}, User: {}, Total: {}",
                 order.getOrderNumber(), userId, order.getTotalAmount());
@@ -167,76 +244,88 @@ public class OrderServiceImpl implements IOrderService {
     public OrderDto getOrderById(UUID orderId) {
         log.debug("Fetching order by ID: {}", orderId);
 
-        Order order = orderRepository.findByIdWithDetails(orderId)
+        return orderRepository.findByIdWithDetails(orderId)
+                .map(orderMapper::toDto)
+                .or(() -> orderArchiveService.findById(orderId))
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
-
-        return orderMapper.toDto(order);
     }
 
     @Override
     public OrderDto getOrderByOrderNumber(String orderNumber) {
         log.debug("Fetching order by order number: {}", orderNumber);
 
-        Order order = orderRepository.findByOrderNumberWithDetails(orderNumber)
+        return orderRepository.findByOrderNumberWithDetails(orderNumber)
+                .map(orderMapper::toDto)
+                .or(() -> orderArchiveService.findByOrderNumber(orderNumber))
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "orderNumber", orderNumber));
-
-        return orderMapper.toDto(order);
     }
 
     @Override
     public Page<OrderDto> getUserOrders(UUID userId, Pageable pageable) {
         log.debug("Fetching orders for user: {}", userId);
 
-        return orderRepository.findByUserId(userId, pageable)
-                .map(orderMapper::toDto);
+        // Hot orders first, then archived ones (older, completed) continue the same page sequence
+        Page<UUID> hot = orderRepository.findIdsByUserId(userId, pageable);
+        long hotTotal = hot.getTotalElements();
+        long end = pageable.getOffset() + pageable.getPageSize();
+        if (end <= hotTotal) {
+            return toDtoPage(hot);
+        }
+
+        long archivedTotal = orderArchiveService.countByUser(userId);
+        List<OrderDto> content = new ArrayList<>(toDtoPage(hot).getContent());
+        int remaining = pageable.getPageSize() - content.size();
+        if (remaining > 0 && archivedTotal > 0) {
+            long archiveOffset = Math.max(0, pageable.getOffset() - hotTotal);
+            content.addAll(orderArchiveService.findByUser(userId, archiveOffset, remaining));
+        }
+        return new PageImpl<>(content, pageable, hotTotal + archivedTotal);
     }
 
     @Override
     public Page<OrderDto> getAllOrders(Pageable pageable) {
         log.debug("Fetching all orders");
 
-        return orderRepository.findAll(pageable)
-                .map(orderMapper::toDto);
+        return toDtoPage(orderRepository.findPageIds(pageable));
     }
 
     @Override
     public Page<OrderDto> getOrdersByStatus(OrderStatus status, Pageable pageable) {
         log.debug("Fetching orders by status: {}", status);
 
-        return orderRepository.findByOrderStatus(status, pageable)
-                .map(orderMapper::toDto);
+        return toDtoPage(orderRepository.findIdsByOrderStatus(status, pageable));
     }
 
     @Override
     public Page<OrderDto> getOrdersByPaymentStatus(PaymentStatus status, Pageable pageable) {
         log.debug("Fetching orders by payment status: {}", status);
 
-        return orderRepository.findByPaymentStatus(status, pageable)
-                .map(orderMapper::toDto);
+        return toDtoPage(orderRepository.findIdsByPaymentStatus(status, pageable));
     }
 
     @Override
     public Page<OrderDto> getPendingOrders(Pageable pageable) {
         log.debug("Fetching pending orders");
 
-        return orderRepository.findPendingOrders(pageable)
-                .map(orderMapper::toDto);
+        return toDtoPage(orderRepository.findPendingOrderIds(pageable));
     }
 
     @Override
     public Page<OrderDto> searchOrders(String keyword, Pageable pageable) {
         log.debug("Searching orders with keyword: {}", keyword);
 
-        return orderRepository.searchOrders(keyword, pageable)
-                .map(orderMapper::toDto);
+        if (keyword == null || keyword.isBlank()) {
+            return toDtoPage(orderRepository.findPageIds(pageable));
+        }
+        // Answered from order_search_terms instead of LIKE scans over orders and users
+        return toDtoPage(orderSearchIndexService.search(keyword, pageable));
     }
 
     @Override
     public Page<OrderDto> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable) {
         log.debug("Fetching orders by date range: {} to {}", startDate, endDate);
 
-        return orderRepository.findByDateRange(startDate, endDate, pageable)
-                .map(orderMapper::toDto);
+        return toDtoPage(orderRepository.findIdsByDateRange(startDate, endDate, pageable));
     }
 
     @Override
@@ -250,8 +339,11 @@ public class OrderServiceImpl implements IOrderService {
         User confirmedByUser = userRepository.findById(confirmedBy)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", confirmedBy));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
         order.confirm(confirmedByUser);
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
 
         log.info("Order confirmed. Order number: {}, Confirmed by: {}",
                 order.getOrderNumber(), confirmedByUser.getEmail());
@@ -267,8 +359,11 @@ public class OrderServiceImpl implements IOrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
         order.markAsProcessing();
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
 
         log.info("Order marked as processing. Order number: {}", order.getOrderNumber());
 
@@ -283,8 +378,11 @@ public class OrderServiceImpl implements IOrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
         order.ship();
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
 
         log.info("Order shipped. Order number: {}", order.getOrderNumber());
 
@@ -299,8 +397,11 @@ public class OrderServiceImpl implements IOrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
         order.deliver();
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
 
         log.info("Order delivered. Order number: {}", order.getOrderNumber());
 
@@ -318,21 +419,29 @@ public class OrderServiceImpl implements IOrderService {
         User cancelledByUser = userRepository.findById(cancelledBy)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", cancelledBy));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
+
         // Release stock back
         for (OrderItem item : order.getItems()) {
             if (item.getVariant() != null) {
                 ProductVariant variant = item.getVariant();
-                variant.increaseStock(item.getQuantity());
-                variantRepository.save(variant);
-
-                // Decrease purchase count
-                Product product = variant.getProduct();
-                product.setPurchaseCount(Math.max(0, product.getPurchaseCount() - item.getQuantity()));
+                stockReservationService.restock(variant.getId(), item.getQuantity());
             }
         }
 
         order.cancel(request.getReason(), cancelledByUser);
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
+
+        // Purchase and co-purchase counts are taken back from the outbox, like they were added
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        order.getItems().stream()
+                .filter(item -> item.getVariant() != null)
+                .forEach(item -> quantities.merge(item.getVariant().getProduct().getId(), item.getQuantity(), Integer::sum));
+        outboxPublisher.publish(OrderCancelledEvent.TYPE, order.getId(), new OrderCancelledEvent(
+                order.getId(), order.getOrderNumber(), order.getCancelledAt(),
+                List.copyOf(quantities.keySet()), quantities));
 
         log.info("Order cancelled. Order number: {}, Cancelled by: {}, Reason: {}",
                 order.getOrderNumber(), cancelledByUser.getEmail(), request.getReason());
@@ -351,6 +460,9 @@ public class OrderServiceImpl implements IOrderService {
         User updatedByUser = userRepository.findById(updatedBy)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", updatedBy));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
+
         // Update status based on request
         switch (request.getStatus()) {
             case CONFIRMED:
@@ -376,6 +488,7 @@ public class OrderServiceImpl implements IOrderService {
         }
 
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
 
         log.info("Order status updated. Order number: {}, New status: {}",
                 order.getOrderNumber(), request.getStatus());
@@ -383,6 +496,94 @@ public class OrderServiceImpl implements IOrderService {
         return orderMapper.toDto(order);
     }
 
+    @Override
+    @Transactional
+    public BulkOrderStatusResult bulkUpdateOrderStatus(BulkOrderStatusRequest request, UUID updatedBy) {
+        OrderStatus target = request.getStatus();
+        log.debug("Bulk updating {} orders to {}", request.getOrderIds().size(), target);
+
+        if (target == OrderStatus.CANCELLED) {
+            throw new BadRequestException("Use cancel order endpoint to cancel order");
+        }
+        Set<OrderStatus> sources = Order.transitionSources(target);
+        if (sources.isEmpty()) {
+            throw new BadRequestException("Invalid order status");
+        }
+
+        User updatedByUser = userRepository.findById(updatedBy)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", updatedBy));
+
+        // One locking read validates every order; the rows stay locked until the updates commit
+        List<UUID> orderIds = request.getOrderIds().stream().distinct().toList();
+        Map<UUID, Object[]> rows = orderRepository.lockStatusRows(orderIds.stream().map(UuidUtils::toBytes).toList())
+                .stream()
+                .collect(Collectors.toMap(row -> UuidUtils.fromBytes((byte[]) row[0]), Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> legal = new ArrayList<>();
+        List<OrderTransitionEvent> transitions = new ArrayList<>();
+        List<OrderStatusChange> results = new ArrayList<>(orderIds.size());
+
+        for (UUID orderId : orderIds) {
+            Object[] row = rows.get(orderId);
+            if (row == null) {
+                results.add(OrderStatusChange.builder()
+                        .orderId(orderId).success(false).message("Order not found").build());
+                continue;
+            }
+
+            String orderNumber = (String) row[1];
+            OrderStatus fromStatus = OrderStatus.valueOf((String) row[2]);
+            PaymentStatus fromPayment = PaymentStatus.valueOf((String) row[3]);
+            if (!sources.contains(fromStatus)) {
+                results.add(OrderStatusChange.builder()
+                        .orderId(orderId).orderNumber(orderNumber).fromStatus(fromStatus).success(false)
+                        .message("Cannot move order in status " + fromStatus + " to " + target).build());
+                continue;
+            }
+
+            // Same payment rule as Order.deliver()
+            PaymentStatus toPayment = target == OrderStatus.DELIVERED
+                    && PaymentMethod.valueOf((String) row[4]) == PaymentMethod.COD
+                    && fromPayment == PaymentStatus.PENDING ? PaymentStatus.PAID : fromPayment;
+
+            legal.add(orderId);
+            transitions.add(new OrderTransitionEvent(orderId, fromStatus, fromPayment, target, toPayment,
+                    (BigDecimal) row[5], target == OrderStatus.DELIVERED ? now : null));
+            results.add(OrderStatusChange.builder()
+                    .orderId(orderId).orderNumber(orderNumber).fromStatus(fromStatus).toStatus(target)
+                    .success(true).build());
+        }
+
+        if (!legal.isEmpty()) {
+            String updatedByName = updatedByUser.getEmail();
+            int updated = switch (target) {
+                case CONFIRMED -> orderRepository.bulkConfirm(legal, updatedByUser, now, updatedByName);
+                case PROCESSING -> orderRepository.bulkMarkAsProcessing(legal, now, updatedByName);
+                case SHIPPED -> orderRepository.bulkShip(legal, now, updatedByName);
+                case DELIVERED -> orderRepository.bulkDeliver(legal, now, updatedByName);
+                default -> throw new BadRequestException("Invalid order status");
+            };
+            if (updated != legal.size()) {
+                // Cannot happen while the rows are locked; roll back rather than report wrong results
+                throw new IllegalStateException("Bulk update to " + target + " changed " + updated
+                        + " of " + legal.size() + " orders");
+            }
+            eventPublisher.publishEvent(new OrderTransitionBatchEvent(transitions));
+        }
+
+        log.info("Bulk order status update to {}: {} updated, {} rejected, by {}",
+                target, legal.size(), orderIds.size() - legal.size(), updatedByUser.getEmail());
+
+        return BulkOrderStatusResult.builder()
+                .status(target)
+                .requested(orderIds.size())
+                .updated(legal.size())
+                .rejected(orderIds.size() - legal.size())
+                .results(results)
+                .build();
+    }
+
     @Override
     @Transactional
     public OrderDto markPaymentAsPaid(UUID orderId) {
@@ -391,8 +592,11 @@ public class OrderServiceImpl implements IOrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
         order.markPaymentAsPaid();
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
 
         log.info("Payment marked as paid. Order number: {}", order.getOrderNumber());
 
@@ -407,8 +611,11 @@ public class OrderServiceImpl implements IOrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
+        OrderStatus fromStatus = order.getOrderStatus();
+        PaymentStatus fromPayment = order.getPaymentStatus();
         order.markPaymentAsFailed();
         order = orderRepository.save(order);
+        publishTransition(order, fromStatus, fromPayment);
 
         log.info("Payment marked as failed. Order number: {}", order.getOrderNumber());
 
@@ -419,43 +626,58 @@ public class OrderServiceImpl implements IOrderService {
     public OrderStatistics getOrderStatistics() {
         log.debug("Fetching order statistics");
 
-        return OrderStatistics.builder()
-                .totalOrders(orderRepository.count())
-                .pendingOrders(orderRepository.countByOrderStatus(OrderStatus.PENDING))
-                .confirmedOrders(orderRepository.countByOrderStatus(OrderStatus.CONFIRMED))
-                .processingOrders(orderRepository.countByOrderStatus(OrderStatus.PROCESSING))
-                .shippedOrders(orderRepository.countByOrderStatus(OrderStatus.SHIPPED))
-                .deliveredOrders(orderRepository.countByOrderStatus(OrderStatus.DELIVERED))
-                .cancelledOrders(orderRepository.countByOrderStatus(OrderStatus.CANCELLED))
-                .totalRevenue(orderRepository.getTotalRevenue())
-                .build();
+        // Served from memory, kept current by order transitions and reconciled periodically
+        return orderStatsCounters.statistics();
     }
 
     @Override
     public Double getTotalRevenue() {
-        return orderRepository.getTotalRevenue();
+        return orderStatsCounters.statistics().getTotalRevenue();
     }
 
     @Override
     public Double getRevenueByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return orderRepository.getTotalRevenueByDateRange(startDate, endDate);
+        return revenueRollupService.summarize(startDate, endDate).getRevenue().doubleValue();
     }
 
-    // ===== HELPER METHODS =====
+    @Override
+    public RevenueSummary getRevenueSummary(LocalDateTime startDate, LocalDateTime endDate) {
+        log.debug("Fetching revenue summary: {} to {}", startDate, endDate);
+
+        return revenueRollupService.summarize(startDate, endDate);
+    }
 
-    private String generateOrderNumber() {
-        // Format: ORD-YYYYMMDD-XXXXX
-        String datePart = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        long counter = orderCounter.incrementAndGet();
-        String orderNumber = String.format("ORD-%s-%05d", datePart, counter % 100000);
+    // ===== HELPER METHODS =====
 
-        // Ensure uniqueness
-        while (orderRepository.existsByOrderNumber(orderNumber)) {
-            counter = orderCounter.incrementAndGet();
-            orderNumber = String.format("ORD-%s-%05d", datePart, counter % 100000);
+    /**
+     * Second phase of the list endpoints: orders of a page of ids with items and user in one query,
+     * mapped in page order (ids deleted in between are skipped)
+     */
+    private Page<OrderDto> toDtoPage(Page<UUID> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
         }
 
-        return orderNumber;
+        Map<UUID, Order> orders = orderRepository.findAllByIdWithDetails(ids.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        // Search terms outlive archiving, so ids of archived orders can show up here
+        List<UUID> missing = ids.getContent().stream().filter(id -> !orders.containsKey(id)).toList();
+        Map<UUID, OrderDto> archived = missing.isEmpty() ? Map.of() : orderArchiveService.findAllById(missing);
+
+        List<OrderDto> content = ids.getContent().stream()
+                .map(id -> orders.containsKey(id) ? orderMapper.toDto(orders.get(id)) : archived.get(id))
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+
+    /**
+     * Announce a status/payment change; listeners (statistics counters, revenue rollups) react to it
+     */
+    private void publishTransition(Order order, OrderStatus fromStatus, PaymentStatus fromPayment) {
+        eventPublisher.publishEvent(new OrderTransitionEvent(order.getId(), fromStatus, fromPayment,
+                order.getOrderStatus(), order.getPaymentStatus(), order.getTotalAmount(), order.getDeliveredAt()));
     }
 
     private BigDecimal calculateShippingFee(String city) {
@@ -466,38 +688,4 @@ public class OrderServiceImpl implements IOrderService {
         }
         return new BigDecimal("50000"); // 50k for other cities
     }
-
-    private String getPrimaryImageUrl(ProductVariant variant) {
-        if (variant.getImages() != null && !variant.getImages().isEmpty()) {
-            return variant.getImages().stream()
-                    .filter(img -> img.getIsPrimary() != null && img.getIsPrimary())
-                    .findFirst()
-                    .map(img -> img.getImageUrl())
-                    .orElseGet(() -> variant.getImages().stream()
-                            .findFirst()
-                            .map(img -> img.getImageUrl())
-                            .orElse(null));
-        }
-        return null;
-    }
-
-    private String createProductSnapshot(Product product, ProductVariant variant) {
-        // Create JSON snapshot for ML/analytics
-        Map<String, Object> snapshot = new HashMap<>();
-        snapshot.put("productId", product.getId().toString());
-        snapshot.put("productName", product.getName());
-        snapshot.put("categoryId", product.getCategory() != null ? product.getCategory().getId().toString() : null);
-        snapshot.put("categoryName", product.getCategory() != null ? product.getCategory().getName() : null);
-        snapshot.put("brandId", product.getBrand() != null ? product.getBrand().getId().toString() : null);
-        snapshot.put("brandName", product.getBrand() != null ? product.getBrand().getName() : null);
-        snapshot.put("variantId", variant.getId().toString());
-        snapshot.put("variantName", variant.getName());
-
-        try {
-            return objectMapper.writeValueAsString(snapshot);
-        } catch (JsonProcessingException e) {
-            log.error("Error creating product snapshot", e);
-            return "{}";
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package dev.CaoNguyen_1883.ecommerce.product.component;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single-writer reservation lane of one hot SKU
+ *
+ * Concurrent reservations of the SKU queue up here instead of each waiting for the InnoDB row lock.
+ * One dedicated thread drains everything queued and applies it as one batch in one transaction
+ * under the row lock; every change is acknowledged only after its batch committed. The row stays the
+ * only counter, so lanes on several instances and the regular DB path never disagree.
+ */
+@Slf4j
+public class HotSkuLane {
+
+    /**
+     * Persistence used by the lane, always called on the lane thread
+     */
+    public interface Storage {
+        /**
+         * Apply changes of reserved_stock in order, in one transaction holding the row lock
+         *
+         * @param deltas      Change of reserved_stock per entry (negative = release)
+         * @param conditional Entries that only apply if stock - reserved_stock covers them
+         * @return Per entry, whether it was applied
+         */
+        boolean[] apply(UUID variantId, int[] deltas, boolean[] conditional);
+    }
+
+    private static final long POLL_MILLIS = 100;
+
+    private final UUID variantId;
+    private final Storage storage;
+    private final int maxBatch;
+    private final BlockingQueue<Change> queue = new LinkedBlockingQueue<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private volatile boolean closing;
+
+    public HotSkuLane(UUID variantId, String name, Storage storage, int maxBatch) {
+        this.variantId = variantId;
+        this.storage = storage;
+        this.maxBatch = maxBatch;
+
+        Thread writer = new Thread(this::drainLoop, "hot-sku-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public UUID getVariantId() {
+        return variantId;
+    }
+
+    /**
+     * Queue a conditional reservation
+     */
+    public Future<Boolean> reserve(int quantity) {
+        return submit(new Change(quantity, true));
+    }
+
+    /**
+     * Queue an unconditional change of the reserved amount (negative = release)
+     */
+    public Future<Boolean> adjust(int delta) {
+        return submit(new Change(delta, false));
+    }
+
+    /**
+     * Apply what is queued and stop the writer, new operations are rejected
+     */
+    public void close(long timeoutMillis) {
+        closing = true;
+        awaitClosed(timeoutMillis);
+    }
+
+    /**
+     * Wait until a closing lane has applied its last batch
+     */
+    public void awaitClosed(long timeoutMillis) {
+        try {
+            if (!closed.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Hot SKU lane {} did not finish within {} ms", variantId, timeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    private Future<Boolean> submit(Change change) {
+        if (closing) {
+            throw new RejectedExecutionException("Hot SKU lane " + variantId + " is closing");
+        }
+        queue.add(change);
+        if (closed.getCount() == 0 && change.take()) {
+            // The writer stopped between the check and the add
+            change.result.completeExceptionally(new RejectedExecutionException("Hot SKU lane closed"));
+        }
+        return change;
+    }
+
+    private void drainLoop() {
+        try {
+            while (!closing || !queue.isEmpty()) {
+                Change first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Change> drained = new ArrayList<>();
+                drained.add(first);
+                queue.drainTo(drained, maxBatch - 1);
+                applyBatch(drained);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Late submits that raced with close are failed, callers fall back to the DB path
+            Change late;
+            while ((late = queue.poll()) != null) {
+                if (late.take()) {
+                    late.result.completeExceptionally(new RejectedExecutionException("Hot SKU lane closed"));
+                }
+            }
+            closed.countDown();
+        }
+    }
+
+    private void applyBatch(List<Change> drained) {
+        // Changes their callers gave up on (timed out) are skipped
+        List<Change> batch = drained.stream().filter(Change::take).toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int[] deltas = new int[batch.size()];
+        boolean[] conditional = new boolean[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            deltas[i] = batch.get(i).delta;
+            conditional[i] = batch.get(i).conditional;
+        }
+
+        try {
+            boolean[] applied = storage.apply(variantId, deltas, conditional);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(applied[i]);
+            }
+        } catch (Exception e) {
+            // Nothing of the batch was committed
+            log.warn("Hot SKU lane {} batch of {} failed: {}", variantId, batch.size(), e.getMessage());
+            batch.forEach(change -> change.result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * One queued change; either the lane takes it or its caller cancels it, never both
+     */
+    private static final class Change implements Future<Boolean> {
+
+        private final int delta;
+        private final boolean conditional;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        private Change(int delta, boolean conditional) {
+            this.delta = delta;
+            this.conditional = conditional;
+        }
+
+        private boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return take() && result.cancel(false);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return result.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        @Override
+        public Boolean get() throws InterruptedException, ExecutionException {
+            return result.get();
+        }
+
+        @Override
+        public Boolean get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return result.get(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package dev.CaoNguyen_1883.ecommerce.product.component;
+
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Flash-sale mode: reservations of variants flagged hotSku go through a single-writer lane
+ * per SKU instead of each request contending for the InnoDB row lock.
+ *
+ * A lane only batches: each batch is applied under the row lock in its own transaction and
+ * acknowledged after commit, so product_variants.reserved_stock stays the one authoritative
+ * counter for every instance, guest carts and the regular DB path alike. Nothing is held in
+ * memory across a crash, so lanes open on startup without any reconciliation.
+ */
+@Component
+@Slf4j
+public class HotSkuReservationQueue implements HotSkuLane.Storage {
+
+    private static final String LOCK_SQL =
+            "SELECT stock, reserved_stock FROM product_variants WHERE id = ? FOR UPDATE";
+
+    private static final String UPDATE_RESERVED_SQL =
+            "UPDATE product_variants SET reserved_stock = ? WHERE id = ?";
+
+    // Compensation straight on the row, in its own statement; never takes reserved_stock below zero
+    private static final String ADJUST_RESERVED_SQL =
+            "UPDATE product_variants SET reserved_stock = reserved_stock + ? WHERE id = ? AND reserved_stock + ? >= 0";
+
+    private final ProductVariantRepository variantRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<UUID, HotSkuLane> lanes = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> parked = new ConcurrentHashMap<>();  // compensations waiting for a retry
+
+    @Value("${app.inventory.hot-sku.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${app.inventory.hot-sku.timeout-millis:2000}")
+    private long timeoutMillis;
+
+    public HotSkuReservationQueue(
+            ProductVariantRepository variantRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.variantRepository = variantRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isHot(UUID variantId) {
+        return lanes.containsKey(variantId);
+    }
+
+    /**
+     * Reserve through the lane; a true result is already committed on the row
+     *
+     * @return empty if the variant has no open lane and the regular DB path must be used
+     */
+    public Optional<Boolean> tryReserve(UUID variantId, int quantity) {
+        HotSkuLane lane = lanes.get(variantId);
+        if (lane == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(await(lane.reserve(quantity)));
+        } catch (RejectedExecutionException e) {
+            // Lane is closing - the row is accurate anyway, use the DB path
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Change the reserved amount through the lane without a stock check (negative = release)
+     *
+     * @return false if the variant has no open lane and the regular DB path must be used
+     */
+    public boolean adjust(UUID variantId, int delta) {
+        HotSkuLane lane = lanes.get(variantId);
+        if (lane == null) {
+            return false;
+        }
+        try {
+            await(lane.adjust(delta));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Undo a committed lane change (rolled back caller): through the lane, else on the row directly,
+     * else parked and retried until it is applied. Never throws, so it is safe in afterCompletion.
+     */
+    public void compensate(UUID variantId, int delta) {
+        try {
+            if (adjust(variantId, delta)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            // A lane change that failed or timed out was not applied
+            log.warn("Hot SKU lane compensation of variant {} failed, applying on the row: {}", variantId, e.getMessage());
+        }
+        try {
+            applyOnRow(variantId, delta);
+        } catch (RuntimeException e) {
+            log.error("Hot SKU compensation of variant {} ({}) parked for retry: {}", variantId, delta, e.getMessage());
+            parked.merge(variantId, delta, Integer::sum);
+        }
+    }
+
+    /**
+     * Retry parked compensations (default every 5 seconds)
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.hot-sku.compensation-retry-millis:5000}")
+    public void retryParked() {
+        for (UUID variantId : List.copyOf(parked.keySet())) {
+            Integer delta = parked.remove(variantId);
+            if (delta != null && delta != 0) {
+                compensate(variantId, delta);
+            }
+        }
+    }
+
+    /**
+     * Open a lane for a variant
+     */
+    public void open(UUID variantId, String sku) {
+        lanes.computeIfAbsent(variantId, id -> {
+            log.info("Opening hot SKU lane: variant={}, sku={}", id, sku);
+            return new HotSkuLane(id, sku, this, maxBatch);
+        });
+    }
+
+    /**
+     * Apply what the variant's lane has queued and close it, later operations use the DB path
+     */
+    public void close(UUID variantId) {
+        HotSkuLane lane = lanes.get(variantId);
+        if (lane != null) {
+            lanes.remove(variantId, lane);
+            lane.close(timeoutMillis);
+            log.info("Closed hot SKU lane: variant={}", variantId);
+        }
+    }
+
+    /**
+     * Open lanes of variants flagged hot
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void openFlaggedLanes() {
+        for (ProductVariant variant : variantRepository.findByHotSkuTrue()) {
+            open(variant.getId(), variant.getSku());
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        lanes.keySet().forEach(this::close);
+    }
+
+    // ===== LANE STORAGE =====
+
+    @Override
+    public boolean[] apply(UUID variantId, int[] deltas, boolean[] conditional) {
+        byte[] id = UuidUtils.toBytes(variantId);
+        return transactionTemplate.execute(status -> {
+            List<long[]> rows = jdbcTemplate.query(LOCK_SQL,
+                    (rs, rowNum) -> new long[]{rs.getLong("stock"), rs.getLong("reserved_stock")}, id);
+            if (rows.isEmpty()) {
+                throw new IllegalStateException("Hot SKU variant not found: " + variantId);
+            }
+            long stock = rows.get(0)[0];
+            long before = rows.get(0)[1];
+
+            long reserved = before;
+            boolean[] applied = new boolean[deltas.length];
+            for (int i = 0; i < deltas.length; i++) {
+                if (conditional[i] && stock - reserved < deltas[i]) {
+                    continue;
+                }
+                reserved += deltas[i];
+                applied[i] = true;
+            }
+            if (reserved < 0) {
+                // More released than was reserved: accounting drift elsewhere, don't go negative
+                log.error("Hot SKU {} released below zero (reserved {} -> {}), storing 0", variantId, before, reserved);
+                reserved = 0;
+            }
+            if (reserved != before) {
+                jdbcTemplate.update(UPDATE_RESERVED_SQL, reserved, id);
+            }
+            return applied;
+        });
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void applyOnRow(UUID variantId, int delta) {
+        int updated = jdbcTemplate.update(ADJUST_RESERVED_SQL, delta, UuidUtils.toBytes(variantId), delta);
+        if (updated == 0) {
+            log.error("Hot SKU compensation of variant {} ({}) would take reserved stock below zero, skipped",
+                    variantId, delta);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Not taken by the lane yet: cancelling guarantees it never runs
+            if (future.cancel(false)) {
+                throw new IllegalStateException("Hot SKU lane did not respond in time");
+            }
+            return awaitDone(future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for hot SKU lane", e);
+        } catch (ExecutionException e) {
+            throw failure(e);
+        }
+    }
+
+    private <T> T awaitDone(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for hot SKU lane", e);
+        } catch (ExecutionException e) {
+            throw failure(e);
+        }
+    }
+
+    private RuntimeException failure(ExecutionException e) {
+        if (e.getCause() instanceof RejectedExecutionException rejected) {
+            return rejected;  // lane closed under the caller, the DB path takes over
+        }
+        return new IllegalStateException("Hot SKU lane operation failed", e.getCause());
+    }
+}
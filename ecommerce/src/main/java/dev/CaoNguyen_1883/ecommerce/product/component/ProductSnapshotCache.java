@@ -0,0 +1,94 @@
+package dev.CaoNguyen_1883.ecommerce.product.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.CaoNguyen_1883.ecommerce.product.entity.Product;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Product snapshot JSON stored on order items, built once per variant version
+ *
+ * Entries are keyed by variant id plus the product and variant versions, so any product or variant
+ * update makes a new entry and the old one ages out. Category and brand changes do not bump those
+ * versions: their services clear the cache after commit, and other instances catch up within ttl.
+ */
+@Component
+@Slf4j
+public class ProductSnapshotCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, String> snapshots;
+
+    public ProductSnapshotCache(
+            ObjectMapper objectMapper,
+            @Value("${app.order.snapshot-cache.max-size:50000}") long maxSize,
+            @Value("${app.order.snapshot-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.objectMapper = objectMapper;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Snapshot JSON of a variant (product fetched with it); category and brand are only loaded on a miss
+     */
+    public String snapshot(ProductVariant variant) {
+        Product product = variant.getProduct();
+        Key key = new Key(variant.getId(), variant.getVersion(), product.getVersion());
+        return snapshots.get(key, k -> build(product, variant));
+    }
+
+    /**
+     * Drop all snapshots after the current transaction commits (category or brand changed)
+     */
+    public void invalidateAllAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            snapshots.invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                snapshots.invalidateAll();
+            }
+        });
+    }
+
+    // ===== HELPER METHODS =====
+
+    private String build(Product product, ProductVariant variant) {
+        // Create JSON snapshot for ML/analytics
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("productId", product.getId().toString());
+        snapshot.put("productName", product.getName());
+        snapshot.put("categoryId", product.getCategory() != null ? product.getCategory().getId().toString() : null);
+        snapshot.put("categoryName", product.getCategory() != null ? product.getCategory().getName() : null);
+        snapshot.put("brandId", product.getBrand() != null ? product.getBrand().getId().toString() : null);
+        snapshot.put("brandName", product.getBrand() != null ? product.getBrand().getName() : null);
+        snapshot.put("variantId", variant.getId().toString());
+        snapshot.put("variantName", variant.getName());
+
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            log.error("Error creating product snapshot", e);
+            return "{}";
+        }
+    }
+
+    private record Key(UUID variantId, Long variantVersion, Long productVersion) {
+    }
+}
@@ -0,0 +1,70 @@
+package dev.CaoNguyen_1883.ecommerce.product.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxHandler;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxMessage;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderCancelledEvent;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Takes cancelled orders back out of products.purchase_count
+ * Same shape as PurchaseCountHandler: one decrement per product in id order, floored at zero in SQL
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PurchaseCountCancelHandler implements OutboxHandler {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET purchase_count = GREATEST(purchase_count - ?, 0) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String eventType() {
+        return OrderCancelledEvent.TYPE;
+    }
+
+    @Override
+    public void handle(List<OutboxMessage> messages) {
+        Map<UUID, Integer> cancelled = new TreeMap<>();
+        for (OutboxMessage message : messages) {
+            Map<UUID, Integer> quantities = read(message).quantities();
+            if (quantities == null) {
+                // Written before cancellations carried quantities
+                log.warn("Order cancellation event {} has no quantities, purchase counts left as they are", message.id());
+                continue;
+            }
+            quantities.forEach((productId, quantity) -> cancelled.merge(productId, quantity, Integer::sum));
+        }
+        if (cancelled.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = cancelled.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), UuidUtils.toBytes(entry.getKey())})
+                .toList();
+        jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+
+        log.debug("Took back purchase counts of {} products from {} cancellations", cancelled.size(), messages.size());
+    }
+
+    private OrderCancelledEvent read(OutboxMessage message) {
+        try {
+            return objectMapper.readValue(message.payload(), OrderCancelledEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable order event " + message.id(), e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.CaoNguyen_1883.ecommerce.product.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxHandler;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxMessage;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderPlacedEvent;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Adds placed orders to products.purchase_count (cancellations are taken back by PurchaseCountCancelHandler)
+ * A batch of orders becomes one increment per product, applied in id order and without touching
+ * the version column, so it neither deadlocks nor conflicts with product edits and view counters
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PurchaseCountHandler implements OutboxHandler {
+
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET purchase_count = purchase_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String eventType() {
+        return OrderPlacedEvent.TYPE;
+    }
+
+    @Override
+    public void handle(List<OutboxMessage> messages) {
+        Map<UUID, Integer> purchased = new TreeMap<>();
+        for (OutboxMessage message : messages) {
+            for (OrderPlacedEvent.Item item : read(message).items()) {
+                purchased.merge(item.productId(), item.quantity(), Integer::sum);
+            }
+        }
+
+        List<Object[]> args = purchased.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), UuidUtils.toBytes(entry.getKey())})
+                .toList();
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+
+        log.debug("Updated purchase counts of {} products from {} orders", purchased.size(), messages.size());
+    }
+
+    private OrderPlacedEvent read(OutboxMessage message) {
+        try {
+            return objectMapper.readValue(message.payload(), OrderPlacedEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable order event " + message.id(), e);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package dev.CaoNguyen_1883.ecommerce.product.controller;
 
 import dev.CaoNguyen_1883.ecommerce.auth.security.CustomUserDetails;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportFormat;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportJob;
 import dev.CaoNguyen_1883.ecommerce.common.response.ApiResponse;
 import dev.CaoNguyen_1883.ecommerce.product.dto.*;
 import dev.CaoNguyen_1883.ecommerce.product.entity.ProductStatus;
 import dev.CaoNguyen_1883.ecommerce.product.service.IProductService;
+import dev.CaoNguyen_1883.ecommerce.product.service.IStockReservationService;
+import dev.CaoNguyen_1883.ecommerce.product.service.ProductExportService;
 import dev.CaoNguyen_1883.ecommerce.tracking.service.ProductViewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +18,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
@@ -21,10 +27,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -37,8 +48,13 @@ import org.springframework.web.bind.annotation.*;
 )
 public class ProductController {
 
+    private static final DateTimeFormatter EXPORT_TIMESTAMP =
+        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
     private final IProductService productService;
     private final ProductViewService viewService;
+    private final IStockReservationService stockReservationService;
+    private final ProductExportService productExportService;
 
     // ===== PUBLIC ENDPOINTS =====
 
@@ -473,6 +489,51 @@ public class ProductController {
         );
     }
 
+    @Operation(
+        summary = "Export products",
+        description = "Stream products as CSV or NDJSON, oldest first, optionally filtered by creation date, status, category and brand (Staff/Admin only)"
+    )
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasAnyRole('STAFF', 'ADMIN')")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+        @Parameter(description = "csv (default) or ndjson") @RequestParam(
+            required = false
+        ) String format,
+        @Parameter(description = "Created at or after (ISO format)") @RequestParam(
+            required = false
+        ) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+        @Parameter(description = "Created at or before (ISO format)") @RequestParam(
+            required = false
+        ) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+        @RequestParam(required = false) ProductStatus status,
+        @RequestParam(required = false) UUID categoryId,
+        @RequestParam(required = false) UUID brandId
+    ) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        ExportJob job = productExportService.export(
+            exportFormat,
+            startDate,
+            endDate,
+            status,
+            categoryId,
+            brandId
+        );
+
+        String filename =
+            "products-" +
+            LocalDateTime.now().format(EXPORT_TIMESTAMP) +
+            "." +
+            exportFormat.getExtension();
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString()
+            )
+            .body(job::writeTo);
+    }
+
     @Operation(
         summary = "Get products by status",
         description = "Get products filtered by status with optional keyword search (Staff/Admin only)"
@@ -577,4 +638,24 @@ public class ProductController {
             ApiResponse.success("Product rejected successfully", rejected)
         );
     }
+
+    @Operation(
+        summary = "Set flash-sale mode for a variant",
+        description = "Route reservations of a hot SKU through the in-memory single-writer queue (Admin only)"
+    )
+    @PatchMapping("/variants/{variantId}/hot-sku")
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ApiResponse<Void>> setHotSku(
+        @PathVariable UUID variantId,
+        @RequestParam boolean enabled
+    ) {
+        stockReservationService.setHotSku(variantId, enabled);
+        return ResponseEntity.ok(
+            ApiResponse.success(
+                enabled ? "Hot SKU mode enabled" : "Hot SKU mode disabled",
+                null
+            )
+        );
+    }
 }
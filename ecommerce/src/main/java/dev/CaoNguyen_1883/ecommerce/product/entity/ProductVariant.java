@@ -4,6 +4,7 @@ import dev.CaoNguyen_1883.ecommerce.common.entity.BaseEntity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
@@ -14,6 +15,7 @@ import java.util.Set;
         @Index(name = "idx_variant_sku", columnList = "sku"),
         @Index(name = "idx_variant_product", columnList = "product_id")
 })
+@DynamicUpdate  // stock/reservedStock are changed by atomic UPDATEs; entity saves must only write changed columns
 @Getter
 @Setter
 @NoArgsConstructor
@@ -58,6 +60,11 @@ public class ProductVariant extends BaseEntity {
     @Builder.Default
     private Integer displayOrder = 0;
 
+    // Flash-sale mode: reservations go through the in-memory single-writer queue
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean hotSku = false;
+
     // Images specific to this variant
     @OneToMany(mappedBy = "variant", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
@@ -37,6 +37,7 @@ public abstract class ProductVariantMapper {
     @Mapping(target = "isActive", ignore = true)
     @Mapping(target = "product", ignore = true)
     @Mapping(target = "reservedStock", ignore = true)
+    @Mapping(target = "hotSku", ignore = true)
     @Mapping(target = "images", ignore = true)
     @Mapping(target = "specifications", expression = "java(jsonNodeToString(request.getSpecifications()))")
     @Mapping(target = "attributes", expression = "java(jsonNodeToString(request.getAttributes()))")
@@ -220,24 +220,6 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
         Pageable pageable
     );
 
-    // Frequently bought together (based on orders)
-    @Query(
-        "SELECT p FROM Product p " +
-            "WHERE p.id IN (" +
-            "  SELECT oi2.variant.product.id FROM OrderItem oi1 " +
-            "  JOIN OrderItem oi2 ON oi1.order.id = oi2.order.id " +
-            "  WHERE oi1.variant.product.id = :productId " +
-            "  AND oi2.variant.product.id != :productId " +
-            "  GROUP BY oi2.variant.product.id " +
-            "  ORDER BY COUNT(*) DESC" +
-            ") " +
-            "AND p.status = 'APPROVED' AND p.isActive = true"
-    )
-    List<Product> findFrequentlyBoughtTogether(
-        @Param("productId") UUID productId,
-        Pageable pageable
-    );
-
     // New arrivals (newest products)
     @Query(
         "SELECT p FROM Product p " +
@@ -1,13 +1,14 @@
 package dev.CaoNguyen_1883.ecommerce.product.repository;
 
 import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import org.springframework.security.access.method.P;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -43,6 +44,42 @@ public interface ProductVariantRepository
     )
     Optional<ProductVariant> findByIdWithProduct(@Param("id") UUID variantId);
 
+    @Query(
+        "SELECT DISTINCT v FROM ProductVariant v " +
+            "LEFT JOIN FETCH v.product " +
+            "LEFT JOIN FETCH v.images " +
+            "WHERE v.id = :id"
+    )
+    Optional<ProductVariant> findByIdWithProductAndImages(
+        @Param("id") UUID variantId
+    );
+
+    @Query(
+        "SELECT v FROM ProductVariant v " +
+            "LEFT JOIN FETCH v.product " +
+            "WHERE v.id IN :ids"
+    )
+    List<ProductVariant> findAllByIdWithProduct(@Param("ids") Collection<UUID> ids);
+
+    @Query(
+        "SELECT DISTINCT v FROM ProductVariant v " +
+            "LEFT JOIN FETCH v.product " +
+            "LEFT JOIN FETCH v.images " +
+            "WHERE v.id IN :ids"
+    )
+    List<ProductVariant> findAllByIdWithProductAndImages(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Live stock and availability flags only, no entity loading
+     */
+    @Query(
+        "SELECT v.id AS id, v.stock AS stock, v.reservedStock AS reservedStock, " +
+            "v.isActive AS variantActive, p.isActive AS productActive " +
+            "FROM ProductVariant v JOIN v.product p " +
+            "WHERE v.id IN :ids"
+    )
+    List<StockView> findStockViews(@Param("ids") Collection<UUID> ids);
+
     @Query(
         "SELECT v FROM ProductVariant v " +
             "WHERE v.product.id = :productId AND v.name = :name"
@@ -51,4 +88,78 @@ public interface ProductVariantRepository
         @Param("productId") UUID productId,
         @Param("name") String name
     );
+
+    List<ProductVariant> findByHotSkuTrue();
+
+    @Modifying
+    @Query("UPDATE ProductVariant v SET v.hotSku = :hotSku WHERE v.id = :id")
+    int updateHotSku(
+        @Param("id") UUID variantId,
+        @Param("hotSku") boolean hotSku
+    );
+
+    // ===== ATOMIC STOCK OPERATIONS =====
+    // Conditional single-row UPDATEs: the WHERE clause is the stock check,
+    // callers inspect the affected row count instead of loading the variant.
+    // They intentionally leave @Version alone so concurrent carts do not conflict.
+
+    @Modifying
+    @Query(
+        "UPDATE ProductVariant v " +
+            "SET v.reservedStock = v.reservedStock + :quantity " +
+            "WHERE v.id = :id AND v.stock - v.reservedStock >= :quantity"
+    )
+    int reserveStock(
+        @Param("id") UUID variantId,
+        @Param("quantity") int quantity
+    );
+
+    @Modifying
+    @Query(
+        "UPDATE ProductVariant v " +
+            "SET v.reservedStock = CASE WHEN v.reservedStock > :quantity " +
+            "THEN v.reservedStock - :quantity ELSE 0 END " +
+            "WHERE v.id = :id"
+    )
+    int releaseReservedStock(
+        @Param("id") UUID variantId,
+        @Param("quantity") int quantity
+    );
+
+    @Modifying
+    @Query(
+        "UPDATE ProductVariant v " +
+            "SET v.stock = v.stock - :quantity, " +
+            "v.reservedStock = v.reservedStock - :quantity " +
+            "WHERE v.id = :id AND v.stock >= :quantity AND v.reservedStock >= :quantity"
+    )
+    int commitReservedStock(
+        @Param("id") UUID variantId,
+        @Param("quantity") int quantity
+    );
+
+    @Modifying
+    @Query(
+        "UPDATE ProductVariant v SET v.stock = v.stock + :quantity " +
+            "WHERE v.id = :id"
+    )
+    int increaseStock(
+        @Param("id") UUID variantId,
+        @Param("quantity") int quantity
+    );
+
+    @Query("SELECT COALESCE(SUM(v.reservedStock), 0) FROM ProductVariant v")
+    long sumReservedStock();
+
+    interface StockView {
+        UUID getId();
+
+        Integer getStock();
+
+        Integer getReservedStock();
+
+        Boolean getVariantActive();
+
+        Boolean getProductActive();
+    }
 }
@@ -0,0 +1,69 @@
+package dev.CaoNguyen_1883.ecommerce.product.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Atomic stock reservation for product variants
+ * Every operation is one conditional UPDATE, so concurrent carts on the same SKU
+ * never oversell and never fail on optimistic locking
+ */
+public interface IStockReservationService {
+
+    /**
+     * Reserve stock if enough is available
+     *
+     * @return false when available stock (stock - reserved) is below quantity
+     */
+    boolean tryReserve(UUID variantId, int quantity);
+
+    /**
+     * Reserve stock of several variants all-or-nothing, in one statement
+     *
+     * @throws dev.CaoNguyen_1883.ecommerce.common.exception.OutOfStockException if any variant lacks
+     *         available stock; nothing stays reserved then
+     */
+    void reserveAll(Map<UUID, Integer> quantities);
+
+    /**
+     * Release previously reserved stock (floored at zero)
+     */
+    void release(UUID variantId, int quantity);
+
+    /**
+     * Release reserved stock of several variants in one statement; locks the rows first and logs
+     * (and caps) a release larger than what a row has reserved
+     */
+    void releaseAll(Map<UUID, Integer> quantities);
+
+    /**
+     * Convert a reservation into a sale: decrease stock and reserved stock together
+     *
+     * @return false when stock or reserved stock is below quantity, nothing is changed then
+     */
+    boolean tryCommit(UUID variantId, int quantity);
+
+    /**
+     * Checkout stock stage: lock all variants with one SELECT ... FOR UPDATE in id order,
+     * validate, then decrement stock (and reserved stock) of all of them in one UPDATE
+     * Row locks are held until the caller's transaction ends
+     *
+     * @param reserved   Quantities already held by live reservations
+     * @param unreserved Quantities that must come from free stock (expired reservations)
+     * @return Variants without enough stock, or whose reserved stock no longer covers the reserved
+     *         quantities; nothing is changed when not empty
+     */
+    Set<UUID> commitAll(Map<UUID, Integer> reserved, Map<UUID, Integer> unreserved);
+
+    /**
+     * Put sold stock back (e.g. cancelled order)
+     */
+    void restock(UUID variantId, int quantity);
+
+    /**
+     * Switch flash-sale mode for a variant
+     * Hot SKUs reserve through an in-memory single-writer queue instead of the row lock
+     */
+    void setHotSku(UUID variantId, boolean enabled);
+}
@@ -0,0 +1,99 @@
+package dev.CaoNguyen_1883.ecommerce.product.service;
+
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportFormat;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportJob;
+import dev.CaoNguyen_1883.ecommerce.common.export.ExportWriter;
+import dev.CaoNguyen_1883.ecommerce.common.export.JdbcStreamExporter;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductStatus;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streaming export of products (staff/admin), one row per product with stock summed over variants
+ *
+ * Rows are read through a forward-only cursor and written as they arrive, without paging,
+ * COUNT queries or entity hydration.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductExportService {
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "name", "slug", "status", "category", "brand", "seller_email",
+            "base_price", "variant_count", "total_stock", "reserved_stock",
+            "view_count", "purchase_count", "average_rating", "total_reviews",
+            "is_active", "created_at", "updated_at", "approved_at");
+
+    private static final String SELECT_PRODUCTS_SQL = """
+            SELECT BIN_TO_UUID(p.id), p.name, p.slug, p.status, c.name, b.name, s.email,
+                   p.base_price,
+                   (SELECT COUNT(*) FROM product_variants pv WHERE pv.product_id = p.id),
+                   (SELECT COALESCE(SUM(pv.stock), 0) FROM product_variants pv WHERE pv.product_id = p.id),
+                   (SELECT COALESCE(SUM(pv.reserved_stock), 0) FROM product_variants pv WHERE pv.product_id = p.id),
+                   p.view_count, p.purchase_count, p.average_rating, p.total_reviews,
+                   p.is_active, p.created_at, p.updated_at, p.approved_at
+            FROM products p
+            JOIN categories c ON c.id = p.category_id
+            JOIN brands b ON b.id = p.brand_id
+            JOIN users s ON s.id = p.seller_id
+            """;
+
+    private final JdbcStreamExporter exporter;
+
+    /**
+     * Export of products matching the filters (all optional; dates bound created_at), oldest first
+     */
+    public ExportJob export(ExportFormat format,
+                            LocalDateTime startDate, LocalDateTime endDate,
+                            ProductStatus status, UUID categoryId, UUID brandId) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new BadRequestException("End date must not be before start date");
+        }
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (startDate != null) {
+            conditions.add("p.created_at >= ?");
+            args.add(Timestamp.valueOf(startDate));
+        }
+        if (endDate != null) {
+            conditions.add("p.created_at <= ?");
+            args.add(Timestamp.valueOf(endDate));
+        }
+        if (status != null) {
+            conditions.add("p.status = ?");
+            args.add(status.name());
+        }
+        if (categoryId != null) {
+            conditions.add("p.category_id = ?");
+            args.add(UuidUtils.toBytes(categoryId));
+        }
+        if (brandId != null) {
+            conditions.add("p.brand_id = ?");
+            args.add(UuidUtils.toBytes(brandId));
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+
+        String sql = SELECT_PRODUCTS_SQL + where + " ORDER BY p.created_at, p.id";
+        Object[] params = args.toArray();
+
+        return exporter.reserve(out -> {
+            long startedAt = System.currentTimeMillis();
+            ExportWriter writer = exporter.open(out, format, COLUMNS);
+            long rows = exporter.stream(writer, sql, params);
+            writer.flush();
+
+            log.info("Exported {} products as {} in {} ms", rows, format, System.currentTimeMillis() - startedAt);
+        });
+    }
+}
@@ -2,6 +2,7 @@ package dev.CaoNguyen_1883.ecommerce.product.service.impl;
 
 import dev.CaoNguyen_1883.ecommerce.common.exception.DuplicateResourceException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
+import dev.CaoNguyen_1883.ecommerce.product.component.ProductSnapshotCache;
 import dev.CaoNguyen_1883.ecommerce.product.dto.BrandDto;
 import dev.CaoNguyen_1883.ecommerce.product.dto.BrandRequest;
 import dev.CaoNguyen_1883.ecommerce.product.entity.Brand;
@@ -26,6 +27,7 @@ public class BrandServiceImpl implements IBrandService {
 
     private final BrandRepository brandRepository;
     private final BrandMapper brandMapper;
+    private final ProductSnapshotCache productSnapshotCache;
 
     @Override
     @Cacheable(value = "brands", key = "'all'")
@@ -114,6 +116,7 @@ public class BrandServiceImpl implements IBrandService {
         }
 
         Brand updated = brandRepository.save(brand);
+        productSnapshotCache.invalidateAllAfterCommit();  // order item snapshots carry the brand name
         log.info("Brand updated successfully: {}", id);
 
         return brandMapper.toDto(updated);
@@ -3,6 +3,7 @@ package dev.CaoNguyen_1883.ecommerce.product.service.impl;
 import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.DuplicateResourceException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
+import dev.CaoNguyen_1883.ecommerce.product.component.ProductSnapshotCache;
 import dev.CaoNguyen_1883.ecommerce.product.dto.CategoryDto;
 import dev.CaoNguyen_1883.ecommerce.product.dto.CategoryRequest;
 import dev.CaoNguyen_1883.ecommerce.product.entity.Category;
@@ -27,6 +28,7 @@ public class CategoryServiceImpl implements ICategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ProductSnapshotCache productSnapshotCache;
 
     @Override
     @Cacheable(value = "categories", key = "'all'")
@@ -154,6 +156,7 @@ public class CategoryServiceImpl implements ICategoryService {
         }
 
         Category updated = categoryRepository.save(category);
+        productSnapshotCache.invalidateAllAfterCommit();  // order item snapshots carry the category name
         log.info("Category updated successfully: {}", id);
 
         return categoryMapper.toDto(updated);
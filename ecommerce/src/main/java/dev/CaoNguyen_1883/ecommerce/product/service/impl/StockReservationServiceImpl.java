@@ -0,0 +1,335 @@
+package dev.CaoNguyen_1883.ecommerce.product.service.impl;
+
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.OutOfStockException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
+import dev.CaoNguyen_1883.ecommerce.product.component.HotSkuReservationQueue;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.product.service.IStockReservationService;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class StockReservationServiceImpl implements IStockReservationService {
+
+    private final ProductVariantRepository variantRepository;
+    private final HotSkuReservationQueue hotSkuQueue;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public boolean tryReserve(UUID variantId, int quantity) {
+        validateQuantity(quantity);
+
+        // Hot SKU: committed by the lane's own batch, undone if the caller's transaction rolls back
+        Optional<Boolean> hot = hotSkuQueue.tryReserve(variantId, quantity);
+        if (hot.isPresent()) {
+            if (hot.get()) {
+                onRollback(() -> hotSkuQueue.compensate(variantId, -quantity));
+            }
+            return hot.get();
+        }
+
+        boolean reserved = variantRepository.reserveStock(variantId, quantity) == 1;
+        if (!reserved) {
+            log.debug("Reservation rejected. Variant: {}, Quantity: {}", variantId, quantity);
+        }
+        return reserved;
+    }
+
+    @Override
+    @Transactional
+    public void reserveAll(Map<UUID, Integer> quantities) {
+        quantities.values().forEach(this::validateQuantity);
+
+        // Hot SKUs reserve in their lanes; any rejection rolls back (and compensates) everything
+        Map<UUID, Integer> rows = new TreeMap<>();  // sorted ids keep row lock order stable across callers
+        quantities.forEach((variantId, quantity) -> {
+            Optional<Boolean> hot = hotSkuQueue.tryReserve(variantId, quantity);
+            if (hot.isEmpty()) {
+                rows.put(variantId, quantity);
+                return;
+            }
+            if (!hot.get()) {
+                throw new OutOfStockException("Insufficient stock for variant: " + variantId);
+            }
+            onRollback(() -> hotSkuQueue.compensate(variantId, -quantity));
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // Each row only matches if it has enough free stock, so fewer matched rows means a shortage
+        String cases = " CASE id" + " WHEN ? THEN ?".repeat(rows.size()) + " END";
+        String sql = "UPDATE product_variants SET reserved_stock = reserved_stock +" + cases
+                + " WHERE id IN (" + String.join(", ", Collections.nCopies(rows.size(), "?")) + ")"
+                + " AND stock - reserved_stock >=" + cases;
+
+        List<Object> args = new ArrayList<>(rows.size() * 5);
+        addCaseArgs(args, rows);
+        rows.keySet().forEach(variantId -> args.add(UuidUtils.toBytes(variantId)));
+        addCaseArgs(args, rows);
+
+        int updated = jdbcTemplate.update(sql, args.toArray());
+        if (updated != rows.size()) {
+            log.debug("Batch reservation rejected. Variants: {}, Reserved: {}", rows.size(), updated);
+            throw new OutOfStockException("Insufficient stock for one or more items");
+        }
+    }
+
+    @Override
+    @Transactional
+    public void release(UUID variantId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        if (hotSkuQueue.adjust(variantId, -quantity)) {
+            onRollback(() -> hotSkuQueue.compensate(variantId, quantity));
+            return;
+        }
+        variantRepository.releaseReservedStock(variantId, quantity);
+    }
+
+    @Override
+    @Transactional
+    public void releaseAll(Map<UUID, Integer> quantities) {
+        // Hot SKUs go through their lanes, the rest is one UPDATE ... CASE
+        Map<UUID, Integer> rows = new TreeMap<>();  // sorted ids keep row lock order stable across callers
+        quantities.forEach((variantId, quantity) -> {
+            if (quantity <= 0) {
+                return;
+            }
+            if (hotSkuQueue.adjust(variantId, -quantity)) {
+                onRollback(() -> hotSkuQueue.compensate(variantId, quantity));
+            } else {
+                rows.put(variantId, quantity);
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<Object> ids = rows.keySet().stream().<Object>map(UuidUtils::toBytes).toList();
+        String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Map<UUID, int[]> locked = lockRows(ids, in);
+
+        // A release larger than what is reserved means the accounting drifted; release what is there
+        StringBuilder sql = new StringBuilder("UPDATE product_variants SET reserved_stock = reserved_stock - CASE id");
+        List<Object> args = new ArrayList<>(rows.size() * 3);
+        rows.forEach((variantId, quantity) -> {
+            int[] row = locked.get(variantId);
+            int reservedStock = row != null ? row[1] : 0;
+            if (reservedStock < quantity) {
+                log.error("Release of {} exceeds reserved stock {} of variant {}", quantity, reservedStock, variantId);
+            }
+            sql.append(" WHEN ? THEN ?");
+            args.add(UuidUtils.toBytes(variantId));
+            args.add(Math.min(quantity, reservedStock));
+        });
+        sql.append(" ELSE 0 END WHERE id IN (").append(in).append(")");
+        args.addAll(ids);
+
+        jdbcTemplate.update(sql.toString(), args.toArray());
+        log.debug("Released reserved stock of {} variants in one statement", rows.size());
+    }
+
+    @Override
+    @Transactional
+    public boolean tryCommit(UUID variantId, int quantity) {
+        validateQuantity(quantity);
+
+        boolean committed = variantRepository.commitReservedStock(variantId, quantity) == 1;
+        if (!committed) {
+            log.warn("Stock commit rejected. Variant: {}, Quantity: {}", variantId, quantity);
+        }
+        return committed;
+    }
+
+    @Override
+    @Transactional
+    public Set<UUID> commitAll(Map<UUID, Integer> reserved, Map<UUID, Integer> unreserved) {
+        // Sorted ids: every checkout locks rows in the same order, so concurrent checkouts cannot deadlock
+        Map<UUID, Integer> held = new TreeMap<>(reserved);
+        Map<UUID, Integer> free = new TreeMap<>(unreserved);
+        Set<UUID> variantIds = new TreeSet<>(held.keySet());
+        variantIds.addAll(free.keySet());
+        if (variantIds.isEmpty()) {
+            return Set.of();
+        }
+
+        // Hot SKUs: take free stock through the lane (committed on the row before the lock below)
+        Map<UUID, Integer> laneReserved = new HashMap<>();
+        for (UUID variantId : variantIds) {
+            if (!hotSkuQueue.isHot(variantId)) {
+                continue;
+            }
+            Integer quantity = free.remove(variantId);
+            if (quantity != null) {
+                if (!hotSkuQueue.tryReserve(variantId, quantity).orElse(false)) {
+                    undoLaneReservations(laneReserved);
+                    return Set.of(variantId);
+                }
+                laneReserved.put(variantId, quantity);
+                held.merge(variantId, quantity, Integer::sum);
+            }
+        }
+        // Undone only after completion: the lane needs the row lock this transaction is about to take
+        boolean[] undoLane = {false};
+        afterCompletion(status -> {
+            if (undoLane[0] || status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                undoLaneReservations(laneReserved);
+            }
+        });
+
+        List<Object> ids = variantIds.stream().<Object>map(UuidUtils::toBytes).toList();
+        String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+
+        Map<UUID, int[]> rows = lockRows(ids, in);
+
+        Set<UUID> shortVariants = new LinkedHashSet<>();
+        for (UUID variantId : variantIds) {
+            int[] row = rows.get(variantId);
+            int fromHeld = held.getOrDefault(variantId, 0);
+            int fromFree = free.getOrDefault(variantId, 0);
+            if (row != null && row[1] < fromHeld) {
+                // The reservations this order relies on are no longer on the row (released elsewhere)
+                log.error("Reserved stock {} of variant {} is below the {} held for checkout", row[1], variantId, fromHeld);
+            }
+            if (row == null || row[1] < fromHeld || row[0] < fromHeld + fromFree || row[0] - row[1] < fromFree) {
+                shortVariants.add(variantId);
+            }
+        }
+        if (!shortVariants.isEmpty()) {
+            undoLane[0] = true;
+            log.warn("Checkout stock commit rejected. Variants: {}", shortVariants);
+            return shortVariants;
+        }
+
+        // One UPDATE for all variants; reserved stock only drops by what reservations held
+        StringBuilder stockCase = new StringBuilder(" CASE id");
+        StringBuilder reservedCase = new StringBuilder(" CASE id");
+        List<Object> args = new ArrayList<>(variantIds.size() * 5);
+        List<Object> reservedArgs = new ArrayList<>(variantIds.size() * 2);
+        for (UUID variantId : variantIds) {
+            byte[] id = UuidUtils.toBytes(variantId);
+            stockCase.append(" WHEN ? THEN ?");
+            args.add(id);
+            args.add(held.getOrDefault(variantId, 0) + free.getOrDefault(variantId, 0));
+            reservedCase.append(" WHEN ? THEN ?");
+            reservedArgs.add(id);
+            reservedArgs.add(held.getOrDefault(variantId, 0));
+        }
+        args.addAll(reservedArgs);
+        args.addAll(ids);
+
+        jdbcTemplate.update("UPDATE product_variants SET stock = stock -" + stockCase + " ELSE 0 END, "
+                + "reserved_stock = reserved_stock -" + reservedCase + " ELSE 0 END "
+                + "WHERE id IN (" + in + ")", args.toArray());
+
+        log.debug("Committed checkout stock for {} variants", variantIds.size());
+        return Set.of();
+    }
+
+    @Override
+    @Transactional
+    public void restock(UUID variantId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        // Hot lanes read the row under lock per batch, so they see the new stock right away
+        variantRepository.increaseStock(variantId, quantity);
+    }
+
+    @Override
+    @Transactional
+    public void setHotSku(UUID variantId, boolean enabled) {
+        ProductVariant variant = variantRepository.findById(variantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product variant", "id", variantId));
+
+        variantRepository.updateHotSku(variantId, enabled);
+
+        // Open/close the lane only once the flag is committed
+        String sku = variant.getSku();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (enabled) {
+                    hotSkuQueue.open(variantId, sku);
+                } else {
+                    hotSkuQueue.close(variantId);
+                }
+            }
+        });
+
+        log.info("Hot SKU mode {} for variant: {}", enabled ? "enabled" : "disabled", sku);
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void validateQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new BadRequestException("Quantity must be positive");
+        }
+    }
+
+    /**
+     * Lock variant rows in id order
+     *
+     * @return id -> {stock, reserved_stock}
+     */
+    private Map<UUID, int[]> lockRows(List<Object> ids, String in) {
+        Map<UUID, int[]> rows = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, stock, reserved_stock FROM product_variants WHERE id IN (" + in + ") ORDER BY id FOR UPDATE",
+                rs -> {
+                    rows.put(UuidUtils.fromBytes(rs.getBytes("id")),
+                            new int[]{rs.getInt("stock"), rs.getInt("reserved_stock")});
+                },
+                ids.toArray());
+        return rows;
+    }
+
+    private void undoLaneReservations(Map<UUID, Integer> laneReserved) {
+        laneReserved.forEach((variantId, quantity) -> hotSkuQueue.compensate(variantId, -quantity));
+    }
+
+    private void addCaseArgs(List<Object> args, Map<UUID, Integer> quantities) {
+        quantities.forEach((variantId, quantity) -> {
+            args.add(UuidUtils.toBytes(variantId));
+            args.add(quantity);
+        });
+    }
+
+    private void onRollback(Runnable compensation) {
+        afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                compensation.run();
+            }
+        });
+    }
+
+    private void afterCompletion(IntConsumer callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status);
+            }
+        });
+    }
+}
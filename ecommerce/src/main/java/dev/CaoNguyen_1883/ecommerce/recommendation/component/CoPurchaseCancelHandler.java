@@ -0,0 +1,48 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxHandler;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxMessage;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderCancelledEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Takes cancelled orders back out of the co-purchase matrix
+ * Counts are plain sums, so a cancellation delivered before its placement still nets out
+ */
+@Component
+@RequiredArgsConstructor
+public class CoPurchaseCancelHandler implements OutboxHandler {
+
+    private final CoPurchaseMatrix coPurchaseMatrix;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String eventType() {
+        return OrderCancelledEvent.TYPE;
+    }
+
+    @Override
+    public void handle(List<OutboxMessage> messages) {
+        List<Set<UUID>> orders = messages.stream()
+                .map(this::read)
+                .map(event -> (Set<UUID>) new HashSet<>(event.productIds()))
+                .toList();
+        coPurchaseMatrix.apply(orders, -1);
+    }
+
+    private OrderCancelledEvent read(OutboxMessage message) {
+        try {
+            return objectMapper.readValue(message.payload(), OrderCancelledEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable order event " + message.id(), e);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderCancelledEvent;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderPlacedEvent;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Co-purchase counts between products, for "frequently bought together"
+ *
+ * The matrix is sparse: product_co_purchases holds one row per product pair bought together in at
+ * least one order (both directions), moved by +1/-1 per order as orders are placed and cancelled.
+ * The top neighbours of a product are one index range read on (product_id, order_count), cached
+ * per product as primitive arrays; cost no longer depends on how many orders exist.
+ */
+@Component
+@Slf4j
+public class CoPurchaseMatrix implements SmartInitializingSingleton {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO product_co_purchases (product_id, other_product_id, order_count)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count)
+            """;
+
+    private static final String DELETE_EMPTY_SQL =
+            "DELETE FROM product_co_purchases WHERE product_id IN (:ids) AND order_count = 0";
+
+    private static final String TOP_SQL = """
+            SELECT other_product_id, order_count
+            FROM product_co_purchases
+            WHERE product_id = ? AND order_count > 0
+            ORDER BY order_count DESC
+            LIMIT ?
+            """;
+
+    // Products of one order, once per order, as the outbox handlers will leave them: an order whose
+    // placement is still pending is left to its handler, a cancelled one counts while its cancellation is pending.
+    // Like apply, an order keeps only its first max-products-per-order products in id order
+    private static final String ORDER_PRODUCTS_SQL = """
+            SELECT DISTINCT p.order_id, p.product_id
+            FROM (SELECT i.order_id, v.product_id,
+                         DENSE_RANK() OVER (PARTITION BY i.order_id ORDER BY v.product_id) AS product_rank
+                  FROM order_items i
+                  JOIN product_variants v ON v.id = i.variant_id
+                  JOIN orders o ON o.id = i.order_id
+                  WHERE NOT EXISTS (SELECT 1 FROM outbox_events e
+                                    WHERE e.processed_at IS NULL AND e.event_type = '%1$s' AND e.aggregate_id = o.id)
+                    AND (o.order_status <> 'CANCELLED'
+                         OR EXISTS (SELECT 1 FROM outbox_events e
+                                    WHERE e.processed_at IS NULL AND e.event_type = '%2$s' AND e.aggregate_id = o.id))) p
+            WHERE p.product_rank <= ?
+            """.formatted(OrderPlacedEvent.TYPE, OrderCancelledEvent.TYPE);
+
+    private static final String BACKFILL_SQL = """
+            INSERT INTO product_co_purchases (product_id, other_product_id, order_count)
+            SELECT a.product_id, b.product_id, COUNT(*)
+            FROM (%1$s) a
+            JOIN (%1$s) b ON b.order_id = a.order_id AND b.product_id <> a.product_id
+            GROUP BY a.product_id, b.product_id
+            """.formatted(ORDER_PRODUCTS_SQL);
+
+    // Locks the empty index range too, so outbox handlers cannot insert cells until the backfill commits
+    private static final String EMPTY_CHECK_SQL =
+            "SELECT COUNT(*) FROM (SELECT 1 FROM product_co_purchases LIMIT 1 FOR UPDATE) t";
+
+    private static final String BACKFILL_LOCK = "product_co_purchases_backfill";
+
+    // Product ids in the order of the BINARY(16) column, so apply and the backfill cap the same products
+    private static final Comparator<UUID> BINARY_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int topK;
+    private final int maxProductsPerOrder;
+    private final boolean backfillOnStartup;
+    private final int backfillLockSeconds;
+    private final Cache<UUID, Neighbours> topNeighbours;
+
+    private volatile boolean backfillPending;
+
+    public CoPurchaseMatrix(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.recommendation.co-purchase.top-k:20}") int topK,
+            @Value("${app.recommendation.co-purchase.max-products-per-order:50}") int maxProductsPerOrder,
+            @Value("${app.recommendation.co-purchase.cache-size:20000}") long cacheSize,
+            @Value("${app.recommendation.co-purchase.cache-ttl-minutes:10}") long cacheTtlMinutes,
+            @Value("${app.recommendation.co-purchase.backfill-on-startup:true}") boolean backfillOnStartup,
+            @Value("${app.recommendation.co-purchase.backfill-lock-seconds:60}") int backfillLockSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.topK = topK;
+        this.maxProductsPerOrder = maxProductsPerOrder;
+        this.backfillOnStartup = backfillOnStartup;
+        this.backfillLockSeconds = backfillLockSeconds;
+        this.topNeighbours = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .build();
+    }
+
+    /**
+     * Products most often bought together with the given one, best first (at most top-k)
+     */
+    public List<UUID> topNeighbours(UUID productId, int limit) {
+        Neighbours neighbours = topNeighbours.get(productId, this::load);
+        int size = Math.min(limit, neighbours.size());
+        List<UUID> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(neighbours.id(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Add (sign +1) or remove (sign -1) orders, each given as the set of its products
+     * Runs in the caller's transaction; cached neighbours of touched products are dropped after commit
+     */
+    public void apply(List<Set<UUID>> orders, int sign) {
+        // Sorted pairs: concurrent batches lock rows in the same order
+        Map<UUID, Map<UUID, Integer>> deltas = new TreeMap<>();
+        for (Set<UUID> products : orders) {
+            List<UUID> distinct = products.stream().filter(Objects::nonNull).sorted(BINARY_ORDER)
+                    .limit(maxProductsPerOrder).toList();
+            for (UUID product : distinct) {
+                for (UUID other : distinct) {
+                    if (!product.equals(other)) {
+                        deltas.computeIfAbsent(product, k -> new TreeMap<>()).merge(other, sign, Integer::sum);
+                    }
+                }
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        deltas.forEach((product, others) -> others.forEach((other, delta) -> {
+            if (delta != 0) {
+                rows.add(new Object[]{UuidUtils.toBytes(product), UuidUtils.toBytes(other), delta});
+            }
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+
+        List<byte[]> touched = deltas.keySet().stream().map(UuidUtils::toBytes).toList();
+        if (sign < 0) {
+            // Keep the matrix sparse; negative cells (cancellation seen before its order) wait for the order
+            namedJdbcTemplate.update(DELETE_EMPTY_SQL, Map.of("ids", touched));
+        }
+
+        invalidateAfterCommit(deltas.keySet());
+        log.debug("Applied {} orders ({}) to the co-purchase matrix, {} cells", orders.size(), sign, rows.size());
+    }
+
+    /**
+     * Runs before scheduled tasks start, so the local outbox poller cannot apply an order the backfill counts
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillPending = backfillOnStartup;
+        retryBackfill();
+    }
+
+    /**
+     * Retry a failed backfill (default every minute)
+     */
+    @Scheduled(fixedDelayString = "${app.recommendation.co-purchase.backfill-retry-millis:60000}")
+    public void retryBackfill() {
+        if (backfillPending) {
+            backfillIfEmpty();
+        }
+    }
+
+    /**
+     * First start with the matrix: count existing orders once
+     * One instance at a time (named lock), empty check and insert in one transaction;
+     * a failure is logged as an error and retried
+     */
+    public void backfillIfEmpty() {
+        try {
+            Integer cells = transactionTemplate.execute(status -> backfillLocked());
+            backfillPending = false;
+            if (cells != null && cells > 0) {
+                log.info("Co-purchase matrix backfilled from existing orders: {} cells", cells);
+            }
+        } catch (RuntimeException e) {
+            backfillPending = true;
+            log.error("Co-purchase backfill failed, will retry", e);
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Runs in the backfill transaction, so the named lock is taken on its connection
+     */
+    private int backfillLocked() {
+        Integer locked = jdbcTemplate.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class,
+                BACKFILL_LOCK, backfillLockSeconds);
+        if (locked == null || locked != 1) {
+            throw new IllegalStateException("Timed out waiting for the co-purchase backfill lock");
+        }
+        try {
+            Integer rows = jdbcTemplate.queryForObject(EMPTY_CHECK_SQL, Integer.class);
+            if (rows == null || rows > 0) {
+                return 0;
+            }
+            return jdbcTemplate.update(BACKFILL_SQL, maxProductsPerOrder, maxProductsPerOrder);
+        } finally {
+            jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BACKFILL_LOCK);
+        }
+    }
+
+    private Neighbours load(UUID productId) {
+        List<byte[]> ids = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        jdbcTemplate.query(TOP_SQL, rs -> {
+            ids.add(rs.getBytes(1));
+            counts.add(rs.getInt(2));
+        }, UuidUtils.toBytes(productId), topK);
+
+        long[] bits = new long[ids.size() * 2];
+        int[] orderCounts = new int[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            UUID id = UuidUtils.fromBytes(ids.get(i));
+            bits[2 * i] = id.getMostSignificantBits();
+            bits[2 * i + 1] = id.getLeastSignificantBits();
+            orderCounts[i] = counts.get(i);
+        }
+        return new Neighbours(bits, orderCounts);
+    }
+
+    private void invalidateAfterCommit(Set<UUID> productIds) {
+        Set<UUID> ids = Set.copyOf(productIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            topNeighbours.invalidateAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                topNeighbours.invalidateAll(ids);
+            }
+        });
+    }
+
+    /**
+     * Top neighbours of one product as primitive arrays: ids as (msb, lsb) pairs, best first
+     */
+    private record Neighbours(long[] idBits, int[] orderCounts) {
+
+        int size() {
+            return orderCounts.length;
+        }
+
+        UUID id(int index) {
+            return new UUID(idBits[2 * index], idBits[2 * index + 1]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxHandler;
+import dev.CaoNguyen_1883.ecommerce.common.outbox.OutboxMessage;
+import dev.CaoNguyen_1883.ecommerce.order.event.OrderPlacedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Counts placed orders into the co-purchase matrix
+ */
+@Component
+@RequiredArgsConstructor
+public class CoPurchaseOrderHandler implements OutboxHandler {
+
+    private final CoPurchaseMatrix coPurchaseMatrix;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String eventType() {
+        return OrderPlacedEvent.TYPE;
+    }
+
+    @Override
+    public void handle(List<OutboxMessage> messages) {
+        List<Set<UUID>> orders = messages.stream()
+                .map(this::read)
+                .map(event -> {
+                    Set<UUID> products = new HashSet<>();
+                    event.items().forEach(item -> products.add(item.productId()));
+                    return products;
+                })
+                .toList();
+        coPurchaseMatrix.apply(orders, 1);
+    }
+
+    private OrderPlacedEvent read(OutboxMessage message) {
+        try {
+            return objectMapper.readValue(message.payload(), OrderPlacedEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable order event " + message.id(), e);
+        }
+    }
+}
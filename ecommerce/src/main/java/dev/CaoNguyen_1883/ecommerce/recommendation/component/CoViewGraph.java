@@ -0,0 +1,136 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.CaoNguyen_1883.ecommerce.product.dto.ProductSummaryDto;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductStatus;
+import dev.CaoNguyen_1883.ecommerce.product.mapper.ProductMapper;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductRepository;
+import dev.CaoNguyen_1883.ecommerce.tracking.component.RecentViewsStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * In-process "customers who viewed this also viewed" graph
+ *
+ * Two products are co-viewed when the same user views them within session-window of each other;
+ * each new view links the product with the last session-depth products of the user's recent views
+ * ring (both directions). Every product keeps a bounded CoViewNeighbours list with decaying scores.
+ * Summaries of viewed products are cached beside the graph, so serving a section does not query MySQL.
+ * The graph is per instance and starts empty; it fills up again from views within a few sessions.
+ */
+@Component
+@Slf4j
+public class CoViewGraph {
+
+    private final RecentViewsStore recentViewsStore;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final int topK;
+    private final int sessionDepth;
+    private final Duration sessionWindow;
+    private final long halfLifeMillis;
+    private final Cache<UUID, CoViewNeighbours> neighbours;
+    private final Cache<UUID, ProductSummaryDto> summaries;
+
+    public CoViewGraph(
+            RecentViewsStore recentViewsStore,
+            ProductRepository productRepository,
+            ProductMapper productMapper,
+            @Value("${app.recommendation.co-view.top-k:20}") int topK,
+            @Value("${app.recommendation.co-view.session-depth:5}") int sessionDepth,
+            @Value("${app.recommendation.co-view.session-window-minutes:30}") long sessionWindowMinutes,
+            @Value("${app.recommendation.co-view.half-life-days:7}") long halfLifeDays,
+            @Value("${app.recommendation.co-view.max-products:50000}") long maxProducts,
+            @Value("${app.recommendation.co-view.summary-ttl-minutes:10}") long summaryTtlMinutes) {
+        this.recentViewsStore = recentViewsStore;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.topK = topK;
+        this.sessionDepth = sessionDepth;
+        this.sessionWindow = Duration.ofMinutes(sessionWindowMinutes);
+        this.halfLifeMillis = Duration.ofDays(halfLifeDays).toMillis();
+        this.neighbours = Caffeine.newBuilder()
+                .maximumSize(maxProducts)
+                .build();
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(maxProducts)
+                .expireAfterWrite(Duration.ofMinutes(summaryTtlMinutes))
+                .build();
+
+        log.info("Initialized co-view graph: topK={}, sessionDepth={}, sessionWindow={}",
+                topK, sessionDepth, sessionWindow);
+    }
+
+    /**
+     * Link a view with the user's previous views of the same session
+     * Must run before the view is added to the user's recent views ring, in a transaction (summary load)
+     */
+    public void recordView(UUID userId, UUID productId, LocalDateTime viewedAt) {
+        summaries.get(productId, this::loadSummary);
+
+        List<UUID> previous = recentViewsStore.getRecentProductIdsSince(
+                userId, sessionDepth + 1, viewedAt.minus(sessionWindow));
+        long now = toMillis(viewedAt);
+        int linked = 0;
+        for (UUID other : previous) {
+            if (other.equals(productId) || linked == sessionDepth) {
+                continue;
+            }
+            // Closer in the session counts more
+            double weight = 1.0 / (linked + 1);
+            neighboursOf(productId, now).add(other, weight, now);
+            neighboursOf(other, now).add(productId, weight, now);
+            linked++;
+        }
+    }
+
+    /**
+     * Approved products most viewed together with the given one, best first (at most top-k)
+     * Neighbours whose summary is not cached on this instance are left out
+     */
+    public List<ProductSummaryDto> alsoViewed(UUID productId, int limit) {
+        CoViewNeighbours list = neighbours.getIfPresent(productId);
+        if (list == null) {
+            return List.of();
+        }
+        List<ProductSummaryDto> result = new ArrayList<>();
+        for (UUID id : list.top(topK, System.currentTimeMillis())) {
+            ProductSummaryDto summary = summaries.getIfPresent(id);
+            if (summary != null && summary.getStatus() == ProductStatus.APPROVED) {
+                result.add(summary);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    // ===== HELPER METHODS =====
+
+    private CoViewNeighbours neighboursOf(UUID productId, long nowMillis) {
+        return neighbours.get(productId, id -> new CoViewNeighbours(topK, halfLifeMillis, nowMillis));
+    }
+
+    private ProductSummaryDto loadSummary(UUID productId) {
+        return productRepository.findById(productId)
+                .filter(product -> Boolean.TRUE.equals(product.getIsActive()))
+                .map(productMapper::toSummaryDto)
+                .filter(Objects::nonNull)
+                .orElse(null);
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
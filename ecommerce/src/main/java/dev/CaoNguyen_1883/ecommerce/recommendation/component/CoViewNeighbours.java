@@ -0,0 +1,109 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded list of the products most often viewed next to one product
+ *
+ * Scores decay exponentially (half-life), applied lazily on each access. When the list is full a new
+ * neighbour replaces the weakest one and inherits its score (Space-Saving), so products that keep being
+ * co-viewed climb in even if they arrived late. All operations are O(capacity), capacity is small.
+ */
+public class CoViewNeighbours {
+
+    private final long[] idBits;    // (msb, lsb) per entry
+    private final double[] scores;
+    private final double halfLifeMillis;
+
+    private int size = 0;
+    private long decayedAt;         // epoch millis the scores are expressed at
+
+    public CoViewNeighbours(int capacity, long halfLifeMillis, long nowMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.idBits = new long[capacity * 2];
+        this.scores = new double[capacity];
+        this.halfLifeMillis = halfLifeMillis;
+        this.decayedAt = nowMillis;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Add weight to a neighbour, taking the slot of the weakest one when the list is full
+     */
+    public synchronized void add(UUID productId, double weight, long nowMillis) {
+        decayTo(nowMillis);
+        int index = indexOf(productId);
+        if (index < 0) {
+            if (size < scores.length) {
+                index = size++;
+                scores[index] = 0;
+            } else {
+                index = weakest();
+            }
+            idBits[2 * index] = productId.getMostSignificantBits();
+            idBits[2 * index + 1] = productId.getLeastSignificantBits();
+        }
+        scores[index] += weight;
+    }
+
+    /**
+     * Neighbour ids, best first, at most limit entries
+     */
+    public synchronized List<UUID> top(int limit, long nowMillis) {
+        decayTo(nowMillis);
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        int count = Math.min(limit, size);
+        List<UUID> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new UUID(idBits[2 * order[i]], idBits[2 * order[i] + 1]));
+        }
+        return result;
+    }
+
+    // ===== HELPER METHODS =====
+
+    private void decayTo(long nowMillis) {
+        if (nowMillis <= decayedAt) {
+            return;
+        }
+        double factor = Math.pow(0.5, (nowMillis - decayedAt) / halfLifeMillis);
+        for (int i = 0; i < size; i++) {
+            scores[i] *= factor;
+        }
+        decayedAt = nowMillis;
+    }
+
+    private int indexOf(UUID productId) {
+        long msb = productId.getMostSignificantBits();
+        long lsb = productId.getLeastSignificantBits();
+        for (int i = 0; i < size; i++) {
+            if (idBits[2 * i] == msb && idBits[2 * i + 1] == lsb) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int weakest() {
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (scores[i] < scores[min]) {
+                min = i;
+            }
+        }
+        return min;
+    }
+}
@@ -173,6 +173,27 @@ public class RecommendationController {
         );
     }
 
+    @Operation(
+        summary = "Get also viewed",
+        description = "Get products customers also viewed with a specific product (Public)"
+    )
+    @GetMapping("/also-viewed/{productId}")
+    public ResponseEntity<ApiResponse<RecommendationDto>> getAlsoViewed(
+        @PathVariable UUID productId,
+        @Parameter(description = "Number of products to return") @RequestParam(
+            defaultValue = "8"
+        ) int limit
+    ) {
+        RecommendationDto recommendation =
+            recommendationService.getAlsoViewed(productId, limit);
+        return ResponseEntity.ok(
+            ApiResponse.success(
+                "Recommendations retrieved successfully",
+                recommendation
+            )
+        );
+    }
+
     @Operation(
         summary = "Get personalized recommendations",
         description = "AI-powered recommendations using ML (Hybrid: CF 70% + CB 30%). For authenticated users based on cart/purchase history, for guests based on trending products."
@@ -7,5 +7,6 @@ public enum RecommendationType {
     NEW_ARRIVALS,       // Newest products
     SIMILAR_PRODUCTS,   // Similar to a specific product
     FREQUENTLY_BOUGHT_TOGETHER, // Bought together with a product
+    ALSO_VIEWED,        // Viewed together with a product
     FOR_YOU             // Personalized recommendations
 }
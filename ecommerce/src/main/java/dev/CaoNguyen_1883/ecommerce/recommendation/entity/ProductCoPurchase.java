@@ -0,0 +1,34 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One non-zero cell of the co-purchase matrix: orders (not cancelled) containing both products
+ * Stored in both directions; written with plain SQL by CoPurchaseMatrix
+ */
+@Entity
+@Table(name = "product_co_purchases", indexes = {
+        @Index(name = "idx_co_purchase_top", columnList = "product_id, order_count")
+})
+@IdClass(ProductCoPurchaseId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCoPurchase {
+
+    @Id
+    @Column(name = "product_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID productId;
+
+    @Id
+    @Column(name = "other_product_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID otherProductId;
+
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount;
+}
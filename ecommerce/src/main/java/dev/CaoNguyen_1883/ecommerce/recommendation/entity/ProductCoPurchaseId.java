@@ -0,0 +1,23 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Composite key for ProductCoPurchase entity
+ * Represents the combination of product_id and other_product_id
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCoPurchaseId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private UUID productId;
+    private UUID otherProductId;
+}
@@ -43,6 +43,11 @@ public interface IRecommendationService {
      */
     RecommendationDto getFrequentlyBoughtTogether(UUID productId, int limit);
 
+    /**
+     * Get products customers also viewed with a specific product
+     */
+    RecommendationDto getAlsoViewed(UUID productId, int limit);
+
     /**
      * Get personalized recommendations based on user's cart
      */
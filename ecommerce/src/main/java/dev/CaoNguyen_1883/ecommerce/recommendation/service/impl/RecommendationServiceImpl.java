@@ -1,17 +1,20 @@
 package dev.CaoNguyen_1883.ecommerce.recommendation.service.impl;
 
-import dev.CaoNguyen_1883.ecommerce.cart.entity.Cart;
-import dev.CaoNguyen_1883.ecommerce.cart.repository.CartRepository;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartLine;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartSnapshot;
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartStore;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
 import dev.CaoNguyen_1883.ecommerce.product.dto.ProductSummaryDto;
 import dev.CaoNguyen_1883.ecommerce.product.entity.Product;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductStatus;
 import dev.CaoNguyen_1883.ecommerce.product.mapper.ProductMapper;
 import dev.CaoNguyen_1883.ecommerce.product.repository.ProductRepository;
+import dev.CaoNguyen_1883.ecommerce.recommendation.component.CoPurchaseMatrix;
+import dev.CaoNguyen_1883.ecommerce.recommendation.component.CoViewGraph;
 import dev.CaoNguyen_1883.ecommerce.recommendation.dto.RecommendationDto;
 import dev.CaoNguyen_1883.ecommerce.recommendation.dto.RecommendationType;
 import dev.CaoNguyen_1883.ecommerce.recommendation.service.IRecommendationService;
-import dev.CaoNguyen_1883.ecommerce.tracking.entity.UserProductView;
-import dev.CaoNguyen_1883.ecommerce.tracking.repository.UserProductViewRepository;
+import dev.CaoNguyen_1883.ecommerce.tracking.service.ProductViewService;
 import java.util.*;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
@@ -29,9 +32,15 @@ import org.springframework.transaction.annotation.Transactional;
 public class RecommendationServiceImpl implements IRecommendationService {
 
     private final ProductRepository productRepository;
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final ProductMapper productMapper;
-    private final UserProductViewRepository userProductViewRepository;
+    private final ProductViewService productViewService;
+    private final CoPurchaseMatrix coPurchaseMatrix;
+    private final CoViewGraph coViewGraph;
+
+    // View history window used by personalized sections
+    private static final int RECENT_VIEWS_LIMIT = 20;
+    private static final int RECENT_VIEWS_DAYS = 30;
 
     @Override
     public List<RecommendationDto> getHomePageRecommendations() {
@@ -186,10 +195,19 @@ public class RecommendationServiceImpl implements IRecommendationService {
             limit
         );
 
-        List<Product> products = productRepository.findFrequentlyBoughtTogether(
-            productId,
-            PageRequest.of(0, limit)
-        );
+        // Neighbours from the co-purchase matrix, minus products no longer on sale
+        List<UUID> neighbourIds = coPurchaseMatrix.topNeighbours(productId, limit * 2);
+        Map<UUID, Product> found = productRepository
+            .findAllById(neighbourIds)
+            .stream()
+            .filter(p -> p.getStatus() == ProductStatus.APPROVED && Boolean.TRUE.equals(p.getIsActive()))
+            .collect(Collectors.toMap(Product::getId, p -> p));
+        List<Product> products = neighbourIds
+            .stream()
+            .map(found::get)
+            .filter(Objects::nonNull)
+            .limit(limit)
+            .toList();
 
         // If no co-purchased products found, fall back to similar products
         if (products.isEmpty()) {
@@ -212,6 +230,28 @@ public class RecommendationServiceImpl implements IRecommendationService {
             .build();
     }
 
+    @Override
+    public RecommendationDto getAlsoViewed(UUID productId, int limit) {
+        log.debug(
+            "Getting also viewed for product: {}, limit: {}",
+            productId,
+            limit
+        );
+
+        // Served from the in-memory co-view graph, no query
+        List<ProductSummaryDto> products = coViewGraph.alsoViewed(
+            productId,
+            limit
+        );
+
+        return RecommendationDto.builder()
+            .sectionTitle("Customers Also Viewed")
+            .sectionDescription("Customers who viewed this also viewed")
+            .type(RecommendationType.ALSO_VIEWED)
+            .products(products)
+            .build();
+    }
+
     @Override
     public RecommendationDto getRecommendationsBasedOnCart(
         UUID userId,
@@ -223,27 +263,25 @@ public class RecommendationServiceImpl implements IRecommendationService {
             limit
         );
 
-        Optional<Cart> cartOpt = cartRepository.findByUserIdWithItems(userId);
+        CartSnapshot cart = cartStore.snapshot(userId);
 
-        if (cartOpt.isEmpty() || cartOpt.get().getItems().isEmpty()) {
+        if (cart.isEmpty()) {
             // No cart or empty cart - return trending products
             return getTrendingProducts(limit);
         }
 
-        Cart cart = cartOpt.get();
-
         // Get all unique product IDs from cart items
         Set<UUID> cartProductIds = cart
-            .getItems()
+            .lines()
             .stream()
-            .map(item -> item.getVariant().getProduct().getId())
+            .map(CartLine::productId)
             .collect(Collectors.toSet());
 
         // Get all unique category IDs from cart products
-        Set<UUID> categoryIds = cart
-            .getItems()
+        Set<UUID> categoryIds = productRepository
+            .findAllById(cartProductIds)
             .stream()
-            .map(item -> item.getVariant().getProduct().getCategory().getId())
+            .map(product -> product.getCategory().getId())
             .collect(Collectors.toSet());
 
         // Find similar products from same categories (excluding cart products)
@@ -308,23 +346,20 @@ public class RecommendationServiceImpl implements IRecommendationService {
             limit
         );
 
-        // Get user's recent views (last 30 days)
-        List<UserProductView> recentViews =
-            userProductViewRepository.findRecentViewsByUser(
-                userId,
-                java.time.LocalDateTime.now().minusDays(30)
-            );
+        // Get user's recent views (last 30 days) from the in-memory ring
+        List<UUID> recentProductIds = productViewService.getRecentProductIds(
+            userId,
+            RECENT_VIEWS_LIMIT,
+            RECENT_VIEWS_DAYS
+        );
 
-        if (recentViews.isEmpty()) {
+        if (recentProductIds.isEmpty()) {
             log.debug("No view history found, returning trending products");
             return getTrendingProducts(limit);
         }
 
         // Extract viewed product IDs
-        Set<UUID> viewedProductIds = recentViews
-            .stream()
-            .map(UserProductView::getProductId)
-            .collect(Collectors.toSet());
+        Set<UUID> viewedProductIds = new HashSet<>(recentProductIds);
 
         // Get categories from viewed products
         List<Product> viewedProducts = productRepository.findAllById(
@@ -406,35 +441,30 @@ public class RecommendationServiceImpl implements IRecommendationService {
         Set<UUID> interactedProductIds = new LinkedHashSet<>();
 
         // 1. Get from view history (last 30 days) - 80% weight, take top 20
-        List<UserProductView> recentViews =
-            userProductViewRepository.findRecentViewsByUser(
-                userId,
-                java.time.LocalDateTime.now().minusDays(30)
-            );
-        recentViews
-            .stream()
-            .limit(20) // Limit to 20 most recent views (80% weight)
-            .map(UserProductView::getProductId)
-            .forEach(interactedProductIds::add);
+        List<UUID> recentProductIds = productViewService.getRecentProductIds(
+            userId,
+            RECENT_VIEWS_LIMIT, // Limit to 20 most recent views (80% weight)
+            RECENT_VIEWS_DAYS
+        );
+        interactedProductIds.addAll(recentProductIds);
 
         log.debug(
             "Found {} viewed products (using top 20)",
-            recentViews.size()
+            recentProductIds.size()
         );
 
         // 2. Get from cart - 20% weight, take top 5
-        Optional<Cart> cartOpt = cartRepository.findByUserIdWithItems(userId);
-        if (cartOpt.isPresent() && !cartOpt.get().getItems().isEmpty()) {
-            Cart cart = cartOpt.get();
+        CartSnapshot cart = cartStore.snapshot(userId);
+        if (!cart.isEmpty()) {
             cart
-                .getItems()
+                .lines()
                 .stream()
                 .limit(5) // Limit to 5 cart items (20% weight)
-                .map(item -> item.getVariant().getProduct().getId())
+                .map(CartLine::productId)
                 .forEach(interactedProductIds::add);
             log.debug(
                 "Added {} cart products (using top 5)",
-                Math.min(5, cart.getItems().size())
+                Math.min(5, cart.lines().size())
             );
         }
 
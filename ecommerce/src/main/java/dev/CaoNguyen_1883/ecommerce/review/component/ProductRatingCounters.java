@@ -0,0 +1,184 @@
+package dev.CaoNguyen_1883.ecommerce.review.component;
+
+import dev.CaoNguyen_1883.ecommerce.review.dto.ProductRatingSummary;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-product rating histograms (1-5 star counts plus rating sum) in product_rating_stats
+ *
+ * Review transitions move one bucket by +1/-1 with a single upsert, and products.average_rating /
+ * total_reviews are rewritten from that row right after. Summaries are a primary key
+ * read; no AVG/COUNT over reviews runs on the request path.
+ */
+@Component
+@Slf4j
+public class ProductRatingCounters implements SmartInitializingSingleton {
+
+    private static final String ADJUST_SQL = """
+            INSERT INTO product_rating_stats
+                (product_id, one_star, two_star, three_star, four_star, five_star, rating_sum, updated_at)
+            VALUES (?, IF(? = 1, ?, 0), IF(? = 2, ?, 0), IF(? = 3, ?, 0), IF(? = 4, ?, 0), IF(? = 5, ?, 0), ?, NOW())
+            ON DUPLICATE KEY UPDATE
+                one_star = one_star + VALUES(one_star),
+                two_star = two_star + VALUES(two_star),
+                three_star = three_star + VALUES(three_star),
+                four_star = four_star + VALUES(four_star),
+                five_star = five_star + VALUES(five_star),
+                rating_sum = rating_sum + VALUES(rating_sum),
+                updated_at = NOW()
+            """;
+
+    // One GROUP BY over the approved, active reviews; %s narrows it to one product or none.
+    // A row that already exists is overwritten with the recount
+    private static final String HISTOGRAM_SQL = """
+            INSERT INTO product_rating_stats
+                (product_id, one_star, two_star, three_star, four_star, five_star, rating_sum, updated_at)
+            SELECT product_id,
+                   SUM(rating = 1), SUM(rating = 2), SUM(rating = 3), SUM(rating = 4), SUM(rating = 5),
+                   SUM(rating), NOW()
+            FROM reviews
+            WHERE status = 'APPROVED' AND is_active = 1 %s
+            GROUP BY product_id
+            ON DUPLICATE KEY UPDATE
+                one_star = VALUES(one_star),
+                two_star = VALUES(two_star),
+                three_star = VALUES(three_star),
+                four_star = VALUES(four_star),
+                five_star = VALUES(five_star),
+                rating_sum = VALUES(rating_sum),
+                updated_at = NOW()
+            """;
+
+    // Locks the empty index range too, so review transitions cannot insert rows until the backfill commits
+    private static final String EMPTY_CHECK_SQL =
+            "SELECT COUNT(*) FROM (SELECT 1 FROM product_rating_stats LIMIT 1 FOR UPDATE) t";
+
+    private static final String BACKFILL_LOCK = "product_rating_stats_backfill";
+
+    private static final String SYNC_PRODUCT_SQL = """
+            UPDATE products p
+            LEFT JOIN product_rating_stats s ON s.product_id = p.id
+            SET p.total_reviews = COALESCE(s.one_star + s.two_star + s.three_star + s.four_star + s.five_star, 0),
+                p.average_rating = COALESCE(ROUND(s.rating_sum
+                    / NULLIF(s.one_star + s.two_star + s.three_star + s.four_star + s.five_star, 0), 2), 0)
+            WHERE p.id = ?
+            """;
+
+    private static final String SUMMARY_SQL = """
+            SELECT one_star, two_star, three_star, four_star, five_star, rating_sum
+            FROM product_rating_stats
+            WHERE product_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+    private final int backfillLockSeconds;
+
+    public ProductRatingCounters(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.review.rating-stats.backfill-on-startup:true}") boolean backfillOnStartup,
+            @Value("${app.review.rating-stats.backfill-lock-seconds:60}") int backfillLockSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillOnStartup = backfillOnStartup;
+        this.backfillLockSeconds = backfillLockSeconds;
+    }
+
+    /**
+     * Count (delta +1) or uncount (delta -1) one approved review; runs in the caller's transaction
+     */
+    public void adjust(UUID productId, int rating, int delta) {
+        byte[] id = UuidUtils.toBytes(productId);
+        jdbcTemplate.update(ADJUST_SQL, id,
+                rating, delta, rating, delta, rating, delta, rating, delta, rating, delta,
+                rating * delta);
+        jdbcTemplate.update(SYNC_PRODUCT_SQL, id);
+    }
+
+    /**
+     * Recount one product from its reviews (repair path)
+     */
+    public void rebuild(UUID productId) {
+        byte[] id = UuidUtils.toBytes(productId);
+        jdbcTemplate.update("DELETE FROM product_rating_stats WHERE product_id = ?", id);
+        jdbcTemplate.update(HISTOGRAM_SQL.formatted("AND product_id = ?"), id);
+        jdbcTemplate.update(SYNC_PRODUCT_SQL, id);
+    }
+
+    /**
+     * Histogram and average of a product (all zero if it has no approved review)
+     */
+    public ProductRatingSummary summary(UUID productId) {
+        List<long[]> rows = jdbcTemplate.query(SUMMARY_SQL, (rs, rowNum) -> new long[]{
+                rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)
+        }, UuidUtils.toBytes(productId));
+        long[] counts = rows.isEmpty() ? new long[6] : rows.get(0);
+
+        long total = counts[0] + counts[1] + counts[2] + counts[3] + counts[4];
+        return ProductRatingSummary.builder()
+                .productId(productId)
+                .averageRating(total > 0 ? (double) counts[5] / total : 0.0)
+                .totalReviews(total)
+                .oneStarCount(counts[0])
+                .twoStarCount(counts[1])
+                .threeStarCount(counts[2])
+                .fourStarCount(counts[3])
+                .fiveStarCount(counts[4])
+                .build();
+    }
+
+    /**
+     * Runs before the web server starts, so no review transition races the backfill on this instance
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backfillOnStartup) {
+            backfillIfEmpty();
+        }
+    }
+
+    /**
+     * First start with the table: count existing approved reviews once
+     * One instance at a time (named lock), empty check and insert in one transaction; a failure stops startup
+     */
+    public void backfillIfEmpty() {
+        Integer products = transactionTemplate.execute(status -> backfillLocked());
+        if (products != null && products > 0) {
+            log.info("Product rating stats backfilled from existing reviews: {} products", products);
+        }
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Runs in the backfill transaction, so the named lock is taken on its connection
+     */
+    private int backfillLocked() {
+        Integer locked = jdbcTemplate.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class,
+                BACKFILL_LOCK, backfillLockSeconds);
+        if (locked == null || locked != 1) {
+            throw new IllegalStateException("Timed out waiting for the product rating stats backfill lock");
+        }
+        try {
+            Integer rows = jdbcTemplate.queryForObject(EMPTY_CHECK_SQL, Integer.class);
+            if (rows == null || rows > 0) {
+                return 0;
+            }
+            return jdbcTemplate.update(HISTOGRAM_SQL.formatted(""));
+        } finally {
+            jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, BACKFILL_LOCK);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.CaoNguyen_1883.ecommerce.review.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Rating histogram of a product over its approved, active reviews
+ * Moved by ProductRatingCounters as reviews are approved, rejected, edited or deleted
+ */
+@Entity
+@Table(name = "product_rating_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRatingStats {
+
+    @Id
+    @Column(name = "product_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID productId;
+
+    @Column(name = "one_star", nullable = false)
+    private Long oneStar = 0L;
+
+    @Column(name = "two_star", nullable = false)
+    private Long twoStar = 0L;
+
+    @Column(name = "three_star", nullable = false)
+    private Long threeStar = 0L;
+
+    @Column(name = "four_star", nullable = false)
+    private Long fourStar = 0L;
+
+    @Column(name = "five_star", nullable = false)
+    private Long fiveStar = 0L;
+
+    // Sum of ratings, average = rating_sum / total
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
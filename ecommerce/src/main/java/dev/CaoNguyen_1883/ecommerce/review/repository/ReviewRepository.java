@@ -88,31 +88,6 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
             @Param("productId") UUID productId
     );
 
-    // Calculate average rating
-    @Query("SELECT AVG(r.rating) FROM Review r " +
-            "WHERE r.product.id = :productId " +
-            "AND r.status = 'APPROVED' " +
-            "AND r.isActive = true")
-    Double calculateAverageRating(@Param("productId") UUID productId);
-
-    // Count reviews by product
-    @Query("SELECT COUNT(r) FROM Review r " +
-            "WHERE r.product.id = :productId " +
-            "AND r.status = 'APPROVED' " +
-            "AND r.isActive = true")
-    Long countApprovedByProductId(@Param("productId") UUID productId);
-
-    // Count reviews by rating
-    @Query("SELECT COUNT(r) FROM Review r " +
-            "WHERE r.product.id = :productId " +
-            "AND r.rating = :rating " +
-            "AND r.status = 'APPROVED' " +
-            "AND r.isActive = true")
-    Long countByProductIdAndRating(
-            @Param("productId") UUID productId,
-            @Param("rating") Integer rating
-    );
-
     // Get verified purchase reviews
     @Query("SELECT r FROM Review r " +
             "WHERE r.product.id = :productId " +
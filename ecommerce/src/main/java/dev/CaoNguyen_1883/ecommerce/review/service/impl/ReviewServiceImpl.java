@@ -3,10 +3,15 @@ package dev.CaoNguyen_1883.ecommerce.review.service.impl;
 import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ForbiddenException;
 import dev.CaoNguyen_1883.ecommerce.common.exception.ResourceNotFoundException;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderDto;
 import dev.CaoNguyen_1883.ecommerce.order.entity.Order;
+import dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus;
 import dev.CaoNguyen_1883.ecommerce.order.repository.OrderRepository;
+import dev.CaoNguyen_1883.ecommerce.order.service.OrderArchiveService;
 import dev.CaoNguyen_1883.ecommerce.product.entity.Product;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
 import dev.CaoNguyen_1883.ecommerce.product.repository.ProductRepository;
+import dev.CaoNguyen_1883.ecommerce.review.component.ProductRatingCounters;
 import dev.CaoNguyen_1883.ecommerce.review.dto.*;
 import dev.CaoNguyen_1883.ecommerce.review.entity.Review;
 import dev.CaoNguyen_1883.ecommerce.review.entity.ReviewHelpfulness;
@@ -26,7 +31,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -40,7 +47,9 @@ public class ReviewServiceImpl implements IReviewService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
+    private final OrderArchiveService orderArchiveService;
     private final ReviewMapper reviewMapper;
+    private final ProductRatingCounters ratingCounters;
 
     @Override
     @Transactional
@@ -65,9 +74,24 @@ public class ReviewServiceImpl implements IReviewService {
         Order order = null;
 
         if (request.getOrderId() != null) {
-            order = orderRepository.findById(request.getOrderId())
+            order = orderRepository.findById(request.getOrderId()).orElse(null);
+        }
+
+        if (request.getOrderId() != null && order == null) {
+            // Archived order: checked from its payload, and not linked (reviews.order_id references orders)
+            OrderDto archived = orderArchiveService.findById(request.getOrderId())
                     .orElseThrow(() -> new ResourceNotFoundException("Order", "id", request.getOrderId()));
 
+            if (!archived.getUserId().equals(userId)) {
+                throw new ForbiddenException("Order does not belong to you");
+            }
+
+            if (!OrderArchiveService.containsAny(archived, variantIds(product))) {
+                throw new BadRequestException("Order does not contain this product");
+            }
+
+            isVerifiedPurchase = archived.getOrderStatus() == OrderStatus.DELIVERED;
+        } else if (order != null) {
             // Verify order belongs to user and contains this product
             if (!order.getUser().getId().equals(userId)) {
                 throw new ForbiddenException("Order does not belong to you");
@@ -80,12 +104,13 @@ public class ReviewServiceImpl implements IReviewService {
                 throw new BadRequestException("Order does not contain this product");
             }
 
-            if (order.getOrderStatus() == dev.CaoNguyen_1883.ecommerce.order.entity.OrderStatus.DELIVERED) {
+            if (order.getOrderStatus() == OrderStatus.DELIVERED) {
                 isVerifiedPurchase = true;
             }
         } else {
-            // Check if user has purchased this product in any order
-            isVerifiedPurchase = reviewRepository.hasUserPurchasedProduct(userId, request.getProductId());
+            // Check if user has purchased this product in any order, hot or archived
+            isVerifiedPurchase = reviewRepository.hasUserPurchasedProduct(userId, request.getProductId())
+                    || orderArchiveService.hasDeliveredItem(userId, variantIds(product));
         }
 
         // Create review
@@ -137,6 +162,11 @@ public class ReviewServiceImpl implements IReviewService {
             throw new BadRequestException("Cannot update rejected review");
         }
 
+        // An approved review leaves the product's rating until approved again
+        if (review.getStatus() == ReviewStatus.APPROVED) {
+            ratingCounters.adjust(review.getProduct().getId(), review.getRating(), -1);
+        }
+
         // Update fields
         review.setRating(request.getRating());
         review.setTitle(request.getTitle());
@@ -184,11 +214,14 @@ public class ReviewServiceImpl implements IReviewService {
             throw new ForbiddenException("You can only delete your own reviews");
         }
 
+        boolean counted = review.getStatus() == ReviewStatus.APPROVED && review.getIsActive();
         review.softDelete();
         reviewRepository.save(review);
 
         // Update product rating statistics
-        updateProductRatingStatistics(review.getProduct().getId());
+        if (counted) {
+            ratingCounters.adjust(review.getProduct().getId(), review.getRating(), -1);
+        }
 
         log.info("Review deleted. ID: {}, User: {}", reviewId, userId);
     }
@@ -309,7 +342,9 @@ public class ReviewServiceImpl implements IReviewService {
         review = reviewRepository.save(review);
 
         // Update product rating statistics
-        updateProductRatingStatistics(review.getProduct().getId());
+        if (review.getIsActive()) {
+            ratingCounters.adjust(review.getProduct().getId(), review.getRating(), 1);
+        }
 
         log.info("Review approved. ID: {}, Approved by: {}", reviewId, approver.getEmail());
 
@@ -327,9 +362,15 @@ public class ReviewServiceImpl implements IReviewService {
         User rejector = userRepository.findById(rejectedBy)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", rejectedBy));
 
+        boolean counted = review.getStatus() == ReviewStatus.APPROVED && review.getIsActive();
         review.reject(request.getReason(), rejector);
         review = reviewRepository.save(review);
 
+        // Update product rating statistics
+        if (counted) {
+            ratingCounters.adjust(review.getProduct().getId(), review.getRating(), -1);
+        }
+
         log.info("Review rejected. ID: {}, Rejected by: {}, Reason: {}",
                 reviewId, rejector.getEmail(), request.getReason());
 
@@ -448,25 +489,8 @@ public class ReviewServiceImpl implements IReviewService {
     public ProductRatingSummary getProductRatingSummary(UUID productId) {
         log.debug("Fetching rating summary for product: {}", productId);
 
-        Double averageRating = reviewRepository.calculateAverageRating(productId);
-        Long totalReviews = reviewRepository.countApprovedByProductId(productId);
-
-        Long fiveStars = reviewRepository.countByProductIdAndRating(productId, 5);
-        Long fourStars = reviewRepository.countByProductIdAndRating(productId, 4);
-        Long threeStars = reviewRepository.countByProductIdAndRating(productId, 3);
-        Long twoStars = reviewRepository.countByProductIdAndRating(productId, 2);
-        Long oneStars = reviewRepository.countByProductIdAndRating(productId, 1);
-
-        return ProductRatingSummary.builder()
-                .productId(productId)
-                .averageRating(averageRating != null ? averageRating : 0.0)
-                .totalReviews(totalReviews)
-                .fiveStarCount(fiveStars)
-                .fourStarCount(fourStars)
-                .threeStarCount(threeStars)
-                .twoStarCount(twoStars)
-                .oneStarCount(oneStars)
-                .build();
+        // Primary key read of the incrementally maintained histogram
+        return ratingCounters.summary(productId);
     }
 
     @Override
@@ -474,19 +498,14 @@ public class ReviewServiceImpl implements IReviewService {
     public void updateProductRatingStatistics(UUID productId) {
         log.debug("Updating product rating statistics for: {}", productId);
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
-
-        Double averageRating = reviewRepository.calculateAverageRating(productId);
-        Long totalReviews = reviewRepository.countApprovedByProductId(productId);
-
-        product.setAverageRating(averageRating != null ? averageRating : 0.0);
-        product.setTotalReviews(totalReviews != null ? totalReviews.intValue() : 0);
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
 
-        productRepository.save(product);
+        // Recount from reviews with one GROUP BY; regular transitions adjust the counters instead
+        ratingCounters.rebuild(productId);
 
-        log.info("Product rating statistics updated. Product: {}, Avg: {}, Total: {}",
-                productId, averageRating, totalReviews);
+        log.info("Product rating statistics rebuilt. Product: {}", productId);
     }
 
     // ===== HELPER METHODS =====
@@ -495,4 +514,10 @@ public class ReviewServiceImpl implements IReviewService {
         helpfulnessRepository.findByReviewIdAndUserId(reviewId, userId)
                 .ifPresent(vote -> dto.setUserVote(vote.getIsHelpful()));
     }
+
+    private Set<UUID> variantIds(Product product) {
+        return product.getVariants().stream()
+                .map(ProductVariant::getId)
+                .collect(Collectors.toSet());
+    }
 }
\ No newline at end of file
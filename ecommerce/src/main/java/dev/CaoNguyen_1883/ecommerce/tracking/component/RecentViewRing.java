@@ -0,0 +1,125 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fixed-size ring of the most recently viewed products of one user
+ * Newest entry wins: viewing a product again moves it to the head instead of adding a duplicate
+ * All operations are O(capacity), capacity is small (tens of entries)
+ */
+public class RecentViewRing {
+
+    private final UUID[] productIds;
+    private final long[] viewedAt;  // epoch millis
+
+    private int head = 0;  // slot of the newest entry
+    private int size = 0;
+
+    public RecentViewRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.productIds = new UUID[capacity];
+        this.viewedAt = new long[capacity];
+    }
+
+    public int capacity() {
+        return productIds.length;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Record a view as the newest entry, evicting the oldest one when the ring is full
+     */
+    public synchronized void record(UUID productId, long viewedAtMillis) {
+        int existing = indexOf(productId);
+        if (existing == 0) {
+            // Already the newest entry - only refresh the timestamp
+            viewedAt[head] = Math.max(viewedAt[head], viewedAtMillis);
+            return;
+        }
+        if (existing > 0) {
+            removeAt(existing);
+        }
+
+        head = (head + 1) % productIds.length;
+        productIds[head] = productId;
+        viewedAt[head] = viewedAtMillis;
+        if (size < productIds.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Append an entry behind all existing ones (used when hydrating from storage, oldest last)
+     */
+    public synchronized void appendOldest(UUID productId, long viewedAtMillis) {
+        if (size == productIds.length || indexOf(productId) >= 0) {
+            return;
+        }
+        int slot = slot(size);
+        productIds[slot] = productId;
+        viewedAt[slot] = viewedAtMillis;
+        size++;
+    }
+
+    /**
+     * Newest-first views viewed at or after sinceMillis, at most limit entries
+     */
+    public synchronized List<RecentView> recent(int limit, long sinceMillis) {
+        int count = Math.min(limit, size);
+        List<RecentView> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = slot(i);
+            if (viewedAt[slot] < sinceMillis) {
+                break;  // entries are ordered, everything after is older
+            }
+            result.add(new RecentView(productIds[slot], viewedAt[slot]));
+        }
+        return result;
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Physical slot of the i-th newest entry
+     */
+    private int slot(int i) {
+        return Math.floorMod(head - i, productIds.length);
+    }
+
+    /**
+     * Logical position (0 = newest) of the product, or -1
+     */
+    private int indexOf(UUID productId) {
+        for (int i = 0; i < size; i++) {
+            if (productId.equals(productIds[slot(i)])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the entry at logical position i by shifting newer entries one step back
+     */
+    private void removeAt(int i) {
+        for (int j = i; j > 0; j--) {
+            int to = slot(j);
+            int from = slot(j - 1);
+            productIds[to] = productIds[from];
+            viewedAt[to] = viewedAt[from];
+        }
+        productIds[head] = null;
+        head = Math.floorMod(head - 1, productIds.length);
+        size--;
+    }
+
+    public record RecentView(UUID productId, long viewedAtMillis) {
+    }
+}
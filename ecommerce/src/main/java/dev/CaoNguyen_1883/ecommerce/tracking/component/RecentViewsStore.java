@@ -0,0 +1,106 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.CaoNguyen_1883.ecommerce.tracking.entity.UserProductView;
+import dev.CaoNguyen_1883.ecommerce.tracking.repository.UserProductViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-process store of per-user recent views for the recommendation system
+ *
+ * Each user gets a bounded RecentViewRing updated on every tracked view.
+ * A ring is hydrated once from user_product_views (LIMIT capacity) the first time
+ * the user is seen by this instance; after that reads never touch MySQL.
+ */
+@Component
+@Slf4j
+public class RecentViewsStore {
+
+    private final UserProductViewRepository viewRepository;
+    private final int capacity;
+    private final Cache<UUID, RecentViewRing> rings;
+
+    public RecentViewsStore(
+            UserProductViewRepository viewRepository,
+            @Value("${app.tracking.recent-views.capacity:50}") int capacity,
+            @Value("${app.tracking.recent-views.max-users:100000}") long maxUsers,
+            @Value("${app.tracking.recent-views.idle-days:7}") long idleDays) {
+        this.viewRepository = viewRepository;
+        this.capacity = capacity;
+        this.rings = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofDays(idleDays))
+                .build();
+
+        log.info("Initialized recent views store: capacity={}, maxUsers={}", capacity, maxUsers);
+    }
+
+    /**
+     * Record a view as the user's newest entry
+     */
+    public void record(UUID userId, UUID productId, LocalDateTime viewedAt) {
+        ringFor(userId).record(productId, toMillis(viewedAt));
+    }
+
+    /**
+     * Newest-first product IDs viewed within the last N days, at most limit entries
+     */
+    public List<UUID> getRecentProductIds(UUID userId, int limit, int days) {
+        long since = toMillis(LocalDateTime.now().minusDays(days));
+        return ringFor(userId).recent(limit, since).stream()
+                .map(RecentViewRing.RecentView::productId)
+                .toList();
+    }
+
+    /**
+     * Newest-first product IDs viewed at or after since, at most limit entries
+     */
+    public List<UUID> getRecentProductIdsSince(UUID userId, int limit, LocalDateTime since) {
+        return ringFor(userId).recent(limit, toMillis(since)).stream()
+                .map(RecentViewRing.RecentView::productId)
+                .toList();
+    }
+
+    /**
+     * Drop a user's ring (e.g. after their view history is purged)
+     */
+    public void evict(UUID userId) {
+        rings.invalidate(userId);
+    }
+
+    // ===== HELPER METHODS =====
+
+    private RecentViewRing ringFor(UUID userId) {
+        return rings.get(userId, this::hydrate);
+    }
+
+    private RecentViewRing hydrate(UUID userId) {
+        RecentViewRing ring = new RecentViewRing(capacity);
+        try {
+            List<UserProductView> views = viewRepository.findByUserIdOrderByLastViewedAtDesc(
+                    userId, PageRequest.of(0, capacity));
+            for (UserProductView view : views) {
+                ring.appendOldest(view.getProductId(), toMillis(view.getLastViewedAt()));
+            }
+            log.debug("Hydrated recent views ring: user={}, entries={}", userId, ring.size());
+        } catch (Exception e) {
+            // Start with an empty ring - it fills up again from new views
+            log.warn("Failed to hydrate recent views for user {}: {}", userId, e.getMessage());
+        }
+        return ring;
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
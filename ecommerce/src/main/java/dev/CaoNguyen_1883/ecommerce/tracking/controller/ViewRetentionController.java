@@ -0,0 +1,44 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.controller;
+
+import dev.CaoNguyen_1883.ecommerce.common.response.ApiResponse;
+import dev.CaoNguyen_1883.ecommerce.tracking.dto.ViewRetentionReport;
+import dev.CaoNguyen_1883.ecommerce.tracking.service.ViewRetentionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/tracking/retention")
+@RequiredArgsConstructor
+@Tag(name = "View Tracking Maintenance", description = "APIs for view history retention")
+@SecurityRequirement(name = "bearer-jwt")
+public class ViewRetentionController {
+
+    private final ViewRetentionService retentionService;
+
+    @Operation(
+            summary = "Run view retention",
+            description = "Compact old product views into category affinity and delete them (Admin only)"
+    )
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ViewRetentionReport>> runRetention() {
+        ViewRetentionReport report = retentionService.runRetention();
+        return ResponseEntity.ok(ApiResponse.success("View retention completed", report));
+    }
+
+    @Operation(
+            summary = "Get last retention report",
+            description = "Get rows and bytes reclaimed by the last retention run (Admin only)"
+    )
+    @GetMapping("/last-report")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ViewRetentionReport>> getLastReport() {
+        ViewRetentionReport report = retentionService.getLastReport();
+        return ResponseEntity.ok(ApiResponse.success("Last retention report retrieved successfully", report));
+    }
+}
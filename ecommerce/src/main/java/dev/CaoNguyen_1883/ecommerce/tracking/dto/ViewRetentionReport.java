@@ -0,0 +1,20 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ViewRetentionReport {
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime cutoff;            // Rows last viewed before this were compacted
+    private Integer batches;
+    private Long rowsDeleted;                // Raw user_product_views rows removed
+    private Long affinityRowsUpserted;       // user_category_affinity rows inserted or updated
+    private Long estimatedBytesPerRow;       // (data + index length) / rows before the run
+    private Long estimatedBytesReclaimed;    // rowsDeleted * estimatedBytesPerRow
+}
@@ -0,0 +1,50 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compact per-user/per-category interest summary
+ * Filled by the view retention job from aged user_product_views rows,
+ * so long-term preferences survive after raw rows are deleted
+ */
+@Entity
+@Table(name = "user_category_affinity")
+@IdClass(UserCategoryAffinityId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCategoryAffinity {
+
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID userId;
+
+    @Id
+    @Column(name = "category_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID categoryId;
+
+    @Column(name = "view_count", nullable = false)
+    private Long viewCount = 0L;
+
+    @Column(name = "product_count", nullable = false)
+    private Integer productCount = 0;
+
+    @Column(name = "last_viewed_at", nullable = false)
+    private LocalDateTime lastViewedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,23 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Composite key for UserCategoryAffinity entity
+ * Represents the combination of user_id and category_id
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCategoryAffinityId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private UUID userId;
+    private UUID categoryId;
+}
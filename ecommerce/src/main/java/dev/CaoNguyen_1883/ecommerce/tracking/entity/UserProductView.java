@@ -20,9 +20,7 @@ import java.util.UUID;
        indexes = {
            @Index(name = "idx_user_views", columnList = "user_id, last_viewed_at"),
            @Index(name = "idx_product_viewers", columnList = "product_id, view_count"),
-           @Index(name = "idx_last_viewed", columnList = "last_viewed_at"),
-           @Index(name = "idx_view_count", columnList = "view_count"),
-           @Index(name = "idx_recent_views", columnList = "user_id, last_viewed_at")
+           @Index(name = "idx_last_viewed", columnList = "last_viewed_at")  // Also drives retention batches
        })
 @IdClass(UserProductViewId.class)
 @Data
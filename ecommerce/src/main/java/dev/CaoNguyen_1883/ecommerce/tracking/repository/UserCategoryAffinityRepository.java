@@ -0,0 +1,28 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.repository;
+
+import dev.CaoNguyen_1883.ecommerce.tracking.entity.UserCategoryAffinity;
+import dev.CaoNguyen_1883.ecommerce.tracking.entity.UserCategoryAffinityId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for UserCategoryAffinity entity
+ * Long-term category preferences compacted from old view rows
+ */
+@Repository
+public interface UserCategoryAffinityRepository extends JpaRepository<UserCategoryAffinity, UserCategoryAffinityId> {
+
+    /**
+     * Get user's categories ordered by accumulated interest
+     *
+     * @param userId User ID
+     * @return List of category affinities
+     */
+    @Query("SELECT a FROM UserCategoryAffinity a WHERE a.userId = :userId ORDER BY a.viewCount DESC")
+    List<UserCategoryAffinity> findByUserIdOrderByViewCountDesc(@Param("userId") UUID userId);
+}
@@ -2,6 +2,7 @@ package dev.CaoNguyen_1883.ecommerce.tracking.repository;
 
 import dev.CaoNguyen_1883.ecommerce.tracking.entity.UserProductView;
 import dev.CaoNguyen_1883.ecommerce.tracking.entity.UserProductViewId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -50,6 +51,17 @@ public interface UserProductViewRepository extends JpaRepository<UserProductView
     @Query("SELECT upv FROM UserProductView upv WHERE upv.userId = :userId ORDER BY upv.lastViewedAt DESC")
     List<UserProductView> findByUserIdOrderByLastViewedAtDesc(@Param("userId") UUID userId);
 
+    /**
+     * Get user's latest views, bounded by the page size
+     * Used to hydrate the in-memory recent views ring
+     *
+     * @param userId User ID
+     * @param pageable Limit of rows to read
+     * @return List of user's most recently viewed products
+     */
+    @Query("SELECT upv FROM UserProductView upv WHERE upv.userId = :userId ORDER BY upv.lastViewedAt DESC")
+    List<UserProductView> findByUserIdOrderByLastViewedAtDesc(@Param("userId") UUID userId, Pageable pageable);
+
     /**
      * Get user's most viewed products
      * Used for understanding user preferences
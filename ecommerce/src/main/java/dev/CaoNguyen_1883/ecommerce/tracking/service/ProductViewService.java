@@ -1,14 +1,16 @@
 package dev.CaoNguyen_1883.ecommerce.tracking.service;
 
+import dev.CaoNguyen_1883.ecommerce.recommendation.component.CoViewGraph;
+import dev.CaoNguyen_1883.ecommerce.tracking.component.RecentViewsStore;
 import dev.CaoNguyen_1883.ecommerce.tracking.entity.UserProductView;
 import dev.CaoNguyen_1883.ecommerce.tracking.repository.UserProductViewRepository;
+import dev.CaoNguyen_1883.ecommerce.util.UuidUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -23,6 +25,8 @@ import java.util.UUID;
 public class ProductViewService {
 
     private final UserProductViewRepository viewRepository;
+    private final RecentViewsStore recentViewsStore;
+    private final CoViewGraph coViewGraph;
 
     /**
      * Track a product view (ASYNC - does not block main request)
@@ -51,12 +55,19 @@ public class ProductViewService {
         try {
             // Use native query with ON DUPLICATE KEY UPDATE
             // This is atomic and efficient - single query
+            LocalDateTime viewedAt = LocalDateTime.now();
             viewRepository.trackView(
-                uuidToBytes(userId),
-                uuidToBytes(productId),
-                LocalDateTime.now()
+                UuidUtils.toBytes(userId),
+                UuidUtils.toBytes(productId),
+                viewedAt
             );
 
+            // Link with the previous views of the session (reads the ring, so before recording)
+            coViewGraph.recordView(userId, productId, viewedAt);
+
+            // Keep the in-memory recent views ring in sync for recommendations
+            recentViewsStore.record(userId, productId, viewedAt);
+
             log.debug("Tracked view: user={}, product={}", userId, productId);
 
         } catch (Exception e) {
@@ -79,6 +90,19 @@ public class ProductViewService {
         return viewRepository.findRecentViewsByUser(userId, sinceDate);
     }
 
+    /**
+     * Get product IDs the user viewed most recently (for recommendation)
+     * Served from the in-memory ring, does not query user_product_views
+     *
+     * @param userId User ID
+     * @param limit Maximum number of products
+     * @param days Number of days to look back
+     * @return Newest-first list of product IDs
+     */
+    public List<UUID> getRecentProductIds(UUID userId, int limit, int days) {
+        return recentViewsStore.getRecentProductIds(userId, limit, days);
+    }
+
     /**
      * Get user's most viewed products
      *
@@ -118,14 +142,4 @@ public class ProductViewService {
     public Long getProductUniqueViewers(UUID productId) {
         return viewRepository.countUniqueViewersByProduct(productId);
     }
-
-    /**
-     * Utility: Convert UUID to byte array for native queries
-     */
-    private byte[] uuidToBytes(UUID uuid) {
-        ByteBuffer bb = ByteBuffer.wrap(new byte[16]);
-        bb.putLong(uuid.getMostSignificantBits());
-        bb.putLong(uuid.getLeastSignificantBits());
-        return bb.array();
-    }
 }
@@ -0,0 +1,303 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.service;
+
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.tracking.dto.ViewRetentionReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retention and compaction for user_product_views
+ *
+ * Rows not viewed for N days are rolled into user_category_affinity
+ * and deleted in small keyset batches (ordered by the idx_last_viewed index),
+ * each batch in its own short transaction so upserts from view tracking are never blocked for long.
+ */
+@Service
+@Slf4j
+public class ViewRetentionService {
+
+    private static final String SELECT_BATCH_SQL = """
+            SELECT v.user_id, v.product_id, v.view_count, v.last_viewed_at, p.category_id
+            FROM user_product_views v
+            LEFT JOIN products p ON p.id = v.product_id
+            WHERE v.last_viewed_at < ?
+              AND (v.last_viewed_at, v.user_id, v.product_id) > (?, ?, ?)
+            ORDER BY v.last_viewed_at, v.user_id, v.product_id
+            LIMIT ?
+            FOR UPDATE OF v SKIP LOCKED
+            """;
+
+    private static final String UPSERT_AFFINITY_SQL = """
+            INSERT INTO user_category_affinity
+                (user_id, category_id, view_count, product_count, last_viewed_at, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                view_count = view_count + VALUES(view_count),
+                product_count = product_count + VALUES(product_count),
+                last_viewed_at = GREATEST(last_viewed_at, VALUES(last_viewed_at)),
+                updated_at = VALUES(updated_at)
+            """;
+
+    private static final String DELETE_BATCH_SQL =
+            "DELETE FROM user_product_views WHERE (user_id, product_id) IN (:keys)";
+
+    private static final String TABLE_SIZE_SQL = """
+            SELECT COALESCE(data_length + index_length, 0), COALESCE(table_rows, 0)
+            FROM information_schema.tables
+            WHERE table_schema = DATABASE() AND table_name = 'user_product_views'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.tracking.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.tracking.retention.days:180}")
+    private int retentionDays;
+
+    @Value("${app.tracking.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.tracking.retention.max-batches:2000}")
+    private int maxBatches;
+
+    @Value("${app.tracking.retention.pause-millis:50}")
+    private long pauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile ViewRetentionReport lastReport;
+
+    public ViewRetentionService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Nightly retention run (default 03:30)
+     */
+    @Scheduled(cron = "${app.tracking.retention.cron:0 30 3 * * *}")
+    public void scheduledRetention() {
+        if (!enabled) {
+            log.debug("View retention disabled, skipping scheduled run");
+            return;
+        }
+        try {
+            runRetention();
+        } catch (BadRequestException e) {
+            log.info("Skipping scheduled view retention: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compact and delete views older than the retention window
+     *
+     * @return Report with rows and estimated bytes reclaimed
+     */
+    public ViewRetentionReport runRetention() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("View retention is already running");
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            LocalDateTime cutoff = startedAt.minusDays(retentionDays);
+            long bytesPerRow = estimateBytesPerRow();
+
+            log.info("Starting view retention: cutoff={}, batchSize={}", cutoff, batchSize);
+
+            // Keyset cursor over (last_viewed_at, user_id, product_id)
+            Cursor cursor = Cursor.start();
+            long rowsDeleted = 0;
+            long affinityRows = 0;
+            int batches = 0;
+
+            while (batches < maxBatches) {
+                BatchResult result = transactionTemplate.execute(status -> compactBatch(cutoff, cursor));
+                if (result == null || result.rowsDeleted() == 0) {
+                    break;
+                }
+                batches++;
+                rowsDeleted += result.rowsDeleted();
+                affinityRows += result.affinityRows();
+
+                if (result.rowsDeleted() < batchSize) {
+                    break;  // last partial batch
+                }
+                pause();
+            }
+
+            ViewRetentionReport report = ViewRetentionReport.builder()
+                    .startedAt(startedAt)
+                    .finishedAt(LocalDateTime.now())
+                    .cutoff(cutoff)
+                    .batches(batches)
+                    .rowsDeleted(rowsDeleted)
+                    .affinityRowsUpserted(affinityRows)
+                    .estimatedBytesPerRow(bytesPerRow)
+                    .estimatedBytesReclaimed(rowsDeleted * bytesPerRow)
+                    .build();
+            lastReport = report;
+
+            log.info("View retention finished: batches={}, rowsDeleted={}, affinityRows={}, ~{} bytes reclaimed",
+                    batches, rowsDeleted, affinityRows, report.getEstimatedBytesReclaimed());
+
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Report of the last completed run, or null if none ran since startup
+     */
+    public ViewRetentionReport getLastReport() {
+        return lastReport;
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Lock one batch of aged rows, roll them into the affinity summary and delete them
+     * Runs inside a transaction; SKIP LOCKED lets several instances share the work
+     */
+    private BatchResult compactBatch(LocalDateTime cutoff, Cursor cursor) {
+        List<AgedView> rows = jdbcTemplate.query(SELECT_BATCH_SQL,
+                (rs, rowNum) -> new AgedView(
+                        rs.getBytes("user_id"),
+                        rs.getBytes("product_id"),
+                        rs.getLong("view_count"),
+                        rs.getTimestamp("last_viewed_at").toLocalDateTime(),
+                        rs.getBytes("category_id")),
+                Timestamp.valueOf(cutoff),
+                Timestamp.valueOf(cursor.lastViewedAt), cursor.userId, cursor.productId,
+                batchSize);
+
+        if (rows.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+
+        // Aggregate per (user, category); rows of deleted products carry no category and are just dropped
+        Map<AffinityKey, AffinityDelta> deltas = new LinkedHashMap<>();
+        for (AgedView row : rows) {
+            if (row.categoryId() == null) {
+                continue;
+            }
+            deltas.computeIfAbsent(new AffinityKey(row.userId(), row.categoryId()), k -> new AffinityDelta())
+                    .add(row.viewCount(), row.lastViewedAt());
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> upserts = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> upserts.add(new Object[]{
+                key.userId(), key.categoryId(), delta.viewCount, delta.rows,
+                Timestamp.valueOf(delta.lastViewedAt), now, now
+        }));
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_AFFINITY_SQL, upserts);
+        }
+
+        List<Object[]> keys = rows.stream()
+                .map(row -> new Object[]{row.userId(), row.productId()})
+                .toList();
+        int deleted = namedJdbcTemplate.update(DELETE_BATCH_SQL, Map.of("keys", keys));
+
+        AgedView last = rows.get(rows.size() - 1);
+        cursor.advance(last.lastViewedAt(), last.userId(), last.productId());
+
+        return new BatchResult(deleted, upserts.size());
+    }
+
+    private long estimateBytesPerRow() {
+        try {
+            return Objects.requireNonNullElse(jdbcTemplate.queryForObject(TABLE_SIZE_SQL, (rs, rowNum) -> {
+                long bytes = rs.getLong(1);
+                long tableRows = rs.getLong(2);
+                return tableRows > 0 ? bytes / tableRows : 0L;
+            }), 0L);
+        } catch (Exception e) {
+            log.warn("Could not read user_product_views size: {}", e.getMessage());
+            return 0L;
+        }
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record AgedView(byte[] userId, byte[] productId, long viewCount,
+                            LocalDateTime lastViewedAt, byte[] categoryId) {
+    }
+
+    private record AffinityKey(byte[] userId, byte[] categoryId) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof AffinityKey other
+                    && Arrays.equals(userId, other.userId)
+                    && Arrays.equals(categoryId, other.categoryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(userId) + Arrays.hashCode(categoryId);
+        }
+    }
+
+    private static class AffinityDelta {
+        private long viewCount;
+        private int rows;
+        private LocalDateTime lastViewedAt;
+
+        void add(long views, LocalDateTime viewedAt) {
+            viewCount += views;
+            rows++;
+            if (lastViewedAt == null || viewedAt.isAfter(lastViewedAt)) {
+                lastViewedAt = viewedAt;
+            }
+        }
+    }
+
+    private record BatchResult(int rowsDeleted, int affinityRows) {
+    }
+
+    private static class Cursor {
+        private LocalDateTime lastViewedAt;
+        private byte[] userId;
+        private byte[] productId;
+
+        static Cursor start() {
+            Cursor cursor = new Cursor();
+            cursor.advance(LocalDateTime.of(1970, 1, 1, 0, 0), new byte[16], new byte[16]);
+            return cursor;
+        }
+
+        void advance(LocalDateTime lastViewedAt, byte[] userId, byte[] productId) {
+            this.lastViewedAt = lastViewedAt;
+            this.userId = userId;
+            this.productId = productId;
+        }
+    }
+}
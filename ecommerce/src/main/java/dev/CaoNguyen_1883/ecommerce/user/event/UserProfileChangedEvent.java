@@ -0,0 +1,10 @@
+package dev.CaoNguyen_1883.ecommerce.user.event;
+
+import java.util.UUID;
+
+/**
+ * In-process event: email or full name of a user changed
+ * Published inside the update transaction; listeners react after commit
+ */
+public record UserProfileChangedEvent(UUID userId) {
+}
@@ -8,6 +8,7 @@ import dev.CaoNguyen_1883.ecommerce.user.dto.*;
 import dev.CaoNguyen_1883.ecommerce.user.entity.AuthProvider;
 import dev.CaoNguyen_1883.ecommerce.user.entity.Role;
 import dev.CaoNguyen_1883.ecommerce.user.entity.User;
+import dev.CaoNguyen_1883.ecommerce.user.event.UserProfileChangedEvent;
 import dev.CaoNguyen_1883.ecommerce.user.mapper.UserMapper;
 import dev.CaoNguyen_1883.ecommerce.user.repository.UserRepository;
 import dev.CaoNguyen_1883.ecommerce.user.service.IRoleService;
@@ -17,12 +18,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
@@ -35,6 +38,7 @@ public class UserServiceImpl implements IUserService {
     private final UserMapper userMapper;
     private final IRoleService roleService;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Page<UserSummaryDTO> getAllUsers(Pageable pageable) {
@@ -127,6 +131,8 @@ public class UserServiceImpl implements IUserService {
             throw new DuplicateResourceException("User", "email", request.getEmail());
         }
 
+        String previousEmail = user.getEmail();
+        String previousFullName = user.getFullName();
         userMapper.updateEntityFromRequest(request, user);
 
         // Update roles if provided
@@ -144,6 +150,11 @@ public class UserServiceImpl implements IUserService {
 
         User updated = userRepository.save(user);
 
+        // Orders are searchable by customer email and name
+        if (!Objects.equals(previousEmail, updated.getEmail()) || !Objects.equals(previousFullName, updated.getFullName())) {
+            eventPublisher.publishEvent(new UserProfileChangedEvent(updated.getId()));
+        }
+
         log.info("User updated successfully: {}", updated.getId());
         return userMapper.toDTO(updated);
     }
@@ -0,0 +1,29 @@
+package dev.CaoNguyen_1883.ecommerce.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Conversions between UUID and the BINARY(16) form used by MySQL id columns
+ * Needed by native queries and JdbcTemplate code that bypass Hibernate type mapping
+ */
+public final class UuidUtils {
+
+    private UuidUtils() {
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        ByteBuffer bb = ByteBuffer.wrap(new byte[16]);
+        bb.putLong(uuid.getMostSignificantBits());
+        bb.putLong(uuid.getLeastSignificantBits());
+        return bb.array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        return new UUID(bb.getLong(), bb.getLong());
+    }
+}
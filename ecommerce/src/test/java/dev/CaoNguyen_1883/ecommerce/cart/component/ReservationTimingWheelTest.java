@@ -0,0 +1,115 @@
+package dev.CaoNguyen_1883.ecommerce.cart.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationTimingWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    void expiresOnceOnTheTickOfItsDeadline() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, 8, 3, 0);
+        UUID item = UUID.randomUUID();
+        wheel.schedule(item, 35);
+
+        assertTrue(wheel.advance(30).isEmpty());
+        assertEquals(List.of(item), wheel.advance(40));
+        assertTrue(wheel.advance(100).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesDeadlinesFromHigherLevels() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, 8, 3, 0);
+        UUID levelOne = UUID.randomUUID();
+        UUID levelTwo = UUID.randomUUID();
+        wheel.schedule(levelOne, 245);    // beyond the 8 ticks of level 0
+        wheel.schedule(levelTwo, 1287);   // beyond the 64 ticks of level 1
+
+        assertEquals(250, expiryTime(wheel, levelOne, 2000));
+        assertEquals(1290, expiryTime(wheel, levelTwo, 2000));
+    }
+
+    @Test
+    void cascadedDeadlineOnALevelBoundaryIsNotLate() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, 8, 3, 0);
+        UUID item = UUID.randomUUID();
+        wheel.schedule(item, 240);    // tick 24 is also when its level 1 slot cascades
+
+        assertEquals(240, expiryTime(wheel, item, 1000));
+    }
+
+    @Test
+    void reParksDeadlinesBeyondTheTopLevel() {
+        // Two levels of 4 slots cover 16 ticks (160 ms)
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, 4, 2, 0);
+        UUID item = UUID.randomUUID();
+        wheel.schedule(item, 1000);
+
+        assertEquals(1000, expiryTime(wheel, item, 5000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelAfterCascadeDropsTheEntry() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, 8, 3, 0);
+        UUID item = UUID.randomUUID();
+        wheel.schedule(item, 245);
+
+        // Tick 24 cascades the level 1 slot holding the deadline down to level 0
+        assertTrue(wheel.advance(240).isEmpty());
+        wheel.cancel(item);
+
+        assertTrue(wheel.advance(1000).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleSupersedesTheEarlierDeadline() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, 8, 3, 0);
+        UUID item = UUID.randomUUID();
+        wheel.schedule(item, 50);
+        wheel.schedule(item, 500);
+
+        assertEquals(500, expiryTime(wheel, item, 2000));
+        assertEquals(0, countExpiries(wheel, item, 500, 3000));  // never again
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextTick() {
+        ReservationTimingWheel wheel = new ReservationTimingWheel(TICK, 8, 3, 1000);
+        UUID item = UUID.randomUUID();
+        wheel.schedule(item, 500);
+
+        assertEquals(List.of(item), wheel.advance(1010));
+    }
+
+    // ===== HELPER METHODS =====
+
+    /**
+     * Advance one tick at a time; time of the advance that returned the item, or -1
+     */
+    private static long expiryTime(ReservationTimingWheel wheel, UUID item, long until) {
+        for (long now = TICK; now <= until; now += TICK) {
+            if (wheel.advance(now).contains(item)) {
+                return now;
+            }
+        }
+        return -1;
+    }
+
+    private static int countExpiries(ReservationTimingWheel wheel, UUID item, long from, long until) {
+        int count = 0;
+        for (long now = from + TICK; now <= until; now += TICK) {
+            if (wheel.advance(now).contains(item)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
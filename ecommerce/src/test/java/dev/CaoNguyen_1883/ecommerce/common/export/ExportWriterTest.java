@@ -0,0 +1,78 @@
+package dev.CaoNguyen_1883.ecommerce.common.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportWriterTest {
+
+    private static final List<String> COLUMNS = List.of("name", "amount");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvStartsWithTheHeader() throws IOException {
+        assertEquals("name,amount\r\n", csv());
+    }
+
+    @Test
+    void csvNeutralizesFormulas() throws IOException {
+        assertEquals("name,amount\r\n'=cmd,1\r\n'+1,2\r\n'@sum,3\r\n",
+                csv(new Object[]{"=cmd", 1}, new Object[]{"+1", 2}, new Object[]{"@sum", 3}));
+    }
+
+    @Test
+    void csvKeepsNegativeNumbersAsNumbers() throws IOException {
+        assertEquals("name,amount\r\n'-x,-1\r\n,-2.50\r\n",
+                csv(new Object[]{"-x", -1}, new Object[]{null, new BigDecimal("-2.50")}));
+    }
+
+    @Test
+    void csvQuotesSeparatorsQuotesAndLineBreaks() throws IOException {
+        assertEquals("name,amount\r\n\"say \"\"hi\"\", ok\",1\r\n\"a\r\nb\",2\r\n\"'\rx\",3\r\n",
+                csv(new Object[]{"say \"hi\", ok", 1}, new Object[]{"a\r\nb", 2}, new Object[]{"\rx", 3}));
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = new ExportWriter(out, ExportFormat.NDJSON, COLUMNS, objectMapper);
+        writer.writeRow("=cmd", -1);
+        writer.writeRow("line\r\nbreak", new BigDecimal("2.50"));
+        writer.writeRow(Timestamp.valueOf(LocalDateTime.of(2024, 1, 2, 3, 4, 5)), null);
+        writer.flush();
+
+        assertEquals("""
+                {"name":"=cmd","amount":-1}
+                {"name":"line\\r\\nbreak","amount":2.50}
+                {"name":"2024-01-02T03:04:05","amount":null}
+                """, out.toString(StandardCharsets.UTF_8));
+        assertEquals(3, writer.getRows());
+    }
+
+    @Test
+    void rejectsRowsOfTheWrongWidth() throws IOException {
+        ExportWriter writer = new ExportWriter(new ByteArrayOutputStream(), ExportFormat.CSV, COLUMNS, objectMapper);
+
+        assertThrows(IllegalArgumentException.class, () -> writer.writeRow("only one"));
+    }
+
+    private String csv(Object[]... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = new ExportWriter(out, ExportFormat.CSV, COLUMNS, objectMapper);
+        for (Object[] row : rows) {
+            writer.writeRow(row);
+        }
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,159 @@
+package dev.CaoNguyen_1883.ecommerce.product.component;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotSkuLaneTest {
+
+    private static final long WAIT_SECONDS = 5;
+
+    private final FakeStorage storage = new FakeStorage(10);
+    private HotSkuLane lane;
+
+    @AfterEach
+    void tearDown() {
+        storage.unblock();
+        if (lane != null) {
+            lane.close(WAIT_SECONDS * 1000);
+        }
+    }
+
+    @Test
+    void conditionalReservationsStopAtStock() throws Exception {
+        lane = new HotSkuLane(UUID.randomUUID(), "test", storage, 100);
+
+        assertTrue(lane.reserve(6).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(lane.reserve(5).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(lane.adjust(-6).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(lane.reserve(5).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(5, storage.reserved());
+    }
+
+    @Test
+    void cancelledChangeIsNeverApplied() throws Exception {
+        storage.block();
+        lane = new HotSkuLane(UUID.randomUUID(), "test", storage, 100);
+
+        Future<Boolean> first = lane.reserve(1);
+        assertTrue(storage.awaitBlocked());   // the lane took the first change and waits in storage
+        Future<Boolean> second = lane.reserve(2);
+
+        assertTrue(second.cancel(false));
+        assertTrue(second.isCancelled());
+        storage.unblock();
+
+        assertTrue(first.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(lane.adjust(0).get(WAIT_SECONDS, TimeUnit.SECONDS));   // drains whatever was queued
+        assertEquals(1, storage.reserved());
+        assertEquals(List.of(1, 0), storage.appliedDeltas());
+    }
+
+    @Test
+    void changeTakenByTheLaneCannotBeCancelled() throws Exception {
+        storage.block();
+        lane = new HotSkuLane(UUID.randomUUID(), "test", storage, 100);
+
+        Future<Boolean> change = lane.reserve(3);
+        assertTrue(storage.awaitBlocked());
+
+        assertFalse(change.cancel(false));
+        storage.unblock();
+
+        assertTrue(change.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(3, storage.reserved());
+    }
+
+    @Test
+    void failedBatchFailsItsChanges() {
+        storage.failNext();
+        lane = new HotSkuLane(UUID.randomUUID(), "test", storage, 100);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> lane.reserve(1).get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(0, storage.reserved());
+    }
+
+    @Test
+    void closedLaneRejectsChanges() {
+        lane = new HotSkuLane(UUID.randomUUID(), "test", storage, 100);
+        lane.close(WAIT_SECONDS * 1000);
+
+        assertThrows(RejectedExecutionException.class, () -> lane.reserve(1));
+        assertThrows(RejectedExecutionException.class, () -> lane.adjust(-1));
+    }
+
+    /**
+     * In-memory row: stock and reserved_stock, applied in order like the real storage
+     */
+    private static final class FakeStorage implements HotSkuLane.Storage {
+
+        private final int stock;
+        private final List<Integer> applied = new ArrayList<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean failNext;
+        private int reserved;
+
+        private FakeStorage(int stock) {
+            this.stock = stock;
+        }
+
+        @Override
+        public boolean[] apply(UUID variantId, int[] deltas, boolean[] conditional) {
+            blocked.countDown();
+            try {
+                gate.await(WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("Batch failed");
+            }
+
+            synchronized (this) {
+                boolean[] result = new boolean[deltas.length];
+                for (int i = 0; i < deltas.length; i++) {
+                    if (!conditional[i] || reserved + deltas[i] <= stock) {
+                        reserved += deltas[i];
+                        applied.add(deltas[i]);
+                        result[i] = true;
+                    }
+                }
+                return result;
+            }
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void unblock() {
+            gate.countDown();
+        }
+
+        void failNext() {
+            failNext = true;
+        }
+
+        boolean awaitBlocked() throws InterruptedException {
+            return blocked.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        synchronized int reserved() {
+            return reserved;
+        }
+
+        synchronized List<Integer> appliedDeltas() {
+            return List.copyOf(applied);
+        }
+    }
+}
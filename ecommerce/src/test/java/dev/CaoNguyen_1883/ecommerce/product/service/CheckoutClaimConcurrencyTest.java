@@ -0,0 +1,121 @@
+package dev.CaoNguyen_1883.ecommerce.product.service;
+
+import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.service.ICartService;
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.DuplicateResourceException;
+import dev.CaoNguyen_1883.ecommerce.order.dto.CreateOrderRequest;
+import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentMethod;
+import dev.CaoNguyen_1883.ecommerce.order.repository.OrderRepository;
+import dev.CaoNguyen_1883.ecommerce.order.service.IOrderService;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.user.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent checkouts of one cart must place exactly one order and leave other carts' reservations alone
+ */
+@SpringBootTest
+@Import(StockFixture.class)
+class CheckoutClaimConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int STOCK = 20;
+    private static final int BUYER_QUANTITY = 2;
+    private static final int OTHER_QUANTITY = 5;
+
+    @Autowired
+    private ICartService cartService;
+
+    @Autowired
+    private IOrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private StockFixture fixture;
+
+    private StockFixture.Catalog catalog;
+    private ProductVariant variant;
+    private User buyer;
+
+    @BeforeEach
+    void setUp() {
+        catalog = fixture.create("Checkout claim");
+        variant = fixture.addVariant(catalog, "Claim", STOCK);
+        buyer = fixture.addBuyer(catalog);
+        User other = fixture.addBuyer(catalog);
+
+        cartService.addToCart(buyer.getId(), new AddToCartRequest(variant.getId(), BUYER_QUANTITY));
+        // Held by someone else: a duplicate checkout must not be able to take it
+        cartService.addToCart(other.getId(), new AddToCartRequest(variant.getId(), OTHER_QUANTITY));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.delete(catalog);
+    }
+
+    @Test
+    void concurrentCheckoutsOfOneCartPlaceOneOrder() throws Exception {
+        CreateOrderRequest request = CreateOrderRequest.builder()
+                .shippingAddress("1 Claim Street")
+                .shippingCity("Ha Noi")
+                .shippingPhone("0900000000")
+                .shippingRecipient("Claim Buyer")
+                .paymentMethod(PaymentMethod.COD)
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderService.createOrderFromCart(buyer.getId(), request);
+                        placed.incrementAndGet();
+                    } catch (DuplicateResourceException | BadRequestException e) {
+                        // Claimed by the running checkout, or already empty after it
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ProductVariant reloaded = variantRepository.findById(variant.getId()).orElseThrow();
+
+        assertEquals(1, placed.get());
+        assertEquals(THREADS - 1, refused.get());
+        assertEquals(1, orderRepository.findByUserIdOrderByCreatedAtDesc(buyer.getId()).size());
+        assertEquals(STOCK - BUYER_QUANTITY, reloaded.getStock());
+        assertEquals(OTHER_QUANTITY, reloaded.getReservedStock());
+    }
+}
@@ -0,0 +1,157 @@
+package dev.CaoNguyen_1883.ecommerce.product.service;
+
+import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.service.ICartService;
+import dev.CaoNguyen_1883.ecommerce.common.exception.BadRequestException;
+import dev.CaoNguyen_1883.ecommerce.common.exception.OutOfStockException;
+import dev.CaoNguyen_1883.ecommerce.order.dto.CreateOrderRequest;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderDto;
+import dev.CaoNguyen_1883.ecommerce.order.dto.OrderItemDto;
+import dev.CaoNguyen_1883.ecommerce.order.entity.PaymentMethod;
+import dev.CaoNguyen_1883.ecommerce.order.service.IOrderService;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.user.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of checkout (addToCart, then IOrderService.createOrderFromCart) when concurrent
+ * buyers share SKUs in different orders; no deadlocks, no oversell, no reservation left behind
+ * Run with: mvn test -Dtest=CheckoutStockBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@Import(StockFixture.class)
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutStockBenchmarkTest {
+
+    private static final int BUYERS = 32;
+    private static final int CHECKOUTS_PER_BUYER = 40;
+    private static final int VARIANTS = 4;
+    private static final int LINES_PER_CHECKOUT = 3;
+    private static final int STOCK = 300;  // well below demand, so every variant sells out
+
+    @Autowired
+    private ICartService cartService;
+
+    @Autowired
+    private IOrderService orderService;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private StockFixture fixture;
+
+    private StockFixture.Catalog catalog;
+    private final List<UUID> variantIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        catalog = fixture.create("Checkout benchmark");
+        for (int i = 0; i < VARIANTS; i++) {
+            variantIds.add(fixture.addVariant(catalog, "Variant" + i, STOCK).getId());
+        }
+        for (int i = 0; i < BUYERS; i++) {
+            fixture.addBuyer(catalog);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.delete(catalog);
+        variantIds.clear();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentMap<UUID, AtomicInteger> sold = new ConcurrentHashMap<>();
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CreateOrderRequest request = CreateOrderRequest.builder()
+                .shippingAddress("1 Benchmark Street")
+                .shippingCity("Ha Noi")
+                .shippingPhone("0900000000")
+                .shippingRecipient("Benchmark Buyer")
+                .paymentMethod(PaymentMethod.COD)
+                .build();
+
+        double seconds;
+        try {
+            List<Future<?>> futures = new ArrayList<>(BUYERS);
+            for (User buyer : catalog.buyers()) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < CHECKOUTS_PER_BUYER; i++) {
+                        // Random subset in random order: unordered locking would deadlock here
+                        List<UUID> lines = new ArrayList<>(variantIds);
+                        Collections.shuffle(lines, ThreadLocalRandom.current());
+                        for (UUID variantId : lines.subList(0, LINES_PER_CHECKOUT)) {
+                            int quantity = 1 + ThreadLocalRandom.current().nextInt(2);
+                            try {
+                                cartService.addToCart(buyer.getId(), new AddToCartRequest(variantId, quantity));
+                            } catch (OutOfStockException e) {
+                                // Sold out, check out the rest
+                            }
+                        }
+
+                        try {
+                            OrderDto order = orderService.createOrderFromCart(buyer.getId(), request);
+                            for (OrderItemDto item : order.getItems()) {
+                                sold.computeIfAbsent(item.getVariantId(), k -> new AtomicInteger())
+                                        .addAndGet(item.getQuantity());
+                            }
+                            committed.incrementAndGet();
+                        } catch (BadRequestException e) {
+                            // Empty cart or short stock: drop the lines and their reservations
+                            cartService.clearCart(buyer.getId());
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+            seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("checkout: {} committed, {} rejected, {} checkouts/s",
+                committed.get(), rejected.get(), Math.round(BUYERS * CHECKOUTS_PER_BUYER / seconds));
+
+        assertEquals(BUYERS * CHECKOUTS_PER_BUYER, committed.get() + rejected.get());
+        assertTrue(committed.get() > 0, "no checkout committed");
+        assertTrue(rejected.get() > 0, "demand never exceeded stock");
+
+        for (UUID variantId : variantIds) {
+            ProductVariant row = variantRepository.findById(variantId).orElseThrow();
+            int soldUnits = sold.getOrDefault(variantId, new AtomicInteger()).get();
+            assertTrue(row.getStock() >= 0, "stock went negative");
+            assertEquals(STOCK, row.getStock() + soldUnits);
+            // Every reservation was either committed by its order or released with its cart
+            assertEquals(0, row.getReservedStock());
+        }
+    }
+}
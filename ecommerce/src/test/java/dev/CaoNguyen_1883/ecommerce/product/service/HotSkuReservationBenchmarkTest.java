@@ -0,0 +1,133 @@
+package dev.CaoNguyen_1883.ecommerce.product.service;
+
+import dev.CaoNguyen_1883.ecommerce.cart.dto.AddToCartRequest;
+import dev.CaoNguyen_1883.ecommerce.cart.service.ICartService;
+import dev.CaoNguyen_1883.ecommerce.common.exception.OutOfStockException;
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.user.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput of CartServiceImpl.addToCart on one SKU, regular path vs hot SKU lane
+ * Run with: mvn test -Dtest=HotSkuReservationBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@Import(StockFixture.class)
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HotSkuReservationBenchmarkTest {
+
+    private static final int BUYERS = 32;
+    private static final int ADDS_PER_BUYER = 50;
+    private static final int STOCK = BUYERS * ADDS_PER_BUYER / 2;  // half of the attempts sell out
+
+    @Autowired
+    private ICartService cartService;
+
+    @Autowired
+    private IStockReservationService stockReservationService;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private StockFixture fixture;
+
+    private StockFixture.Catalog catalog;
+    private ProductVariant regularVariant;
+    private ProductVariant hotVariant;
+
+    @BeforeEach
+    void setUp() {
+        catalog = fixture.create("Hot SKU benchmark");
+        regularVariant = fixture.addVariant(catalog, "Regular", STOCK);
+        hotVariant = fixture.addVariant(catalog, "Hot", STOCK);
+        for (int i = 0; i < BUYERS; i++) {
+            fixture.addBuyer(catalog);
+        }
+
+        stockReservationService.setHotSku(hotVariant.getId(), true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockReservationService.setHotSku(hotVariant.getId(), false);
+        fixture.delete(catalog);
+    }
+
+    @Test
+    void compareRegularAndHotSkuThroughput() throws Exception {
+        Result regular = run(regularVariant.getId());
+        Result hot = run(hotVariant.getId());
+
+        log.info("addToCart regular: {} reserved, {} rejected, {} ops/s",
+                regular.reserved(), regular.rejected(), Math.round(regular.opsPerSecond()));
+        log.info("addToCart hot SKU: {} reserved, {} rejected, {} ops/s",
+                hot.reserved(), hot.rejected(), Math.round(hot.opsPerSecond()));
+
+        // Neither path may oversell
+        assertEquals(STOCK, regular.reserved());
+        assertEquals(STOCK, hot.reserved());
+
+        // Lane batches are committed before they are acknowledged, so the row is exact already
+        ProductVariant hotRow = variantRepository.findById(hotVariant.getId()).orElseThrow();
+        assertEquals(STOCK, hotRow.getReservedStock());
+        assertTrue(hot.opsPerSecond() > 0);
+    }
+
+    private Result run(UUID variantId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(BUYERS);
+            for (User buyer : catalog.buyers()) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_BUYER; i++) {
+                        try {
+                            cartService.addToCart(buyer.getId(), new AddToCartRequest(variantId, 1));
+                            reserved.incrementAndGet();
+                        } catch (OutOfStockException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+            double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+            return new Result(reserved.get(), rejected.get(), BUYERS * ADDS_PER_BUYER / seconds);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Result(int reserved, int rejected, double opsPerSecond) {
+    }
+}
@@ -0,0 +1,137 @@
+package dev.CaoNguyen_1883.ecommerce.product.service;
+
+import dev.CaoNguyen_1883.ecommerce.cart.component.CartWriteBehind;
+import dev.CaoNguyen_1883.ecommerce.cart.repository.CartRepository;
+import dev.CaoNguyen_1883.ecommerce.order.repository.OrderRepository;
+import dev.CaoNguyen_1883.ecommerce.product.entity.*;
+import dev.CaoNguyen_1883.ecommerce.product.repository.BrandRepository;
+import dev.CaoNguyen_1883.ecommerce.product.repository.CategoryRepository;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductRepository;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import dev.CaoNguyen_1883.ecommerce.user.entity.User;
+import dev.CaoNguyen_1883.ecommerce.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Category, brand, seller and product with variants and buyers for stock tests
+ * Every name carries a random suffix so runs against a shared database don't collide
+ */
+@TestComponent
+@RequiredArgsConstructor
+class StockFixture {
+
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository variantRepository;
+    private final CartRepository cartRepository;
+    private final OrderRepository orderRepository;
+    private final CartWriteBehind cartWriteBehind;
+
+    /**
+     * Save a catalog with one product and no variants yet
+     */
+    Catalog create(String label) {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String slug = label.toLowerCase().replace(' ', '-') + "-" + suffix;
+
+        Catalog catalog = new Catalog(suffix);
+        catalog.category = categoryRepository.save(Category.builder()
+                .name(label + " " + suffix)
+                .slug(slug)
+                .build());
+        catalog.brand = brandRepository.save(Brand.builder()
+                .name(label + " " + suffix)
+                .slug(slug)
+                .build());
+        catalog.seller = userRepository.save(User.builder()
+                .email("seller-" + suffix + "@test.local")
+                .fullName(label + " Seller")
+                .build());
+        catalog.product = productRepository.save(Product.builder()
+                .name(label + " item " + suffix)
+                .slug(slug)
+                .category(catalog.category)
+                .brand(catalog.brand)
+                .seller(catalog.seller)
+                .basePrice(BigDecimal.TEN)
+                .status(ProductStatus.APPROVED)
+                .build());
+        return catalog;
+    }
+
+    ProductVariant addVariant(Catalog catalog, String name, int stock) {
+        ProductVariant variant = variantRepository.save(ProductVariant.builder()
+                .product(catalog.product)
+                .sku(name.toUpperCase() + "-" + catalog.suffix)
+                .name(name)
+                .stock(stock)
+                .reservedStock(0)
+                .isDefault(catalog.variants.isEmpty())
+                .build());
+        catalog.variants.add(variant);
+        return variant;
+    }
+
+    User addBuyer(Catalog catalog) {
+        int index = catalog.buyers.size();
+        User buyer = userRepository.save(User.builder()
+                .email("buyer-" + index + "-" + catalog.suffix + "@test.local")
+                .fullName("Buyer " + index)
+                .build());
+        catalog.buyers.add(buyer);
+        return buyer;
+    }
+
+    /**
+     * Delete everything the catalog created, including the buyers' carts and orders
+     */
+    void delete(Catalog catalog) {
+        // Pending cart writes would otherwise recreate rows of the deleted carts
+        cartWriteBehind.flush();
+
+        for (User buyer : catalog.buyers) {
+            orderRepository.deleteAll(orderRepository.findByUserIdOrderByCreatedAtDesc(buyer.getId()));
+            cartRepository.findByUserId(buyer.getId()).ifPresent(cartRepository::delete);
+            userRepository.deleteById(buyer.getId());
+        }
+        catalog.variants.forEach(variant -> variantRepository.deleteById(variant.getId()));
+        productRepository.deleteById(catalog.product.getId());
+        userRepository.deleteById(catalog.seller.getId());
+        brandRepository.deleteById(catalog.brand.getId());
+        categoryRepository.deleteById(catalog.category.getId());
+    }
+
+    /**
+     * Entities of one fixture
+     */
+    static final class Catalog {
+
+        private final String suffix;
+        private Category category;
+        private Brand brand;
+        private User seller;
+        private Product product;
+        private final List<ProductVariant> variants = new ArrayList<>();
+        private final List<User> buyers = new ArrayList<>();
+
+        private Catalog(String suffix) {
+            this.suffix = suffix;
+        }
+
+        List<ProductVariant> variants() {
+            return variants;
+        }
+
+        List<User> buyers() {
+            return buyers;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package dev.CaoNguyen_1883.ecommerce.product.service;
+
+import dev.CaoNguyen_1883.ecommerce.product.entity.ProductVariant;
+import dev.CaoNguyen_1883.ecommerce.product.repository.ProductVariantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Many buyers racing for the same SKU must never reserve more than the stock
+ */
+@SpringBootTest
+@Import(StockFixture.class)
+class StockReservationConcurrencyTest {
+
+    private static final int THREADS = 500;
+    private static final int STOCK = 100;
+
+    @Autowired
+    private IStockReservationService stockReservationService;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private StockFixture fixture;
+
+    private StockFixture.Catalog catalog;
+    private ProductVariant variant;
+
+    @BeforeEach
+    void setUp() {
+        catalog = fixture.create("Concurrency");
+        variant = fixture.addVariant(catalog, "Flash", STOCK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.delete(catalog);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        UUID variantId = variant.getId();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    if (stockReservationService.tryReserve(variantId, 1)) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ProductVariant reloaded = variantRepository.findById(variantId).orElseThrow();
+
+        assertEquals(STOCK, succeeded.get());
+        assertEquals(THREADS - STOCK, rejected.get());
+        assertEquals(STOCK, reloaded.getReservedStock());
+        assertEquals(STOCK, reloaded.getStock());
+    }
+
+    @Test
+    void releaseAndCommitKeepCountersConsistent() {
+        UUID variantId = variant.getId();
+
+        stockReservationService.tryReserve(variantId, 10);
+        stockReservationService.release(variantId, 4);
+        stockReservationService.tryCommit(variantId, 6);
+
+        ProductVariant reloaded = variantRepository.findById(variantId).orElseThrow();
+
+        assertEquals(STOCK - 6, reloaded.getStock());
+        assertEquals(0, reloaded.getReservedStock());
+    }
+
+    @Test
+    void commitBeyondReservationIsRejected() {
+        UUID variantId = variant.getId();
+
+        stockReservationService.tryReserve(variantId, 3);
+
+        assertFalse(stockReservationService.tryCommit(variantId, 5));
+
+        ProductVariant reloaded = variantRepository.findById(variantId).orElseThrow();
+        assertEquals(STOCK, reloaded.getStock());
+        assertEquals(3, reloaded.getReservedStock());
+    }
+}
@@ -0,0 +1,57 @@
+package dev.CaoNguyen_1883.ecommerce.recommendation.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoViewNeighboursTest {
+
+    private static final long HALF_LIFE = 1000;
+
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+    private final UUID c = UUID.randomUUID();
+
+    @Test
+    void olderScoresDecay() {
+        CoViewNeighbours neighbours = new CoViewNeighbours(3, HALF_LIFE, 0);
+        neighbours.add(a, 4, 0);
+        neighbours.add(b, 3, HALF_LIFE);   // a has halved to 2 by now
+
+        assertEquals(List.of(b, a), neighbours.top(10, HALF_LIFE));
+    }
+
+    @Test
+    void newNeighbourReplacesTheWeakestAndInheritsItsScore() {
+        CoViewNeighbours neighbours = new CoViewNeighbours(2, HALF_LIFE, 0);
+        neighbours.add(a, 5, 0);
+        neighbours.add(b, 1, 0);
+        neighbours.add(c, 0.5, 0);    // takes b's slot with 1 + 0.5
+
+        assertEquals(2, neighbours.size());
+        assertEquals(List.of(a, c), neighbours.top(10, 0));
+
+        neighbours.add(c, 4, 0);      // 5.5 overtakes a
+        assertEquals(List.of(c, a), neighbours.top(10, 0));
+    }
+
+    @Test
+    void repeatedAddsAccumulate() {
+        CoViewNeighbours neighbours = new CoViewNeighbours(3, HALF_LIFE, 0);
+        neighbours.add(a, 3, 0);
+        neighbours.add(b, 1, 0);
+        neighbours.add(b, 1, 0);
+        neighbours.add(b, 1.5, 0);
+
+        assertEquals(2, neighbours.size());
+        assertEquals(List.of(b), neighbours.top(1, 0));
+    }
+
+    @Test
+    void rejectsEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new CoViewNeighbours(0, HALF_LIFE, 0));
+    }
+}
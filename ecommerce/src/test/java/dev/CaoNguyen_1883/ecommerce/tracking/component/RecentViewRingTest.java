@@ -0,0 +1,87 @@
+package dev.CaoNguyen_1883.ecommerce.tracking.component;
+
+import dev.CaoNguyen_1883.ecommerce.tracking.component.RecentViewRing.RecentView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentViewRingTest {
+
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+    private final UUID c = UUID.randomUUID();
+    private final UUID d = UUID.randomUUID();
+
+    @Test
+    void keepsTheNewestViewsWhenFull() {
+        RecentViewRing ring = new RecentViewRing(3);
+        ring.record(a, 1);
+        ring.record(b, 2);
+        ring.record(c, 3);
+        ring.record(d, 4);
+
+        assertEquals(List.of(d, c, b), ids(ring.recent(10, 0)));
+        assertEquals(3, ring.size());
+    }
+
+    @Test
+    void viewingAgainMovesToTheHeadWithoutDuplicate() {
+        RecentViewRing ring = new RecentViewRing(3);
+        ring.record(a, 1);
+        ring.record(b, 2);
+        ring.record(c, 3);
+        ring.record(b, 4);
+
+        assertEquals(List.of(b, c, a), ids(ring.recent(10, 0)));
+
+        // The moved entry is not evicted by the next new one, the oldest is
+        ring.record(d, 5);
+        assertEquals(List.of(d, b, c), ids(ring.recent(10, 0)));
+        assertEquals(3, ring.size());
+    }
+
+    @Test
+    void viewingTheNewestAgainKeepsTheLatestTime() {
+        RecentViewRing ring = new RecentViewRing(3);
+        ring.record(a, 10);
+        ring.record(a, 5);    // late, out of order
+
+        assertEquals(List.of(new RecentView(a, 10)), ring.recent(10, 0));
+    }
+
+    @Test
+    void appendOldestGoesBehindAndSkipsDuplicates() {
+        RecentViewRing ring = new RecentViewRing(3);
+        ring.record(a, 10);
+        ring.appendOldest(b, 5);
+        ring.appendOldest(a, 4);
+        ring.appendOldest(c, 3);
+        ring.appendOldest(d, 2);   // full
+
+        assertEquals(List.of(a, b, c), ids(ring.recent(10, 0)));
+    }
+
+    @Test
+    void recentStopsAtSinceAndLimit() {
+        RecentViewRing ring = new RecentViewRing(4);
+        ring.record(a, 1);
+        ring.record(b, 2);
+        ring.record(c, 3);
+        ring.record(d, 4);
+
+        assertEquals(List.of(d, c), ids(ring.recent(10, 3)));
+        assertEquals(List.of(d), ids(ring.recent(1, 0)));
+    }
+
+    @Test
+    void rejectsEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new RecentViewRing(0));
+    }
+
+    private static List<UUID> ids(List<RecentView> views) {
+        return views.stream().map(RecentView::productId).toList();
+    }
+}